@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * runs the benchmarks with the GC profiler, so the results contain the allocation rate next to the throughput
+ * accepts the regular JMH options, e.g. a regular expression to select benchmarks: java -jar benchmarks.jar Net
+ */
+public class BenchmarkRunner {
+    public static void main(String [] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.benchmark;
+
+import palgacodebookgenerator.codebook.CodebookItem;
+import palgacodebookgenerator.data.Protocol;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * protocol which takes its codebook items from the fixtures instead of a workspace
+ */
+public class FixtureProtocol extends Protocol {
+    private final Map<String, List<CodebookItem>> codebookItemMap;
+
+    /**
+     * constructor
+     * @param names    names of the fixtures which make up the protocol
+     */
+    public FixtureProtocol(String... names){
+        setProtocolTablePrefix("benchmark_");
+        codebookItemMap = NetFixtures.createCodebookItems(names);
+    }
+
+    @Override
+    public Map<String, List<CodebookItem>> getCodebookItems(){
+        return codebookItemMap;
+    }
+
+    @Override
+    public String getVersion(){
+        return "1.0";
+    }
+
+    @Override
+    public String getSmallVersion(){
+        return "0";
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import palgacodebookgenerator.codebook.CodebookItem;
+import palgacodebookgenerator.data.net.Net;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * building a net (parsing, creating and connecting the nodes) and deriving the rules of its codebook items
+ * chain and loop are the stress nets, with thousands of rule nodes in a row; the chain needs the larger heap
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dlog4j2.configurationFile=log4j2-benchmarks.xml", "-Xmx2g"})
+public class NetBenchmark {
+    @Param({"small", "medium", "large", "chain", "loop"})
+    public String fixture;
+
+    private String data;
+    private Net net;
+
+    @Setup
+    public void setup(){
+        data = NetFixtures.load(fixture);
+        net = new Net(data);
+    }
+
+    @Benchmark
+    public Net createNet(){
+        return new Net(data);
+    }
+
+    /**
+     * creating the codebook items of the codebook nodes, which is where the rules are derived from the parents
+     * @return map with the paths and their codebook items
+     */
+    @Benchmark
+    public Map<String, List<CodebookItem>> deriveRules(){
+        Map<String, List<CodebookItem>> codebookItemMap = new HashMap<>();
+        net.addCodebookItems(codebookItemMap);
+        return codebookItemMap;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.benchmark;
+
+import palgacodebookgenerator.codebook.CodebookItem;
+import palgacodebookgenerator.data.net.Net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * the nets used by the benchmarks. They are bundled in the fixtures directory of the resources:
+ * small (a couple of forms and diamonds), medium and large (hundreds of nodes)
+ * the regression fixtures are small nets with the rules which are expected for their fields, see RuleFixtureCheck
+ * the stress nets are not bundled but generated, see StressNet
+ */
+public class NetFixtures {
+    public static final String [] ALL = {"small", "medium", "large"};
+    // nets with a rule node or router which may follow none of its outputs
+    public static final String [] REGRESSION = {"partial_outputs"};
+    // nets with thousands of rule nodes in a row
+    public static final String [] STRESS = {"chain", "loop"};
+
+    private NetFixtures(){
+
+    }
+
+    /**
+     * read the data of a fixture net, or generate it for a stress net
+     * @param name    name of the fixture, e.g. small
+     * @return the data of the net
+     */
+    public static String load(String name){
+        if(Arrays.asList(STRESS).contains(name)){
+            return StressNet.create(name, StressNet.RULES);
+        }
+        return read("/fixtures/"+name+".txt");
+    }
+
+    /**
+     * read the rules which are expected for the fields of a regression fixture. The file has a line per field with
+     * the path and the rule, separated by a tab; the rule is empty if the field is always entered. Lines starting
+     * with # are comments
+     * @param name    name of the fixture, e.g. partial_outputs
+     * @return map with the paths and their expected rules
+     */
+    public static Map<String, String> loadExpectedRules(String name){
+        Map<String, String> expectedRules = new TreeMap<>();
+        for(String line:read("/fixtures/"+name+".rules").split("\\r?\\n")){
+            if(!line.isEmpty() && !line.startsWith("#")){
+                int tab = line.indexOf('\t');
+                if(tab<0){
+                    throw new RuntimeException("No tab in the expected rules of "+name+": "+line);
+                }
+                expectedRules.put(line.substring(0, tab), line.substring(tab+1));
+            }
+        }
+        return expectedRules;
+    }
+
+    /**
+     * read a resource
+     * @param resource    the resource, e.g. /fixtures/small.txt
+     * @return the text of the resource
+     */
+    private static String read(String resource){
+        try (InputStream inputStream = NetFixtures.class.getResourceAsStream(resource)) {
+            if(inputStream==null){
+                throw new RuntimeException("Fixture not found: "+resource);
+            }
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            byte [] buffer = new byte[8192];
+            int read;
+            while((read = inputStream.read(buffer)) != -1){
+                data.write(buffer, 0, read);
+            }
+            return data.toString(StandardCharsets.UTF_8.name());
+        } catch (IOException e){
+            throw new RuntimeException("Could not read fixture "+resource+": "+e.getMessage());
+        }
+    }
+
+    /**
+     * parse the fixtures and collect their codebook items, the way Protocol does for the selected nets
+     * @param names    names of the fixtures
+     * @return map with the paths and their codebook items
+     */
+    public static Map<String, List<CodebookItem>> createCodebookItems(String... names){
+        Map<String, List<CodebookItem>> codebookItemMap = new TreeMap<>();
+        for(String name:names){
+            new Net(load(name)).addCodebookItems(codebookItemMap);
+        }
+        return codebookItemMap;
+    }
+}
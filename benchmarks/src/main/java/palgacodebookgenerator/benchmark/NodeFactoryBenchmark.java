@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import palgacodebookgenerator.data.node.NodeFactory;
+import palgacodebookgenerator.utils.ParseUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * creating the nodes of a net from their text, without connecting them
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmarks.xml")
+public class NodeFactoryBenchmark {
+    @Param({"small", "medium", "large"})
+    public String fixture;
+
+    private List<CharSequence> nodeData;
+
+    @Setup
+    public void setup(){
+        List<CharSequence> splitData = ParseUtils.split(NetFixtures.load(fixture), "\n\n");
+        nodeData = splitData.subList(1, splitData.size());
+    }
+
+    @Benchmark
+    public void createNode(Blackhole blackhole){
+        for(CharSequence data:nodeData){
+            blackhole.consume(NodeFactory.createNode(data));
+        }
+    }
+}
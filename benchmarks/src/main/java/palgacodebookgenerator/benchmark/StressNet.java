@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+
+package palgacodebookgenerator.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static palgacodebookgenerator.benchmark.SyntheticNet.node;
+import static palgacodebookgenerator.benchmark.SyntheticNet.table;
+
+/**
+ * writes the text of a net with a long sequence of rule nodes, which is the worst case for the depth of the rules:
+ * the field after the sequence is entered when every rule in it holds
+ * chain: the true output of a rule node leads to the next one, the false output leaves to a single form
+ * loop: the false output leads back to the previous rule node, so the whole sequence is a single cycle
+ */
+class StressNet {
+    static final int RULES = 5000;
+
+    private StressNet(){
+
+    }
+
+    /**
+     * returns the text of a chain or loop net
+     * @param name     chain or loop
+     * @param rules    the number of rule nodes
+     * @return the text of the net
+     */
+    static String create(String name, int rules){
+        boolean loop = name.equals("loop");
+        if(!loop && !name.equals("chain")){
+            throw new IllegalArgumentException("Unknown stress net: "+name);
+        }
+        int stopId = 2;
+        int firstRuleId = 3;
+        int endId = firstRuleId+rules;
+        List<String> nodes = new ArrayList<>();
+        nodes.add(form(1, firstRuleId, "Start", true));
+        for(int i=0; i<rules; i++){
+            int falseId = loop && i>0 ? firstRuleId+i-1 : stopId;
+            nodes.add(rule(firstRuleId+i, firstRuleId+i+1, falseId, "Start", "Optie "+i));
+        }
+        nodes.add(form(endId, 0, "End", false));
+        nodes.add(form(stopId, 0, "Stop", false));
+
+        StringBuilder net = new StringBuilder();
+        net.append("return {\n\tname = \"").append(name).append("\",\n\tstamp = 1,\n\tversion = 1,\n\tnodes = {");
+        for(String node:nodes){
+            net.append("\n\n").append(node);
+        }
+        net.append("\n\t}\n}");
+        return net.toString();
+    }
+
+    /**
+     * returns the text of a form node with a single text field
+     * @param id          id of the node
+     * @param targetId    id of the next node, 0 if the net may stop here
+     * @param path        path of the field
+     * @param canStart    whether this is the start node
+     * @return the text of the node
+     */
+    private static String form(int id, int targetId, String path, boolean canStart){
+        Object output = targetId>0 ? table("id", "", "target", targetId) : table("can_stop", 1, "id", "");
+        return node(table("can_start", canStart ? 1 : 0, "form_part", 1, "id", id, "is_silent", 0, "ntype", "form",
+                "outputs", Arrays.asList(output), "parts", Arrays.asList(table("_name", "text",
+                        "caption", "Caption of "+path, "data_type", "text", "path", path))));
+    }
+
+    /**
+     * returns the text of a rule node, which compares the value of a field
+     * @param id           id of the node
+     * @param trueId       id of the node which follows if the rule holds
+     * @param falseId      id of the node which follows otherwise
+     * @param reference    path of the field which is compared
+     * @param test         the value it is compared with
+     * @return the text of the node
+     */
+    private static String rule(int id, int trueId, int falseId, String reference, String test){
+        return node(table("id", id, "is_silent", 1, "ntype", "rule",
+                "outputs", Arrays.asList(table("id", "true", "target", trueId), table("id", "false", "target", falseId)),
+                "parts", Arrays.asList(table("_name", "rule", "ruleparts", Arrays.asList(table("html", "", "id", 0,
+                        "leftOrder", table(), "operator", "equals", "reference", reference, "rightOrder", table(),
+                        "test", test, "type", "text"))))));
+    }
+}
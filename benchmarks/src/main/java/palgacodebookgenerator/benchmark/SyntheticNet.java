@@ -0,0 +1,323 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.benchmark;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * writes the text of a synthetic logicnet, in the format in which the nets are stored in the workspace
+ * a net starts with a radio form and continues with blocks until it has the requested number of nodes. A block is
+ * a rule node; its true branch goes into a tree of routers, its false branch skips the tree. The routers have
+ * fanOut outputs and are nested depth levels deep, with a form at each leaf. All branches of a block reconverge
+ * on a process node, which leads to the next block. Every reconvergence adds to the rules of the nodes after it,
+ * so deep trees are the expensive case for the rule derivation
+ * an instance creates a single net
+ */
+class SyntheticNet {
+    private static final String [] formKinds = {"radio", "number", "text"};
+    private final WorkspaceSettings settings;
+    private final Random random;
+    private final List<String> nodes = new ArrayList<>();
+    private int nextId = 1;
+    private int nextPath = 1;
+    private String lastPath;
+
+    /**
+     * constructor
+     * @param settings    settings of the workspace
+     * @param random      source of randomness, shared by the nets of the workspace
+     */
+    SyntheticNet(WorkspaceSettings settings, Random random){
+        this.settings = settings;
+        this.random = random;
+    }
+
+    /**
+     * create the text of a net
+     * @param name    name of the net, e.g. synth_net1
+     * @return the text of the net
+     */
+    String create(String name){
+        int startId = nextId++;
+        int headId = nextId++;
+        nodes.add(form(startId, headId, nextPath(name), true));
+        while(nextId<settings.getNodesPerNet()){
+            headId = addBlock(name, headId);
+        }
+        nodes.add(form(headId, 0, nextPath(name), false));
+        // a node which cannot be reached from the start node
+        nodes.add(form(nextId++, startId, nextPath(name), false));
+
+        StringBuilder net = new StringBuilder();
+        net.append("return {\n\tdatamodel = {\n\t\tname = \"dm_model\",\n\t\tversion = 7\n\t},\n");
+        net.append("\tname = \"").append(name).append("\",\n");
+        net.append("\tstamp = ").append(1000000+random.nextInt(9000000)).append(",\n");
+        net.append("\tversion = ").append(1+random.nextInt(50)).append(",\n");
+        net.append("\tnodes = {");
+        for(String node:nodes){
+            net.append("\n\n").append(node);
+        }
+        net.append("\n\t}\n}");
+        return net.toString();
+    }
+
+    /**
+     * add a block: a rule node which starts a tree of routers and a process node on which the branches reconverge
+     * @param name      name of the net
+     * @param ruleId    id of the rule node
+     * @return the id of the first node after the block
+     */
+    private int addBlock(String name, int ruleId){
+        int processId = nextId++;
+        int treeId = nextId++;
+        String reference = lastPath;
+        nodes.add(rule(ruleId, treeId, processId, reference));
+        addTree(name, treeId, settings.getDepth(), processId);
+        int nextHeadId = nextId++;
+        nodes.add(process(processId, nextHeadId, nextPath(name)));
+        return nextHeadId;
+    }
+
+    /**
+     * add a router with a subtree for each output, or a form at the bottom of the tree
+     * @param name        name of the net
+     * @param id          id of the node
+     * @param depth       the number of router levels which are still to come
+     * @param targetId    the node on which the tree reconverges
+     */
+    private void addTree(String name, int id, int depth, int targetId){
+        if(depth==0){
+            nodes.add(form(id, targetId, nextPath(name), false));
+            return;
+        }
+        List<Integer> childIds = new ArrayList<>();
+        for(int i=0; i<settings.getFanOut(); i++){
+            childIds.add(nextId++);
+        }
+        nodes.add(router(id, childIds, lastPath));
+        for(int childId:childIds){
+            addTree(name, childId, depth-1, targetId);
+        }
+    }
+
+    /**
+     * returns the path for the next field. Depending on the path reuse, this is a path which is shared by all nets
+     * or a path of this net
+     * @param name    name of the net
+     * @return the path
+     */
+    private String nextPath(String name){
+        if(random.nextDouble()<settings.getPathReuse()){
+            lastPath = "Gedeeld"+random.nextInt(settings.getSharedPaths());
+        }
+        else {
+            lastPath = name.substring(name.indexOf("_")+1)+"Veld"+nextPath++;
+        }
+        return lastPath;
+    }
+
+    /**
+     * returns the kind of form for a path. A path always has the same kind, so shared paths can be merged
+     * @param path    the path
+     * @return radio, number or text
+     */
+    private static String getFormKind(String path){
+        return formKinds[Math.floorMod(path.hashCode(), formKinds.length)];
+    }
+
+    /**
+     * returns the text of a form node with a single field
+     * @param id          id of the node
+     * @param targetId    id of the next node, 0 if the net may stop here
+     * @param path        path of the field
+     * @param canStart    whether this is the start node
+     * @return the text of the node
+     */
+    private String form(int id, int targetId, String path, boolean canStart){
+        String kind = getFormKind(path);
+        Map<String, Object> part = new TreeMap<>();
+        part.put("_name", kind);
+        part.put("caption", "Caption of "+path);
+        part.put("data_type", kind.equals("number") ? "numeric" : "text");
+        part.put("path", path);
+        if(kind.equals("radio")){
+            List<Object> choices = new ArrayList<>();
+            for(int i=1; i<=settings.getChoices(); i++){
+                choices.add(choice("Optie "+i));
+            }
+            part.put("choices", choices);
+        }
+        List<Object> validationRules = new ArrayList<>();
+        validationRules.add(table("type", "mandatory"));
+        if(kind.equals("number")){
+            validationRules.add(table("message", "Dit mag alleen een numerieke waarde zijn", "type", "numeric"));
+        }
+        part.put("validation_rules", validationRules);
+
+        Object output = targetId>0 ? table("id", "", "target", targetId) : table("can_stop", 1, "id", "");
+        return node(table("can_start", canStart ? 1 : 0, "form_part", 1, "id", id, "is_silent", 0, "ntype", "form",
+                "outputs", Arrays.asList(output), "parts", Arrays.asList(part)));
+    }
+
+    /**
+     * returns a choice of a radio field
+     * @param caption    caption of the choice
+     * @return the choice
+     */
+    private Map<String, Object> choice(String caption){
+        return table("caption", caption, "column", "1", "p", "", "rule", "$(temp.IdWork)>1 and '$(temp.M)'==''",
+                "value", caption.toLowerCase(), "weight", "");
+    }
+
+    /**
+     * returns the text of a rule node, which compares the value of a field
+     * @param id           id of the node
+     * @param trueId       id of the node which follows if the rule holds
+     * @param falseId      id of the node which follows otherwise
+     * @param reference    path of the field which is compared
+     * @return the text of the node
+     */
+    private String rule(int id, int trueId, int falseId, String reference){
+        List<Object> ruleParts = Arrays.asList(
+                table("html", "", "id", 0, "leftOrder", table(), "operator", "equals", "reference", reference,
+                        "rightOrder", table(), "test", "Optie 1", "type", "text"),
+                table("elementOperator", "and", "html", "", "id", 1, "leftOrder", table(), "operator", "not equals",
+                        "reference", reference+"2", "rightOrder", table(), "test", "x", "type", "text"));
+        return node(table("id", id, "is_silent", 1, "ntype", "rule",
+                "outputs", Arrays.asList(table("id", "true", "target", trueId), table("id", "false", "target", falseId)),
+                "parts", Arrays.asList(table("_name", "rule", "ruleparts", ruleParts))));
+    }
+
+    /**
+     * returns the text of a router node, which chooses an output based on the value of a field
+     * @param id           id of the node
+     * @param targetIds    ids of the nodes which follow
+     * @param reference    path of the field which decides
+     * @return the text of the node
+     */
+    private String router(int id, List<Integer> targetIds, String reference){
+        List<Object> outputs = new ArrayList<>();
+        for(int i=0; i<targetIds.size(); i++){
+            outputs.add(table("id", "opt"+i, "target", targetIds.get(i)));
+        }
+        outputs.add(table("can_stop", 1, "id", "default", "target", targetIds.get(0)));
+        return node(table("id", id, "ntype", "router", "outputs", outputs,
+                "parts", Arrays.asList(table("_name", "switch", "default", "default", "rule", reference))));
+    }
+
+    /**
+     * returns the text of a process node, which sets a value
+     * @param id          id of the node
+     * @param targetId    id of the next node
+     * @param path        path of the value which is set
+     * @return the text of the node
+     */
+    private String process(int id, int targetId, String path){
+        return node(table("id", id, "ntype", "process", "outputs", Arrays.asList(table("id", "", "target", targetId)),
+                "parts", Arrays.asList(table("_name", "set_values", "data_type", "text", "log", "1", "path", path),
+                        table("_name", "insert", "dta_location", "temp"))));
+    }
+
+    /**
+     * creates a table with its keys sorted, as in the workspace
+     * @param keyValues    the keys and values, alternating
+     * @return the table
+     */
+    static Map<String, Object> table(Object... keyValues){
+        Map<String, Object> table = new TreeMap<>();
+        for(int i=0; i<keyValues.length; i+=2){
+            table.put((String) keyValues[i], keyValues[i+1]);
+        }
+        return table;
+    }
+
+    /**
+     * returns the text of a node. Nodes are separated by an empty line, so a node must not contain one
+     * @param table    the node
+     * @return the text of the node
+     */
+    static String node(Map<String, Object> table){
+        StringBuilder text = new StringBuilder("\t");
+        appendValue(text, table, 1);
+        return text.append(",").toString();
+    }
+
+    /**
+     * append a value: a string, an integer, a list (table without keys) or a map (table with keys)
+     * @param text     the text to which the value is appended
+     * @param value    the value
+     * @param level    the level of indentation
+     */
+    @SuppressWarnings("unchecked")
+    private static void appendValue(StringBuilder text, Object value, int level){
+        if(value instanceof String){
+            text.append('"').append(value).append('"');
+        }
+        else if(value instanceof Integer){
+            text.append(value);
+        }
+        else {
+            List<Map.Entry<String, Object>> entries = new ArrayList<>();
+            if(value instanceof Map){
+                entries.addAll(((Map<String, Object>) value).entrySet());
+            }
+            else {
+                for(Object item:(List<Object>) value){
+                    entries.add(new AbstractMap.SimpleEntry<>(null, item));
+                }
+            }
+            if(entries.isEmpty()){
+                text.append("{}");
+                return;
+            }
+            text.append("{");
+            for(int i=0; i<entries.size(); i++){
+                text.append(i==0 ? "\n" : ",\n");
+                indent(text, level+1);
+                if(entries.get(i).getKey()!=null){
+                    text.append(entries.get(i).getKey()).append(" = ");
+                }
+                appendValue(text, entries.get(i).getValue(), level+1);
+            }
+            text.append("\n");
+            indent(text, level);
+            text.append("}");
+        }
+    }
+
+    /**
+     * append tabs for a level of indentation
+     * @param text     the text to which the tabs are appended
+     * @param level    the level of indentation
+     */
+    private static void indent(StringBuilder text, int level){
+        for(int i=0; i<level; i++){
+            text.append('\t');
+        }
+    }
+}
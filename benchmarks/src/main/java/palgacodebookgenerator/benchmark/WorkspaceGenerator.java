@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.benchmark;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+/**
+ * writes a synthetic workspace with logicnet and standalone tables, which can be used for load testing without
+ * access to the real protocols. E.g. for a workspace with 10 protocols of 200 nets of about 500 nodes:
+ * java -cp benchmarks.jar palgacodebookgenerator.benchmark.WorkspaceGenerator --output synth.db --protocols 10 --nets 200 --nodes 500
+ * the first protocol is the one in the settings, so it is the default protocol of the command line generator
+ */
+public class WorkspaceGenerator {
+    private final WorkspaceSettings settings;
+
+    public static void main(String [] args) {
+        WorkspaceSettings settings;
+        try {
+            settings = new WorkspaceSettings(args);
+        } catch (IllegalArgumentException e){
+            System.err.println(e.getMessage());
+            System.err.println(WorkspaceSettings.getUsage());
+            System.exit(2);
+            return;
+        }
+        try {
+            new WorkspaceGenerator(settings).generate();
+        } catch (SQLException e){
+            System.err.println("Could not write the workspace: "+e.getMessage());
+            System.exit(3);
+        }
+    }
+
+    /**
+     * constructor
+     * @param settings    the shape of the workspace
+     */
+    WorkspaceGenerator(WorkspaceSettings settings){
+        this.settings = settings;
+    }
+
+    /**
+     * write the workspace
+     * @throws SQLException if the workspace cannot be written
+     */
+    void generate() throws SQLException {
+        File outputFile = new File(settings.getOutputFile());
+        if(outputFile.exists() && !outputFile.delete()){
+            throw new SQLException("Could not replace "+outputFile);
+        }
+        Random random = new Random(settings.getSeed());
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:"+outputFile.getAbsolutePath())) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate("create table logicnet (name text primary key, data text)");
+                stmt.executeUpdate("create table standalone (key text primary key, value text)");
+            }
+            connection.setAutoCommit(false);
+            try (PreparedStatement stmt = connection.prepareStatement("insert into standalone (key, value) values ('settings', ?)")) {
+                stmt.setString(1, createSettings());
+                stmt.executeUpdate();
+            }
+            try (PreparedStatement stmt = connection.prepareStatement("insert into logicnet (name, data) values (?, ?)")) {
+                for(int protocol=1; protocol<=settings.getProtocols(); protocol++){
+                    String protocolName = getProtocolName(protocol);
+                    long characters = 0;
+                    for(int net=1; net<=settings.getNets(); net++){
+                        String netName = protocolName+"_net"+net;
+                        String data = new SyntheticNet(settings, random).create(netName);
+                        characters += data.length();
+                        stmt.setString(1, netName);
+                        stmt.setString(2, data);
+                        stmt.executeUpdate();
+                    }
+                    connection.commit();
+                    System.out.println(protocolName+": "+settings.getNets()+" nets, "+characters/1024+" KiB");
+                }
+            }
+        }
+        System.out.println("Workspace written to "+outputFile.getAbsolutePath());
+    }
+
+    /**
+     * returns the name of a protocol: the prefix for the first protocol, followed by its number for the others
+     * @param protocol    the number of the protocol, starting at 1
+     * @return the name of the protocol
+     */
+    private String getProtocolName(int protocol){
+        return protocol==1 ? settings.getPrefix() : settings.getPrefix()+protocol;
+    }
+
+    /**
+     * returns the settings of the workspace, which contain the version and the conclusion net of the first protocol
+     * @return the settings
+     */
+    private String createSettings(){
+        return "return {\n\tconclusion_net = \""+getProtocolName(1)+"_conclusion\",\n\tversion = \"1."+settings.getSeed()+"\"\n}";
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.benchmark;
+
+/**
+ * the shape of a synthetic workspace, parsed from the command line arguments
+ */
+class WorkspaceSettings {
+    private String outputFile;
+    private String prefix = "synth";
+    private int protocols = 1;
+    private int nets = 20;
+    private int nodesPerNet = 100;
+    private int fanOut = 3;
+    private int depth = 2;
+    private int choices = 4;
+    private double pathReuse = 0.3;
+    private int sharedPaths = 50;
+    private long seed = 1;
+
+    /**
+     * parse the command line arguments
+     * @param args    the command line arguments
+     * @throws IllegalArgumentException if the arguments are incomplete or invalid
+     */
+    WorkspaceSettings(String [] args){
+        for(int i=0; i<args.length; i++){
+            String arg = args[i];
+            if(i+1>=args.length){
+                throw new IllegalArgumentException("No value specified for "+arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--output": outputFile = value; break;
+                case "--prefix": prefix = value; break;
+                case "--protocols": protocols = getInt(arg, value, 1); break;
+                case "--nets": nets = getInt(arg, value, 1); break;
+                case "--nodes": nodesPerNet = getInt(arg, value, 1); break;
+                case "--fan-out": fanOut = getInt(arg, value, 1); break;
+                case "--depth": depth = getInt(arg, value, 0); break;
+                case "--choices": choices = getInt(arg, value, 1); break;
+                case "--path-reuse": pathReuse = getDouble(arg, value); break;
+                case "--shared-paths": sharedPaths = getInt(arg, value, 1); break;
+                case "--seed": seed = getInt(arg, value, Integer.MIN_VALUE); break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: "+arg);
+            }
+        }
+        if(outputFile==null){
+            throw new IllegalArgumentException("No output file specified");
+        }
+        if(prefix.contains("_")){
+            throw new IllegalArgumentException("The prefix must not contain an underscore");
+        }
+    }
+
+    /**
+     * parse an integer option
+     * @param option     the option
+     * @param value      the value of the option
+     * @param minimum    the minimum value
+     * @return the value
+     */
+    private static int getInt(String option, String value, int minimum){
+        try {
+            int intValue = Integer.parseInt(value);
+            if(intValue<minimum){
+                throw new IllegalArgumentException("The value of "+option+" should be at least "+minimum);
+            }
+            return intValue;
+        } catch (NumberFormatException e){
+            throw new IllegalArgumentException("Invalid value for "+option+": "+value);
+        }
+    }
+
+    /**
+     * parse a fraction option
+     * @param option    the option
+     * @param value     the value of the option
+     * @return the value, between 0 and 1
+     */
+    private static double getDouble(String option, String value){
+        try {
+            double doubleValue = Double.parseDouble(value);
+            if(doubleValue<0 || doubleValue>1){
+                throw new IllegalArgumentException("The value of "+option+" should be between 0 and 1");
+            }
+            return doubleValue;
+        } catch (NumberFormatException e){
+            throw new IllegalArgumentException("Invalid value for "+option+": "+value);
+        }
+    }
+
+    /**
+     * returns the usage
+     * @return the usage text
+     */
+    static String getUsage(){
+        return "Usage: java -cp benchmarks.jar palgacodebookgenerator.benchmark.WorkspaceGenerator --output <file> [options]\n" +
+                "  --output <file>         the workspace which is created; an existing file is replaced (required)\n" +
+                "  --prefix <name>         name of the (first) protocol, without underscore. Default: synth\n" +
+                "  --protocols <n>         number of protocols, named <prefix>, <prefix>2, ... Default: 1\n" +
+                "  --nets <n>              nets per protocol. Default: 20\n" +
+                "  --nodes <n>             approximate number of nodes per net. Default: 100\n" +
+                "  --fan-out <n>           outputs per router. Default: 3\n" +
+                "  --depth <n>             levels of routers before the branches reconverge. Default: 2\n" +
+                "  --choices <n>           choices per radio field. Default: 4\n" +
+                "  --path-reuse <0-1>      fraction of the fields which use a path shared by all nets. Default: 0.3\n" +
+                "  --shared-paths <n>      number of shared paths. Default: 50\n" +
+                "  --seed <n>              seed for the random choices. Default: 1";
+    }
+
+    /**
+     * returns the workspace file which is created
+     * @return workspace file which is created
+     */
+    String getOutputFile() {
+        return outputFile;
+    }
+
+    /**
+     * returns the name of the first protocol
+     * @return name of the first protocol
+     */
+    String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * returns the number of protocols
+     * @return number of protocols
+     */
+    int getProtocols() {
+        return protocols;
+    }
+
+    /**
+     * returns the number of nets per protocol
+     * @return number of nets per protocol
+     */
+    int getNets() {
+        return nets;
+    }
+
+    /**
+     * returns the approximate number of nodes per net
+     * @return approximate number of nodes per net
+     */
+    int getNodesPerNet() {
+        return nodesPerNet;
+    }
+
+    /**
+     * returns the number of outputs per router
+     * @return number of outputs per router
+     */
+    int getFanOut() {
+        return fanOut;
+    }
+
+    /**
+     * returns the number of levels of routers before the branches reconverge
+     * @return number of levels of routers before the branches reconverge
+     */
+    int getDepth() {
+        return depth;
+    }
+
+    /**
+     * returns the number of choices per radio field
+     * @return number of choices per radio field
+     */
+    int getChoices() {
+        return choices;
+    }
+
+    /**
+     * returns the fraction of the fields which use a shared path
+     * @return fraction of the fields which use a shared path
+     */
+    double getPathReuse() {
+        return pathReuse;
+    }
+
+    /**
+     * returns the number of shared paths
+     * @return number of shared paths
+     */
+    int getSharedPaths() {
+        return sharedPaths;
+    }
+
+    /**
+     * returns the seed for the random choices
+     * @return seed for the random choices
+     */
+    long getSeed() {
+        return seed;
+    }
+}
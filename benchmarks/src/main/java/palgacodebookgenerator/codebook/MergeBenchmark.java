@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.codebook;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import palgacodebookgenerator.benchmark.FixtureProtocol;
+import palgacodebookgenerator.benchmark.NetFixtures;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * overwriting the captions and merging the codebook items of all fixtures, which share a number of paths
+ * lives in the codebook package, as the merging is not part of the public interface
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmarks.xml")
+public class MergeBenchmark {
+    // PALGA merges on a key, NKI compares the items pairwise
+    @Param({"PALGA", "NKI"})
+    public String codebookType;
+
+    private FixtureProtocol protocol;
+
+    @Setup
+    public void setup(){
+        protocol = new FixtureProtocol(NetFixtures.ALL);
+    }
+
+    @Benchmark
+    public Map<String, List<CodebookItem>> merge(){
+        CaptionOverwriter captionOverwriter = new CaptionOverwriter(protocol.getProtocolName());
+        CodebookItemSnapshot codebookItemSnapshot = new CodebookItemSnapshot(protocol.getCodebookItems(), captionOverwriter);
+        DefaultCodebook codebook = codebookType.equals("NKI") ?
+                new NKICodebook(protocol, codebookItemSnapshot, false) :
+                new PalgaCodebook(protocol, codebookItemSnapshot, false);
+        return codebookItemSnapshot.getMergedItems(codebook);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+
+package palgacodebookgenerator.codebook;
+
+import palgacodebookgenerator.benchmark.NetFixtures;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * derives the rules of the regression fixtures and compares them with the rules which are expected, see
+ * NetFixtures.loadExpectedRules. Derives, writes and refers to the rules of the stress nets on a thread with a small
+ * stack, as the rules of a long chain are nested deeply. Exits with 1 if a rule differs or a stress net fails, e.g.:
+ * java -Xmx2g -cp target/benchmarks.jar palgacodebookgenerator.codebook.RuleFixtureCheck
+ * every rule node of the chain adds its condition to the rule of the nodes before it, and these rules do not share
+ * their nodes, so the diagram of the chain has millions of nodes and needs a larger heap than the default
+ * lives in the codebook package, as the rules of the codebook items are not part of the public interface
+ */
+public class RuleFixtureCheck {
+    // the stack size of the stress thread, the default of most 64 bit platforms
+    private static final long STACK_SIZE = 1024*1024;
+
+    public static void main(String [] args) throws InterruptedException {
+        int failures = 0;
+        for(String name:NetFixtures.REGRESSION){
+            failures += check(name);
+        }
+        for(String name:NetFixtures.STRESS){
+            failures += checkStress(name);
+        }
+        if(failures>0){
+            System.err.println(failures+" check(s) failed");
+            System.exit(1);
+        }
+        System.out.println("All rules are as expected");
+    }
+
+    /**
+     * compare the rules of a regression fixture with the expected rules
+     * @param name    name of the fixture
+     * @return the number of rules which differ
+     */
+    static int check(String name){
+        Map<String, String> expectedRules = NetFixtures.loadExpectedRules(name);
+        Map<String, List<CodebookItem>> codebookItemMap = NetFixtures.createCodebookItems(name);
+        int failures = 0;
+        for(Map.Entry<String, String> expected:expectedRules.entrySet()){
+            List<CodebookItem> codebookItems = codebookItemMap.get(expected.getKey());
+            if(codebookItems == null){
+                System.err.println(name+"\t"+expected.getKey()+"\tfield not found");
+                failures++;
+                continue;
+            }
+            for(CodebookItem codebookItem:codebookItems){
+                String rules = codebookItem.getPartialRulesString();
+                if(!rules.equals(expected.getValue())){
+                    System.err.println(name+"\t"+expected.getKey()+"\texpected: "+expected.getValue()+"\tfound: "+rules);
+                    failures++;
+                }
+            }
+        }
+        for(String path:codebookItemMap.keySet()){
+            if(!expectedRules.containsKey(path)){
+                System.err.println(name+"\t"+path+"\tno expected rule");
+                failures++;
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * derive the rules of a stress net, refer to them in a rule table and render them, on a thread with a small stack
+     * @param name    name of the stress net
+     * @return 1 if the net failed or the field after the rule nodes is always entered, 0 otherwise
+     * @throws InterruptedException if interrupted while waiting for the thread
+     */
+    static int checkStress(String name) throws InterruptedException {
+        String [] failure = new String[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                long start = System.nanoTime();
+                Map<String, List<CodebookItem>> codebookItemMap = NetFixtures.createCodebookItems(name);
+                RuleTable ruleTable = new RuleTable();
+                for(List<CodebookItem> codebookItems:codebookItemMap.values()){
+                    for(CodebookItem codebookItem:codebookItems){
+                        ruleTable.getReference(codebookItem.getRule());
+                        codebookItem.getPartialRulesString();
+                    }
+                }
+                if(codebookItemMap.get("End").get(0).getPartialRulesString().isEmpty()){
+                    failure[0] = "End is always entered";
+                }
+                System.out.println(name+"	"+(System.nanoTime()-start)/1000000+" ms, "+ruleTable.getIds().size()+" rule(s) in the rule table");
+            } catch (RuntimeException | Error e){
+                failure[0] = e.toString();
+            }
+        }, name, STACK_SIZE);
+        thread.start();
+        thread.join();
+        if(failure[0] != null){
+            System.err.println(name+"	"+failure[0]);
+            return 1;
+        }
+        return 0;
+    }
+}
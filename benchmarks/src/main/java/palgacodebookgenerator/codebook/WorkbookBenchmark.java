@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.codebook;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import palgacodebookgenerator.benchmark.FixtureProtocol;
+import palgacodebookgenerator.benchmark.NetFixtures;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * writing a codebook of all fixtures to Excel. The items are merged during the setup, so only the writing is measured
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmarks.xml")
+public class WorkbookBenchmark {
+    @Param({"PALGA", "NKI"})
+    public String codebookType;
+
+    @Param({"true", "false"})
+    public boolean separateSheets;
+
+    @Param({"true", "false"})
+    public boolean streaming;
+
+    private File outputDir;
+    private Codebook codebook;
+
+    @Setup
+    public void setup() throws IOException {
+        outputDir = Files.createTempDirectory("codebookbenchmark").toFile();
+        FixtureProtocol protocol = new FixtureProtocol(NetFixtures.ALL);
+        CaptionOverwriter captionOverwriter = new CaptionOverwriter(protocol.getProtocolName());
+        codebook = CodebookFactory.createCodebook(codebookType, protocol, captionOverwriter, separateSheets).get(0);
+        codebook.setStreamingWorkbook(streaming);
+        // the first write merges the items
+        writeToExcel();
+    }
+
+    @TearDown
+    public void tearDown(){
+        File [] files = outputDir.listFiles();
+        if(files!=null){
+            for(File file:files){
+                file.delete();
+            }
+        }
+        outputDir.delete();
+    }
+
+    @Benchmark
+    public void writeToExcel(){
+        codebook.writeToExcel(outputDir.getPath()+File.separator);
+    }
+}
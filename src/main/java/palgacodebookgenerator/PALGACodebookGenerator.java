@@ -23,6 +23,7 @@ package palgacodebookgenerator;
 import palgacodebookgenerator.gui.MainWindow;
 import javafx.application.Application;
 import javafx.stage.Stage;
+import palgacodebookgenerator.utils.SQLiteConnectionManager;
 
 
 /**
@@ -42,6 +43,14 @@ public class PALGACodebookGenerator {
             MainWindow mainWindow = new MainWindow();
             mainWindow.createMainWindow(stage);
         }
+
+        /**
+         * close the workspace connections when the application stops
+         */
+        @Override
+        public void stop() {
+            SQLiteConnectionManager.closeAll();
+        }
     }
 
 
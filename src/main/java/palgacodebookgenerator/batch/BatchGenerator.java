@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.batch;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import palgacodebookgenerator.utils.SQLiteUtils;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * generates the codebooks of all protocols in a workspace
+ * each protocol is a job on a work-stealing pool with a bounded number of threads. The jobs themselves should
+ * not start many threads of their own, so the settings usually have parallel parsing switched off and use one
+ * codebook thread
+ */
+public class BatchGenerator {
+    private static final Logger logger = LogManager.getLogger(BatchGenerator.class.getName());
+    private static final String reportFileName = "batch_report.txt";
+    private final String workspace;
+    private final GeneratorSettings settings;
+    private final int parallelism;
+
+    /**
+     * constructor
+     * @param workspace      location of the workspace
+     * @param settings       settings for generating the codebooks, used for all protocols
+     * @param parallelism    the maximum number of protocols which are processed at the same time
+     */
+    public BatchGenerator(String workspace, GeneratorSettings settings, int parallelism){
+        this.workspace = workspace;
+        this.settings = settings;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * generate the codebooks of all protocols in the workspace
+     * @return the reports of the protocols, sorted by table prefix
+     * @throws SQLException if the protocols cannot be read from the workspace
+     */
+    public List<ProtocolReport> generate() throws SQLException {
+        Map<String, List<String>> protocolNets = SQLiteUtils.getProtocolNets(workspace);
+        logger.log(Level.INFO, "Found "+protocolNets.size()+" protocol(s) in "+workspace);
+        return generate(protocolNets);
+    }
+
+    /**
+     * generate the codebooks of the protocols
+     * @param protocolNets    map with the table prefixes of the protocols and the nets which are used
+     * @return the reports of the protocols, in the order of the map
+     */
+    public List<ProtocolReport> generate(Map<String, List<String>> protocolNets){
+        List<ProtocolJob> protocolJobs = new ArrayList<>();
+        for(Map.Entry<String, List<String>> entry:protocolNets.entrySet()){
+            protocolJobs.add(new ProtocolJob(workspace, entry.getKey(), entry.getValue(), settings));
+        }
+
+        List<ProtocolReport> protocolReports = new ArrayList<>();
+        ExecutorService executorService = Executors.newWorkStealingPool(parallelism);
+        try {
+            List<Future<ProtocolReport>> futures = executorService.invokeAll(protocolJobs);
+            for(int i=0; i<futures.size(); i++){
+                protocolReports.add(getReport(futures.get(i), protocolJobs.get(i)));
+            }
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while generating the codebooks of the protocols");
+        } finally {
+            executorService.shutdownNow();
+        }
+        return protocolReports;
+    }
+
+    /**
+     * returns the report of a finished job. A job reports its own problems, so only errors end up here
+     * @param future         the future of the job
+     * @param protocolJob    the job
+     * @return the report
+     * @throws InterruptedException if interrupted while waiting for the job
+     */
+    private ProtocolReport getReport(Future<ProtocolReport> future, ProtocolJob protocolJob) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e){
+            logger.log(Level.ERROR, "A fatal error occurred:\n"+e.getCause(), e.getCause());
+            return protocolJob.createFailedReport(String.valueOf(e.getCause()));
+        }
+    }
+
+    /**
+     * returns whether all protocols were processed without problems
+     * @param protocolReports    the reports of the protocols
+     * @return true/false
+     */
+    public static boolean allOk(List<ProtocolReport> protocolReports){
+        return protocolReports.stream().allMatch(protocolReport -> protocolReport.getStatus()==ProtocolReport.Status.OK);
+    }
+
+    /**
+     * log a summary of the reports and write the reports to a file in the output directory
+     * @param protocolReports    the reports of the protocols
+     * @return whether the report was written
+     */
+    public boolean writeReport(List<ProtocolReport> protocolReports){
+        StringBuilder report = new StringBuilder("protocol\tnets\tstatus\tduration\tfailed_codebooks\tmessage\n");
+        int numberOk = 0;
+        for(ProtocolReport protocolReport:protocolReports){
+            report.append(protocolReport).append("\n");
+            if(protocolReport.getStatus()==ProtocolReport.Status.OK){
+                numberOk++;
+            }
+            else {
+                logger.log(Level.INFO, "Problem with protocol "+protocolReport);
+            }
+        }
+        logger.log(Level.INFO, numberOk+" of "+protocolReports.size()+" protocol(s) finished without problems");
+
+        String reportFile = settings.getOutputDir()+reportFileName;
+        try (BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(reportFile))) {
+            bufferedWriter.write(report.toString());
+            logger.log(Level.INFO, "The report was written to "+reportFile);
+            return true;
+        } catch (IOException e) {
+            logger.log(Level.ERROR, "Could not write the report to "+reportFile+": "+e.getMessage());
+            return false;
+        }
+    }
+}
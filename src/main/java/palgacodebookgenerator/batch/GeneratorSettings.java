@@ -0,0 +1,186 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.batch;
+
+import java.io.File;
+
+/**
+ * settings for generating the codebooks of a protocol, shared by all protocols of a batch
+ */
+public class GeneratorSettings {
+    private String codebookType;
+    private String overwriteFileName = "";
+    private String outputDir = "";
+    private boolean storeOptionsInSeparateSheets = false;
+    private boolean streamingWorkbook = true;
+    private boolean sharedRules = false;
+    private String netCacheDir;
+    private boolean parallelParsing = true;
+    private int codebookThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * get the type of codebook, e.g. PALGA or PALGA &amp; NKI
+     * @return the type of codebook
+     */
+    public String getCodebookType() {
+        return codebookType;
+    }
+
+    /**
+     * set the type of codebook, e.g. PALGA or PALGA &amp; NKI
+     * @param codebookType    the type of codebook
+     */
+    public void setCodebookType(String codebookType) {
+        this.codebookType = codebookType;
+    }
+
+    /**
+     * get the name of the overwrites file, which is used to overwrite concept captions
+     * @return full name of the file, empty if there is none
+     */
+    public String getOverwriteFileName() {
+        return overwriteFileName;
+    }
+
+    /**
+     * set the name of the overwrites file, which is used to overwrite concept captions
+     * @param overwriteFileName    full name of the file, empty if there is none
+     */
+    public void setOverwriteFileName(String overwriteFileName) {
+        this.overwriteFileName = overwriteFileName;
+    }
+
+    /**
+     * get the output directory
+     * @return output directory
+     */
+    public String getOutputDir() {
+        return outputDir;
+    }
+
+    /**
+     * set the output directory
+     * @param outputDir    the output directory
+     */
+    public void setOutputDir(String outputDir) {
+        if(!outputDir.endsWith(File.separator)){
+            outputDir+=File.separator;
+        }
+        this.outputDir = outputDir;
+    }
+
+    /**
+     * return whether the concept options (e.g. male, female) should be written to separate sheets (e.g. gender)
+     * @return true/false
+     */
+    public boolean getStoreOptionsInSeparateSheets() {
+        return storeOptionsInSeparateSheets;
+    }
+
+    /**
+     * set whether the concept options (e.g. male, female) should be written to separate sheets (e.g. gender)
+     * @param storeOptionsInSeparateSheets    true/false
+     */
+    public void setStoreOptionsInSeparateSheets(boolean storeOptionsInSeparateSheets) {
+        this.storeOptionsInSeparateSheets = storeOptionsInSeparateSheets;
+    }
+
+    /**
+     * return whether the codebooks should be written using streaming workbooks
+     * @return true/false
+     */
+    public boolean getStreamingWorkbook() {
+        return streamingWorkbook;
+    }
+
+    /**
+     * set whether the codebooks should be written using streaming workbooks
+     * @param streamingWorkbook    true/false
+     */
+    public void setStreamingWorkbook(boolean streamingWorkbook) {
+        this.streamingWorkbook = streamingWorkbook;
+    }
+
+    /**
+     * return whether the rules should be written once to a RULES sheet, with the codebook rows referring to them
+     * @return true/false
+     */
+    public boolean getSharedRules() {
+        return sharedRules;
+    }
+
+    /**
+     * set whether the rules should be written once to a RULES sheet, with the codebook rows referring to them
+     * @param sharedRules    true/false
+     */
+    public void setSharedRules(boolean sharedRules) {
+        this.sharedRules = sharedRules;
+    }
+
+    /**
+     * get the directory of the net cache
+     * @return the directory of the net cache, null if the nets are always parsed
+     */
+    public String getNetCacheDir() {
+        return netCacheDir;
+    }
+
+    /**
+     * set the directory of the net cache
+     * @param netCacheDir    the directory of the net cache, null to always parse the nets
+     */
+    public void setNetCacheDir(String netCacheDir) {
+        this.netCacheDir = netCacheDir;
+    }
+
+    /**
+     * return whether the nets of a protocol are parsed concurrently
+     * @return true/false
+     */
+    public boolean getParallelParsing() {
+        return parallelParsing;
+    }
+
+    /**
+     * set whether the nets of a protocol are parsed concurrently
+     * @param parallelParsing    true/false
+     */
+    public void setParallelParsing(boolean parallelParsing) {
+        this.parallelParsing = parallelParsing;
+    }
+
+    /**
+     * get the maximum number of codebooks of a protocol which are written at the same time
+     * @return the number of threads
+     */
+    public int getCodebookThreads() {
+        return codebookThreads;
+    }
+
+    /**
+     * set the maximum number of codebooks of a protocol which are written at the same time
+     * @param codebookThreads    the number of threads
+     */
+    public void setCodebookThreads(int codebookThreads) {
+        this.codebookThreads = codebookThreads;
+    }
+}
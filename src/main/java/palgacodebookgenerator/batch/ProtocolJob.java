@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.batch;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import palgacodebookgenerator.codebook.CaptionOverwriter;
+import palgacodebookgenerator.codebook.Codebook;
+import palgacodebookgenerator.codebook.CodebookFactory;
+import palgacodebookgenerator.codebook.CodebookWriter;
+import palgacodebookgenerator.data.Protocol;
+import palgacodebookgenerator.data.net.NetCache;
+import palgacodebookgenerator.utils.RunStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * generates and writes the codebooks of one protocol
+ * a job only uses its own Protocol and CaptionOverwriter, so jobs for different protocols can run at the same time
+ */
+public class ProtocolJob implements Callable<ProtocolReport> {
+    private static final Logger logger = LogManager.getLogger(ProtocolJob.class.getName());
+    private final String workspace;
+    private final String protocolTablePrefix;
+    private final List<String> nets;
+    private final GeneratorSettings settings;
+
+    /**
+     * constructor
+     * @param workspace              location of the workspace
+     * @param protocolTablePrefix    the table prefix of the protocol, e.g. colon_
+     * @param nets                   the nets of the protocol which are used
+     * @param settings               settings for generating the codebooks
+     */
+    public ProtocolJob(String workspace, String protocolTablePrefix, List<String> nets, GeneratorSettings settings){
+        this.workspace = workspace;
+        this.protocolTablePrefix = protocolTablePrefix;
+        this.nets = new ArrayList<>(nets);
+        this.settings = settings;
+    }
+
+    /**
+     * generates the codebooks of the protocol while recording the statistics of the run. The statistics are logged
+     * and written as a JSON run report next to the codebooks
+     * @return the report for the protocol
+     */
+    @Override
+    public ProtocolReport call() {
+        RunStatistics runStatistics = new RunStatistics(protocolTablePrefix);
+        ProtocolReport protocolReport = runStatistics.call(this::generate);
+        runStatistics.logSummary();
+        runStatistics.writeReport(settings.getOutputDir()+getProtocolName()+"_run_report.json");
+        return protocolReport;
+    }
+
+    /**
+     * returns the name of the protocol: the table prefix without the trailing underscore
+     * @return the name of the protocol
+     */
+    private String getProtocolName(){
+        return protocolTablePrefix.endsWith("_") ? protocolTablePrefix.substring(0, protocolTablePrefix.length()-1) : protocolTablePrefix;
+    }
+
+    /**
+     * sets up the protocol and the captionoverwriter, creates the codebooks, saves them and writes the
+     * conflicting captions to a file. Problems are not thrown, but are part of the report: a protocol without
+     * nets or whose nets cannot be read from the workspace has status FAILED
+     * @return the report for the protocol
+     */
+    private ProtocolReport generate() {
+        long start = System.nanoTime();
+        // without nets the codebooks would be written, but empty
+        if(nets.isEmpty()){
+            logger.log(Level.ERROR, protocolTablePrefix+": the protocol has no nets");
+            return createReport(ProtocolReport.Status.FAILED, new ArrayList<>(), "the protocol has no nets", start);
+        }
+        try {
+            logger.log(Level.INFO, protocolTablePrefix+": reading "+nets.size()+" net(s)...");
+            Protocol protocol = new Protocol();
+            protocol.setWorkspace(workspace);
+            protocol.setProtocolTablePrefix(protocolTablePrefix);
+            protocol.setSelectedNets(nets);
+            protocol.setParallelParsing(settings.getParallelParsing());
+            if(settings.getNetCacheDir()!=null){
+                protocol.setNetCache(new NetCache(settings.getNetCacheDir(), workspace));
+            }
+            protocol.loadProtocolInfo();
+
+            CaptionOverwriter captionOverwriter = new CaptionOverwriter(protocol.getProtocolName());
+            captionOverwriter.readCaptionOverwriteFile(settings.getOverwriteFileName());
+
+            List<Codebook> codebookList = CodebookFactory.createCodebook(settings.getCodebookType(), protocol, captionOverwriter, settings.getStoreOptionsInSeparateSheets());
+            for(Codebook codebook:codebookList){
+                codebook.setStreamingWorkbook(settings.getStreamingWorkbook());
+                codebook.setSharedRules(settings.getSharedRules());
+            }
+
+            logger.log(Level.INFO, protocolTablePrefix+": writing "+settings.getCodebookType()+" codebook(s)...");
+            CodebookWriter codebookWriter = new CodebookWriter(settings.getCodebookThreads());
+            List<String> failedCodebooks = codebookWriter.writeCodebooks(codebookList, settings.getOutputDir(),
+                    (codebook, done, total) -> logger.log(Level.INFO, protocolTablePrefix+": codebook "+codebook.getName()+" done ("+done+"/"+total+")"));
+            captionOverwriter.writeConflictingCaptions(settings.getOutputDir());
+
+            if(failedCodebooks.size()>0){
+                return createReport(ProtocolReport.Status.CODEBOOKS_FAILED, failedCodebooks, "", start);
+            }
+            return createReport(ProtocolReport.Status.OK, failedCodebooks, "", start);
+        } catch (Exception e){
+            logger.log(Level.ERROR, protocolTablePrefix+": a fatal error occurred:\n"+e.getMessage(), e);
+            return createReport(ProtocolReport.Status.FAILED, new ArrayList<>(), String.valueOf(e.getMessage()), start);
+        }
+    }
+
+    /**
+     * creates the report for a protocol which could not be processed
+     * @param message    description of the problem
+     * @return the report
+     */
+    ProtocolReport createFailedReport(String message){
+        return new ProtocolReport(protocolTablePrefix, nets.size(), ProtocolReport.Status.FAILED, new ArrayList<>(), message, 0);
+    }
+
+    /**
+     * creates the report for the protocol
+     * @param status             the status
+     * @param failedCodebooks    the names of the codebooks which could not be written
+     * @param message            description of the problem
+     * @param start              the start time (System.nanoTime)
+     * @return the report
+     */
+    private ProtocolReport createReport(ProtocolReport.Status status, List<String> failedCodebooks, String message, long start){
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime()-start);
+        return new ProtocolReport(protocolTablePrefix, nets.size(), status, failedCodebooks, message, durationMillis);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * the result of generating the codebooks of a protocol
+ */
+public class ProtocolReport {
+    /**
+     * status of a protocol
+     */
+    public enum Status {
+        // all codebooks were written
+        OK,
+        // one or more codebooks could not be written
+        CODEBOOKS_FAILED,
+        // the protocol could not be processed
+        FAILED
+    }
+
+    private final String protocolTablePrefix;
+    private final int numberOfNets;
+    private final Status status;
+    private final List<String> failedCodebooks;
+    private final String message;
+    private final long durationMillis;
+
+    /**
+     * constructor
+     * @param protocolTablePrefix    the table prefix of the protocol
+     * @param numberOfNets           the number of nets of the protocol
+     * @param status                 the status
+     * @param failedCodebooks        the names of the codebooks which could not be written
+     * @param message                description of the problem, empty if there was none
+     * @param durationMillis         the time it took to process the protocol
+     */
+    ProtocolReport(String protocolTablePrefix, int numberOfNets, Status status, List<String> failedCodebooks, String message, long durationMillis){
+        this.protocolTablePrefix = protocolTablePrefix;
+        this.numberOfNets = numberOfNets;
+        this.status = status;
+        this.failedCodebooks = new ArrayList<>(failedCodebooks);
+        this.message = message;
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * returns the table prefix of the protocol
+     * @return the table prefix
+     */
+    public String getProtocolTablePrefix() {
+        return protocolTablePrefix;
+    }
+
+    /**
+     * returns the number of nets of the protocol
+     * @return the number of nets
+     */
+    public int getNumberOfNets() {
+        return numberOfNets;
+    }
+
+    /**
+     * returns the status of the protocol
+     * @return the status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * returns the names of the codebooks which could not be written
+     * @return list with the names of the failed codebooks
+     */
+    public List<String> getFailedCodebooks() {
+        return failedCodebooks;
+    }
+
+    /**
+     * returns the description of the problem
+     * @return the description, empty if there was no problem
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * returns the time it took to process the protocol
+     * @return the duration in milliseconds
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * returns the report as a tab separated line: prefix, nets, status, duration, failed codebooks and message
+     * @return the line
+     */
+    @Override
+    public String toString(){
+        return protocolTablePrefix+"\t"+numberOfNets+"\t"+status+"\t"+durationMillis+"ms\t"+String.join(",", failedCodebooks)+"\t"+message;
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.cli;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import palgacodebookgenerator.batch.BatchGenerator;
+import palgacodebookgenerator.batch.GeneratorSettings;
+import palgacodebookgenerator.batch.ProtocolJob;
+import palgacodebookgenerator.batch.ProtocolReport;
+import palgacodebookgenerator.data.net.NetCache;
+import palgacodebookgenerator.utils.ParseUtils;
+import palgacodebookgenerator.utils.SQLiteConnectionManager;
+import palgacodebookgenerator.utils.SQLiteUtils;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * generates codebooks from the command line, without starting the GUI, for one protocol or for all protocols
+ * in the workspace
+ * this class must not use any of the JavaFX classes, so it can run on machines without a display
+ * exit codes: 0 success, 1 one or more codebooks (or protocols) could not be written, 2 invalid arguments, e.g. a
+ * protocol without nets, 3 fatal error, e.g. the workspace could not be read or the report of a batch could not be written
+ */
+public class CommandLineGenerator {
+    static final int EXIT_OK = 0;
+    static final int EXIT_CODEBOOKS_FAILED = 1;
+    static final int EXIT_INVALID_ARGUMENTS = 2;
+    static final int EXIT_FATAL_ERROR = 3;
+
+    // the default log configuration writes to the text area of the GUI, which requires JavaFX
+    private static final String logConfigurationProperty = "log4j2.configurationFile";
+    private static final String logConfiguration = "log4j2-cli.xml";
+
+    private static final Pattern tablePrefixPattern = ParseUtils.getStringPattern("conclusion_net");
+
+    private final CommandLineParameters parameters;
+    private final Logger logger;
+
+    public static void main(String [] args) {
+        if(System.getProperty(logConfigurationProperty)==null){
+            System.setProperty(logConfigurationProperty, logConfiguration);
+        }
+
+        CommandLineParameters parameters;
+        try {
+            parameters = new CommandLineParameters(args);
+        } catch (IllegalArgumentException e){
+            System.err.println(e.getMessage());
+            System.err.println(CommandLineParameters.getUsage());
+            System.exit(EXIT_INVALID_ARGUMENTS);
+            return;
+        }
+        if(parameters.getHelp()){
+            System.out.println(CommandLineParameters.getUsage());
+            System.exit(EXIT_OK);
+        }
+        System.exit(new CommandLineGenerator(parameters).run());
+    }
+
+    /**
+     * constructor
+     * @param parameters    the parameters of the run
+     */
+    CommandLineGenerator(CommandLineParameters parameters){
+        this.parameters = parameters;
+        // the logger is created here, after the log configuration has been chosen
+        this.logger = LogManager.getLogger(CommandLineGenerator.class.getName());
+    }
+
+    /**
+     * generates the codebooks of the selected protocol or, in batch mode, of all protocols in the workspace
+     * @return the exit code
+     */
+    int run(){
+        try {
+            if(parameters.getAllProtocols()){
+                return runBatch();
+            }
+            return runProtocol();
+        } catch (Exception e){
+            logger.log(Level.ERROR, "A fatal error occurred:\n"+e.getMessage(), e);
+            return EXIT_FATAL_ERROR;
+        } finally {
+            SQLiteConnectionManager.closeAll();
+        }
+    }
+
+    /**
+     * generates the codebooks of the selected protocol
+     * @return the exit code
+     */
+    private int runProtocol(){
+        logger.log(Level.INFO, "Reading the protocol from "+parameters.getWorkspaceFileName()+"...");
+        String protocolTablePrefix;
+        List<String> netNames;
+        try {
+            protocolTablePrefix = getProtocolTablePrefix();
+            if(protocolTablePrefix.isEmpty()){
+                logger.log(Level.ERROR, "Could not find the protocol in the workspace");
+                return EXIT_FATAL_ERROR;
+            }
+            netNames = SQLiteUtils.getLogicNetNames(parameters.getWorkspaceFileName(), protocolTablePrefix);
+        } catch (SQLException e){
+            logger.log(Level.ERROR, "Could not read the workspace "+parameters.getWorkspaceFileName()+": "+e.getMessage());
+            return EXIT_FATAL_ERROR;
+        }
+        if(netNames.isEmpty()){
+            logger.log(Level.ERROR, "Protocol "+protocolTablePrefix+" has no nets in the workspace");
+            return EXIT_INVALID_ARGUMENTS;
+        }
+        List<String> selectedNets = getSelectedNets(protocolTablePrefix, netNames);
+        if(selectedNets==null){
+            return EXIT_INVALID_ARGUMENTS;
+        }
+
+        GeneratorSettings settings = createGeneratorSettings();
+        settings.setCodebookThreads(parameters.getThreads());
+        ProtocolReport protocolReport = new ProtocolJob(parameters.getWorkspaceFileName(), protocolTablePrefix, selectedNets, settings).call();
+        switch (protocolReport.getStatus()){
+            case OK:
+                logger.log(Level.INFO, "Finished!");
+                return EXIT_OK;
+            case CODEBOOKS_FAILED:
+                logger.log(Level.ERROR, "The following codebooks could not be written: "+String.join(", ", protocolReport.getFailedCodebooks()));
+                return EXIT_CODEBOOKS_FAILED;
+            default:
+                return EXIT_FATAL_ERROR;
+        }
+    }
+
+    /**
+     * generates the codebooks of all protocols in the workspace. The protocols are processed concurrently, each
+     * protocol on a single thread
+     * @return the exit code
+     */
+    private int runBatch(){
+        GeneratorSettings settings = createGeneratorSettings();
+        settings.setParallelParsing(false);
+        settings.setCodebookThreads(1);
+        BatchGenerator batchGenerator = new BatchGenerator(parameters.getWorkspaceFileName(), settings, parameters.getThreads());
+        List<ProtocolReport> protocolReports;
+        try {
+            protocolReports = batchGenerator.generate();
+        } catch (SQLException e){
+            logger.log(Level.ERROR, "Could not read the workspace "+parameters.getWorkspaceFileName()+": "+e.getMessage());
+            return EXIT_FATAL_ERROR;
+        }
+        boolean reportWritten = batchGenerator.writeReport(protocolReports);
+        if(protocolReports.isEmpty()){
+            logger.log(Level.ERROR, "Could not find any protocols in the workspace");
+            return EXIT_FATAL_ERROR;
+        }
+        // without the report, there is no telling which protocols failed
+        if(!reportWritten){
+            return EXIT_FATAL_ERROR;
+        }
+        return BatchGenerator.allOk(protocolReports) ? EXIT_OK : EXIT_CODEBOOKS_FAILED;
+    }
+
+    /**
+     * creates the settings for generating the codebooks from the command line parameters
+     * when the net cache is used, the nets which were not used for a while are removed from it first
+     * @return the settings
+     */
+    private GeneratorSettings createGeneratorSettings(){
+        GeneratorSettings settings = new GeneratorSettings();
+        settings.setCodebookType(parameters.getCodebookType());
+        settings.setOverwriteFileName(parameters.getOverwriteFileName());
+        settings.setOutputDir(parameters.getOutputDir());
+        settings.setStoreOptionsInSeparateSheets(parameters.getStoreOptionsInSeparateSheets());
+        settings.setStreamingWorkbook(parameters.getStreamingWorkbook());
+        settings.setSharedRules(parameters.getSharedRules());
+        if(parameters.getNetCache()){
+            settings.setNetCacheDir(parameters.getNetCacheDir()!=null ? parameters.getNetCacheDir() : NetCache.getDefaultCacheDir());
+            NetCache.prune(settings.getNetCacheDir());
+        }
+        return settings;
+    }
+
+    /**
+     * returns the table prefix of the protocol: either the one which was specified or the one found in the
+     * settings of the workspace, e.g. colon_
+     * @return the table prefix, empty if it could not be found
+     * @throws SQLException if the workspace cannot be read
+     */
+    private String getProtocolTablePrefix() throws SQLException {
+        String protocolTablePrefix = parameters.getProtocolTablePrefix();
+        if(protocolTablePrefix==null){
+            String conclusionNet = ParseUtils.getValue(SQLiteUtils.doTableSettingsQuery(parameters.getWorkspaceFileName()), tablePrefixPattern);
+            protocolTablePrefix = ParseUtils.getProtocolTablePrefix(conclusionNet);
+        }
+        else if(!protocolTablePrefix.endsWith("_")){
+            protocolTablePrefix+="_";
+        }
+        return protocolTablePrefix;
+    }
+
+    /**
+     * returns the nets which should be used: all nets of the protocol or the nets which were specified
+     * @param protocolTablePrefix    the table prefix of the protocol
+     * @param netNames               the nets of the protocol
+     * @return list with the nets, null if a net was specified which is not part of the protocol
+     */
+    private List<String> getSelectedNets(String protocolTablePrefix, List<String> netNames){
+        if(parameters.getSelectedNets().isEmpty()){
+            return netNames;
+        }
+        List<String> selectedNets = new ArrayList<>();
+        for(String net:parameters.getSelectedNets()){
+            if(!netNames.contains(net)){
+                logger.log(Level.ERROR, "Net "+net+" is not part of protocol "+protocolTablePrefix+". Available nets: "+String.join(", ", netNames));
+                return null;
+            }
+            selectedNets.add(net);
+        }
+        return selectedNets;
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.cli;
+
+import palgacodebookgenerator.data.net.NetCache;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * the parameters of a command line run, parsed from the arguments
+ */
+class CommandLineParameters {
+    private static final List<String> codebookTypes = Arrays.asList("PALGA", "PALGAWEB", "NKI", "DEBUG", "PALGA & NKI");
+
+    private String workspaceFileName;
+    private String protocolTablePrefix;
+    private List<String> selectedNets = new ArrayList<>();
+    private String codebookType;
+    private String overwriteFileName = "";
+    private String outputDir;
+    private boolean storeOptionsInSeparateSheets = false;
+    private boolean streamingWorkbook = true;
+    private boolean sharedRules = false;
+    private boolean netCache = true;
+    private String netCacheDir;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private boolean allProtocols = false;
+    private boolean help = false;
+
+    /**
+     * parse the command line arguments
+     * @param args    the command line arguments
+     * @throws IllegalArgumentException if the arguments are incomplete or invalid
+     */
+    CommandLineParameters(String [] args){
+        for(int i=0; i<args.length; i++){
+            String arg = args[i];
+            switch (arg) {
+                case "-w": case "--workspace":
+                    workspaceFileName = getValue(args, ++i, arg);
+                    break;
+                case "-p": case "--protocol":
+                    protocolTablePrefix = getValue(args, ++i, arg);
+                    break;
+                case "-n": case "--nets":
+                    selectedNets = splitNets(getValue(args, ++i, arg));
+                    break;
+                case "-t": case "--type":
+                    codebookType = getValue(args, ++i, arg);
+                    break;
+                case "-c": case "--overwrite":
+                    overwriteFileName = getValue(args, ++i, arg);
+                    break;
+                case "-o": case "--output":
+                    setOutputDir(getValue(args, ++i, arg));
+                    break;
+                case "-a": case "--all-protocols":
+                    allProtocols = true;
+                    break;
+                case "--separate-sheets":
+                    storeOptionsInSeparateSheets = true;
+                    break;
+                case "--no-streaming":
+                    streamingWorkbook = false;
+                    break;
+                case "--shared-rules":
+                    sharedRules = true;
+                    break;
+                case "--no-net-cache":
+                    netCache = false;
+                    break;
+                case "--net-cache-dir":
+                    netCacheDir = getValue(args, ++i, arg);
+                    break;
+                case "--threads":
+                    threads = getIntValue(args, ++i, arg);
+                    break;
+                case "-h": case "--help":
+                    help = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: "+arg);
+            }
+        }
+        if(!help){
+            validate();
+        }
+    }
+
+    /**
+     * check whether the required parameters are present and valid
+     */
+    private void validate(){
+        if(workspaceFileName==null){
+            throw new IllegalArgumentException("No workspace specified");
+        }
+        if(!new File(workspaceFileName).isFile()){
+            throw new IllegalArgumentException("Workspace not found: "+workspaceFileName);
+        }
+        if(outputDir==null){
+            throw new IllegalArgumentException("No output directory specified");
+        }
+        if(!new File(outputDir).isDirectory()){
+            throw new IllegalArgumentException("Output directory not found: "+outputDir);
+        }
+        if(codebookType==null){
+            throw new IllegalArgumentException("No codebook type specified");
+        }
+        if(codebookTypes.stream().noneMatch(codebookType::equalsIgnoreCase)){
+            throw new IllegalArgumentException("Unknown codebooktype: "+codebookType+". Valid options: {"+String.join(", ", codebookTypes)+"}");
+        }
+        if(!overwriteFileName.isEmpty() && !new File(overwriteFileName).isFile()){
+            throw new IllegalArgumentException("Overwrite file not found: "+overwriteFileName);
+        }
+        if(allProtocols && (protocolTablePrefix!=null || !selectedNets.isEmpty())){
+            throw new IllegalArgumentException("--all-protocols cannot be combined with --protocol or --nets");
+        }
+        if(threads<1){
+            throw new IllegalArgumentException("The number of threads should be at least 1");
+        }
+    }
+
+    /**
+     * returns the value of an option
+     * @param args      the command line arguments
+     * @param index     index of the value
+     * @param option    the option for which the value is retrieved
+     * @return the value
+     */
+    private static String getValue(String [] args, int index, String option){
+        if(index>=args.length){
+            throw new IllegalArgumentException("No value specified for "+option);
+        }
+        return args[index];
+    }
+
+    /**
+     * returns the integer value of an option
+     * @param args      the command line arguments
+     * @param index     index of the value
+     * @param option    the option for which the value is retrieved
+     * @return the value
+     */
+    private static int getIntValue(String [] args, int index, String option){
+        String value = getValue(args, index, option);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e){
+            throw new IllegalArgumentException("Invalid value for "+option+": "+value);
+        }
+    }
+
+    /**
+     * split a comma separated list of nets
+     * @param nets    the comma separated nets
+     * @return list with the nets
+     */
+    private static List<String> splitNets(String nets){
+        List<String> netList = new ArrayList<>();
+        for(String net:nets.split(",")){
+            if(!net.trim().isEmpty()){
+                netList.add(net.trim());
+            }
+        }
+        return netList;
+    }
+
+    /**
+     * set the output directory
+     * @param outputDir    the output directory
+     */
+    private void setOutputDir(String outputDir){
+        if(!outputDir.endsWith(File.separator)){
+            outputDir+=File.separator;
+        }
+        this.outputDir = outputDir;
+    }
+
+    /**
+     * returns the usage of the command line
+     * @return the usage text
+     */
+    static String getUsage(){
+        return "Usage: java -cp <jar> palgacodebookgenerator.cli.CommandLineGenerator [options]\n" +
+                "  -w, --workspace <file>     the workspace database (required)\n" +
+                "  -o, --output <dir>         directory in which the codebooks are written (required)\n" +
+                "  -t, --type <type>          codebook type: "+String.join(", ", codebookTypes)+" (required)\n" +
+                "  -p, --protocol <prefix>    table prefix of the protocol, e.g. colon_. Default: read from the workspace\n" +
+                "  -n, --nets <net,net,...>   the nets to use. Default: all nets of the protocol\n" +
+                "  -a, --all-protocols        generate the codebooks of all protocols in the workspace and write a report\n" +
+                "  -c, --overwrite <file>     file with caption overwrites\n" +
+                "      --separate-sheets      store the options in separate sheets\n" +
+                "      --no-streaming         do not use streaming workbooks\n" +
+                "      --shared-rules         write every distinct rule once to a RULES sheet and refer to it by id\n" +
+                "      --no-net-cache         always parse the nets, instead of using the net cache\n" +
+                "      --net-cache-dir <dir>  directory of the net cache. Nets unused for "+NetCache.MAX_AGE_DAYS+" days are removed from it\n" +
+                "      --threads <n>          maximum number of codebooks (or protocols) processed at the same time\n" +
+                "  -h, --help                 show this help\n" +
+                "Exit codes: 0 success, 1 one or more codebooks or protocols failed, 2 invalid arguments, 3 fatal error";
+    }
+
+    /**
+     * returns the workspace
+     * @return the workspace
+     */
+    String getWorkspaceFileName() {
+        return workspaceFileName;
+    }
+
+    /**
+     * returns the protocol table prefix, null if it should be read from the workspace
+     * @return the protocol table prefix or null
+     */
+    String getProtocolTablePrefix() {
+        return protocolTablePrefix;
+    }
+
+    /**
+     * returns the selected nets. An empty list means all nets of the protocol
+     * @return the selected nets
+     */
+    List<String> getSelectedNets() {
+        return selectedNets;
+    }
+
+    /**
+     * returns the codebook type
+     * @return the codebook type
+     */
+    String getCodebookType() {
+        return codebookType;
+    }
+
+    /**
+     * returns the name of the overwrite file
+     * @return name of the overwrite file, empty if there is none
+     */
+    String getOverwriteFileName() {
+        return overwriteFileName;
+    }
+
+    /**
+     * returns the output directory
+     * @return the output directory
+     */
+    String getOutputDir() {
+        return outputDir;
+    }
+
+    /**
+     * returns whether the options should be stored in separate sheets
+     * @return true/false
+     */
+    boolean getStoreOptionsInSeparateSheets() {
+        return storeOptionsInSeparateSheets;
+    }
+
+    /**
+     * returns whether the codebooks should be written using streaming workbooks
+     * @return true/false
+     */
+    boolean getStreamingWorkbook() {
+        return streamingWorkbook;
+    }
+
+    /**
+     * returns whether the rules should be written once to a RULES sheet
+     * @return true/false
+     */
+    boolean getSharedRules() {
+        return sharedRules;
+    }
+
+    /**
+     * returns whether the net cache should be used
+     * @return true/false
+     */
+    boolean getNetCache() {
+        return netCache;
+    }
+
+    /**
+     * returns the directory of the net cache, null for the default directory
+     * @return directory of the net cache or null
+     */
+    String getNetCacheDir() {
+        return netCacheDir;
+    }
+
+    /**
+     * returns the maximum number of codebooks (or protocols, in batch mode) processed at the same time
+     * @return the number of threads
+     */
+    int getThreads() {
+        return threads;
+    }
+
+    /**
+     * returns whether the codebooks of all protocols in the workspace should be generated
+     * @return true/false
+     */
+    boolean getAllProtocols() {
+        return allProtocols;
+    }
+
+    /**
+     * returns whether the help was requested
+     * @return true/false
+     */
+    boolean getHelp() {
+        return help;
+    }
+}
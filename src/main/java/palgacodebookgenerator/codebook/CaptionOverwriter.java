@@ -34,6 +34,8 @@ import java.util.stream.Collectors;
 
 /**
  * class for overwriting the existing palga captions with custom ones
+ * the overwrites are read before the codebooks are generated; conflicting captions may be added by codebooks which
+ * are generated concurrently
  */
 public class CaptionOverwriter {
     private static final Logger logger = LogManager.getLogger(CaptionOverwriter.class.getName());
@@ -109,7 +111,7 @@ public class CaptionOverwriter {
      * @param path       the variable name
      * @param caption    the caption that was found
      */
-    void addConflictingCaption(String path, String caption){
+    synchronized void addConflictingCaption(String path, String caption){
         if(!missingOverwritesMap.containsKey(path)){
             missingOverwritesMap.put(path, new ArrayList<>());
         }
@@ -128,7 +130,7 @@ public class CaptionOverwriter {
      * get a string representation of all the conflicting captions
      * @return string representation of all the conflicting captions
      */
-    private String getConflictingCaptions(){
+    private synchronized String getConflictingCaptions(){
         List<String> outputList = new ArrayList<>();
         for(Map.Entry<String, List<String>> entrySet:missingOverwritesMap.entrySet()){
             String path = entrySet.getKey();
@@ -170,10 +172,10 @@ public class CaptionOverwriter {
      * @param outDir    directory whence to write the file
      */
     public void writeConflictingCaptions(String outDir){
-        if(missingOverwritesMap.size()>0) {
+        String output = getConflictingCaptions();
+        if(!output.isEmpty()) {
             String conflictsFile = outDir + protocolName + "_ConflictingCaptions.txt";
             logger.log(Level.INFO, "Found conflicting Captions that were not solved in the Conflicts overwrite file. Please see "+conflictsFile);
-            String output = getConflictingCaptions();
             try (BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(conflictsFile))) {
                 bufferedWriter.write(output);
             } catch (Exception e) {
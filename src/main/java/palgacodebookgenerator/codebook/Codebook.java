@@ -31,4 +31,24 @@ public interface Codebook {
      */
     void writeToExcel(String outputDir);
 
+    /**
+     * returns the name of the codebook, used for progress and error reporting
+     * @return the name of the codebook
+     */
+    String getName();
+
+    /**
+     * set whether the codebook should be written using a streaming workbook, which keeps memory use flat for
+     * large protocols
+     * @param streamingWorkbook    true/false
+     */
+    void setStreamingWorkbook(boolean streamingWorkbook);
+
+    /**
+     * set whether the rules should be written once to a RULES sheet, with the rows of the codebook referring to
+     * them by id instead of repeating them. Codebooks without field_entered_when columns ignore this
+     * @param sharedRules    true/false
+     */
+    void setSharedRules(boolean sharedRules);
+
 }
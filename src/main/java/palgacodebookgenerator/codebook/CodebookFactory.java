@@ -39,24 +39,26 @@ public class CodebookFactory {
      */
     public static List<Codebook> createCodebook(String codebookType, Protocol protocol, CaptionOverwriter captionOverwriter, boolean storeInSeparateSheets){
         List<Codebook> codebookList = new ArrayList<>();
+        // the codebooks share the items found in the protocol; codebooks with the same merge policy share the merged items
+        CodebookItemSnapshot codebookItemSnapshot = new CodebookItemSnapshot(protocol.getCodebookItems(), captionOverwriter);
         if(codebookType.equalsIgnoreCase("NKI")){
-            codebookList.add(new NKICodebook(protocol, captionOverwriter, storeInSeparateSheets));
+            codebookList.add(new NKICodebook(protocol, codebookItemSnapshot, storeInSeparateSheets));
         }
         else if(codebookType.equalsIgnoreCase("PALGA")){
-            codebookList.add(new PalgaCodebook(protocol, captionOverwriter, storeInSeparateSheets));
+            codebookList.add(new PalgaCodebook(protocol, codebookItemSnapshot, storeInSeparateSheets));
         }
         else if(codebookType.equalsIgnoreCase("PALGAWEB")){
-            codebookList.add(new PalgaCodebookWeb(protocol, captionOverwriter, storeInSeparateSheets));
+            codebookList.add(new PalgaCodebookWeb(protocol, codebookItemSnapshot, storeInSeparateSheets));
         }
         else if(codebookType.equalsIgnoreCase("DEBUG")){
-            codebookList.add(new DebugCodebook(protocol, captionOverwriter, storeInSeparateSheets));
+            codebookList.add(new DebugCodebook(protocol, codebookItemSnapshot, storeInSeparateSheets));
         }
         else if(codebookType.equalsIgnoreCase("PALGA & NKI")){
-            codebookList.add(new NKICodebook(protocol, captionOverwriter, true));
-            codebookList.add(new PalgaCodebook(protocol, captionOverwriter, false));
-            codebookList.add(new PalgaCodebook(protocol, captionOverwriter, true));
-            codebookList.add(new PalgaCodebookWeb(protocol, captionOverwriter, false));
-            codebookList.add(new PalgaCodebookWeb(protocol, captionOverwriter, true));
+            codebookList.add(new NKICodebook(protocol, codebookItemSnapshot, true));
+            codebookList.add(new PalgaCodebook(protocol, codebookItemSnapshot, false));
+            codebookList.add(new PalgaCodebook(protocol, codebookItemSnapshot, true));
+            codebookList.add(new PalgaCodebookWeb(protocol, codebookItemSnapshot, false));
+            codebookList.add(new PalgaCodebookWeb(protocol, codebookItemSnapshot, true));
         }
         else{
             throw new RuntimeException("Unknown codebooktype: "+codebookType+". Valid options: {PALGA, PALGAWEB, NKI, DEBUG, PALGA & NKI}");
@@ -20,12 +20,11 @@
 
 package palgacodebookgenerator.codebook;
 
-import palgacodebookgenerator.utils.StringUtils;
+import palgacodebookgenerator.data.rule.RuleExpression;
+import palgacodebookgenerator.utils.CellSplitter;
 
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -41,7 +40,7 @@ public class CodebookItem {
     private String _name;
     private String data_type;
     private List<String> options;
-    private List<String> partialRules;
+    private RuleExpression rule;
 
     private String log;
     private String ntype;
@@ -67,6 +66,33 @@ public class CodebookItem {
         this.validationRules = validationRules;
     }
 
+    /**
+     * copy constructor
+     * @param codebookItem    the codebook item to copy
+     */
+    private CodebookItem(CodebookItem codebookItem){
+        this.path = codebookItem.path;
+        this.validationRules = codebookItem.validationRules;
+        this.caption = codebookItem.caption;
+        this._name = codebookItem._name;
+        this.data_type = codebookItem.data_type;
+        this.options = codebookItem.options;
+        this.rule = codebookItem.rule;
+        this.log = codebookItem.log;
+        this.ntype = codebookItem.ntype;
+        this.net = codebookItem.net;
+        this.id = codebookItem.id;
+    }
+
+    /**
+     * returns a copy of this codebook item, which can be changed without changing this one
+     * the lists are shared, as they are replaced rather than changed
+     * @return the copy
+     */
+    CodebookItem copy(){
+        return new CodebookItem(this);
+    }
+
     /**
      * Sqa$(temp.genesetnummer)RedenAanvraag -->
      * 1: Sqa$(
@@ -174,28 +200,39 @@ public class CodebookItem {
     }
 
     /**
-     * returns the partialRules list
+     * returns the partialRules list: the text of the rule, split into chunks which can fit in an Excel cell
+     * the cells are created from the rule every time, so the text of a rule is not kept in memory by every item
      * @return the partialRules list
      */
     List<String> getPartialRules() {
-        return partialRules;
+        CellSplitter cellSplitter = new CellSplitter();
+        rule.render(cellSplitter::append);
+        return cellSplitter.getCells();
     }
 
     /**
-     * returns the partialRules list as a String
+     * returns the text of the rule as a single String
      * @return the partialRules list as a String
      */
     String getPartialRulesString() {
-        return partialRules.stream().collect(Collectors.joining());
+        return rule.render();
     }
 
     /**
-     * sets the partialRules list based on a String
-     * it first splits the string into chunks which can fit in an Excel cell
-     * @param partialRules    the partialRules String
+     * returns the rule which decides when the field is entered
+     * @return the rule
      */
-    public void setPartialRules(String partialRules) {
-        this.partialRules = StringUtils.splitString(partialRules);
+    RuleExpression getRule() {
+        return rule;
+    }
+
+    /**
+     * sets the rule which decides when the field is entered
+     * the rule is shared with the other items of its node, its text is only created when it is written
+     * @param rule    the rule
+     */
+    public void setRule(RuleExpression rule) {
+        this.rule = rule;
     }
 
     /**
@@ -203,10 +240,12 @@ public class CodebookItem {
      * @return the size of the partialrules list
      */
     int getPartialRulesLength(){
-        if(partialRules==null){
+        if(rule==null){
             return 0;
         }
-        return partialRules.size();
+        CellSplitter cellSplitter = new CellSplitter(false);
+        rule.render(cellSplitter::append);
+        return cellSplitter.getCellCount();
     }
 
     /**
@@ -266,12 +305,11 @@ public class CodebookItem {
     }
 
     /**
-     * merge the optionlists of this codebookItem with that of another codebookItem with the same path via a union
-     * @param codebookItem    another codebookItem for the same path
+     * set the options, used when the options of codebookItems with the same path are merged
+     * @param options    the options
      */
-    void mergeOptions(CodebookItem codebookItem){
-        options = union(options, codebookItem.getOptions());
-        codebookItem.options = options;
+    void setOptions(List<String> options){
+        this.options = options;
     }
 
     /**
@@ -285,19 +323,6 @@ public class CodebookItem {
         return path;
     }
 
-    /**
-     * union of two Lists
-     * @param list1    first list
-     * @param list2    second list
-     * @return new list with union of the lists
-     */
-    private static List<String> union(List<String> list1, List<String> list2) {
-        Set<String> set = new LinkedHashSet<>();
-        set.addAll(list1);
-        set.addAll(list2);
-        return new ArrayList<>(set);
-    }
-
     /**
      * set the data_type
      * @param data_type the data_type
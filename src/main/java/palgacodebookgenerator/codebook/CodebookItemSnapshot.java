@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.codebook;
+
+import palgacodebookgenerator.jfr.MergeEvent;
+import palgacodebookgenerator.utils.RunStatistics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * immutable snapshot of the codebook items extracted from a protocol, shared by the codebooks created for it
+ * every codebook works on its own view of the snapshot: the items of a path are only copied when the view has to
+ * change them (caption overwrites, merging). Codebooks with the same merge policy share one merged view, so the
+ * merging is done once per policy and the codebooks no longer depend on the order in which they are created
+ */
+class CodebookItemSnapshot {
+    private final Map<String, List<CodebookItem>> codebookItemMap;
+    private final CaptionOverwriter captionOverwriter;
+    private final Map<String, FutureTask<Map<String, List<CodebookItem>>>> mergedItemMaps = new HashMap<>();
+
+    /**
+     * constructor
+     * @param codebookItemMap      the codebook items found in the protocol, per path
+     * @param captionOverwriter    caption overwriting and tracking of conflicting captions
+     */
+    CodebookItemSnapshot(Map<String, List<CodebookItem>> codebookItemMap, CaptionOverwriter captionOverwriter){
+        Map<String, List<CodebookItem>> snapshot = new LinkedHashMap<>();
+        for(Map.Entry<String, List<CodebookItem>> entry:codebookItemMap.entrySet()){
+            snapshot.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+        }
+        this.codebookItemMap = Collections.unmodifiableMap(snapshot);
+        this.captionOverwriter = captionOverwriter;
+    }
+
+    /**
+     * returns the codebook items for a codebook, with the captions overwritten and the items merged
+     * the result is shared with the other codebooks with the same merge policy and must not be changed
+     * codebooks may call this concurrently: the first codebook of a merge policy does the merging and the others
+     * with the same policy wait for its result, while codebooks with other policies merge at the same time
+     * @param codebook    the codebook
+     * @return the merged codebook items per path
+     */
+    Map<String, List<CodebookItem>> getMergedItems(DefaultCodebook codebook){
+        FutureTask<Map<String, List<CodebookItem>>> mergeTask;
+        boolean mergeHere = false;
+        synchronized (mergedItemMaps) {
+            mergeTask = mergedItemMaps.get(codebook.getMergePolicy());
+            if(mergeTask == null){
+                mergeTask = new FutureTask<>(() -> createMergedItems(codebook));
+                mergedItemMaps.put(codebook.getMergePolicy(), mergeTask);
+                mergeHere = true;
+            }
+        }
+        if(mergeHere){
+            mergeTask.run();
+        }
+        try {
+            return mergeTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while merging the codebook items");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("A problem occurred merging the codebook items: "+e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * create a view of the snapshot, overwrite the captions and merge the items
+     * @param codebook    the codebook which decides whether items may be merged
+     * @return the merged codebook items per path
+     */
+    private Map<String, List<CodebookItem>> createMergedItems(DefaultCodebook codebook){
+        RunStatistics runStatistics = RunStatistics.current();
+        CodebookMerger codebookMerger = new CodebookMerger(codebook, captionOverwriter);
+        Map<String, List<CodebookItem>> mergedItems = new LinkedHashMap<>();
+        int numberMerged = runStatistics.time(RunStatistics.MERGE_ITEMS, () -> {
+            int merged = 0;
+            for(Map.Entry<String, List<CodebookItem>> entry:codebookItemMap.entrySet()){
+                MergeEvent mergeEvent = new MergeEvent();
+                mergeEvent.begin();
+                List<CodebookItem> codebookItems = createView(entry.getKey(), entry.getValue());
+                overwriteCaption(codebookItems);
+                codebookMerger.merge(codebookItems);
+                merged += entry.getValue().size()-codebookItems.size();
+                mergedItems.put(entry.getKey(), Collections.unmodifiableList(codebookItems));
+                mergeEvent.end();
+                if(mergeEvent.shouldCommit()){
+                    mergeEvent.path = entry.getKey();
+                    mergeEvent.mergePolicy = codebook.getMergePolicy();
+                    mergeEvent.itemCount = entry.getValue().size();
+                    mergeEvent.mergedCount = codebookItems.size();
+                    mergeEvent.commit();
+                }
+            }
+            return merged;
+        });
+        runStatistics.count(RunStatistics.ITEMS_MERGED, numberMerged);
+        return Collections.unmodifiableMap(mergedItems);
+    }
+
+    /**
+     * returns a list with the codebook items of a path which may be changed
+     * a single item without a caption overwrite is left alone by the merging, so it is shared with the snapshot;
+     * otherwise the items are copied
+     * @param path             the path
+     * @param codebookItems    the codebook items of the path in the snapshot
+     * @return list with the codebook items
+     */
+    private List<CodebookItem> createView(String path, List<CodebookItem> codebookItems){
+        List<CodebookItem> view = new ArrayList<>(codebookItems.size());
+        boolean mayChange = codebookItems.size()>1 || hasCaptionOverwrite(path);
+        for(CodebookItem codebookItem:codebookItems){
+            view.add(mayChange ? codebookItem.copy() : codebookItem);
+        }
+        return view;
+    }
+
+    /**
+     * attempts to overwrite the captions using the caption overwrite file
+     * as discussed with PALGA, overwrites will always be used if available, even if there is no conflict
+     * reason for this is that it will allow us to specify better labels for the codebook if desired
+     * @param codebookItemList     list with codebookitems
+     */
+    private void overwriteCaption(List<CodebookItem> codebookItemList){
+        for(CodebookItem codebookItem:codebookItemList) {
+            String path = codebookItem.getPath();
+            if (hasCaptionOverwrite(path)) {
+                // if so, use the specified overwrite
+                String newCaption = captionOverwriter.getOverwrite(path);
+                codebookItem.setCaption(newCaption);
+            }
+        }
+    }
+
+    /**
+     * returns whether the caption overwrite file has an overwrite for a path
+     * @param path    the path
+     * @return true/false
+     */
+    private boolean hasCaptionOverwrite(String path){
+        return captionOverwriter.isValidOverwriteFileProvided() && captionOverwriter.containsPath(path);
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.codebook;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * merges the codebook items found for a path
+ * the result is the same as comparing every remaining codebook item with every later one (which is what we used
+ * to do), but the items are grouped with hash maps instead:
+ * - items with a different caption are never merged, but their captions are reported as conflicting
+ * - items with the same caption are merged when the codebook's merge keys are equal (ignoring case). A codebook
+ *   which does not provide merge keys has its items with the same caption compared pairwise
+ * - the options of the remaining items are the union of the options of the items that were compared with them
+ */
+class CodebookMerger {
+    private final DefaultCodebook codebook;
+    private final CaptionOverwriter captionOverwriter;
+
+    /**
+     * constructor
+     * @param codebook             the codebook, which decides whether items may be merged
+     * @param captionOverwriter    caption overwriting and tracking of conflicting captions
+     */
+    CodebookMerger(DefaultCodebook codebook, CaptionOverwriter captionOverwriter){
+        this.codebook = codebook;
+        this.captionOverwriter = captionOverwriter;
+    }
+
+    /**
+     * merge the codebook items of a path. Merged items are removed from the list
+     * @param codebookItems    list of codebook items found in the protocol for a path
+     */
+    void merge(List<CodebookItem> codebookItems){
+        int size = codebookItems.size();
+        if(size<2){
+            return;
+        }
+
+        // group the items by caption; the index of each item is stored in the group
+        String [] captionKeys = new String[size];
+        Map<String, List<Integer>> captionGroups = new LinkedHashMap<>();
+        for(int i=0; i<size; i++){
+            captionKeys[i] = ignoreCase(codebookItems.get(i).getCaption());
+            captionGroups.computeIfAbsent(captionKeys[i], k -> new ArrayList<>()).add(i);
+        }
+
+        // for each item, the index of the item it is merged into (its own index if it remains)
+        int [] mergedInto = new int[size];
+        for(List<Integer> captionGroup:captionGroups.values()){
+            mergeCaptionGroup(codebookItems, captionGroup, mergedInto);
+        }
+
+        if(captionGroups.size()>1){
+            reportConflictingCaptions(codebookItems, captionKeys, mergedInto);
+        }
+        mergeOptions(codebookItems, mergedInto);
+
+        // remove the items that were merged
+        int remaining = 0;
+        for(int i=0; i<size; i++){
+            if(mergedInto[i] == i){
+                codebookItems.set(remaining++, codebookItems.get(i));
+            }
+        }
+        codebookItems.subList(remaining, size).clear();
+    }
+
+    /**
+     * decide which of the items with the same caption are merged
+     * @param codebookItems    list of codebook items found in the protocol for a path
+     * @param captionGroup     the indices of the items with the same caption
+     * @param mergedInto       for each item, the index of the item it is merged into
+     */
+    private void mergeCaptionGroup(List<CodebookItem> codebookItems, List<Integer> captionGroup, int [] mergedInto){
+        if(codebook.getMergeKey(codebookItems.get(captionGroup.get(0))) != null){
+            // the first item with a key remains, the other items with that key are merged into it
+            Map<List<String>, Integer> firstWithKey = new HashMap<>();
+            for(int index:captionGroup){
+                Integer first = firstWithKey.putIfAbsent(getMergeKey(codebookItems.get(index)), index);
+                mergedInto[index] = first == null ? index : first;
+            }
+        }
+        else{
+            // the codebook's check may change the items, so compare them in the order we always did
+            boolean [] merged = new boolean[captionGroup.size()];
+            for(int i=0; i<captionGroup.size(); i++){
+                if(merged[i]){
+                    continue;
+                }
+                int index1 = captionGroup.get(i);
+                mergedInto[index1] = index1;
+                for(int j=i+1; j<captionGroup.size(); j++){
+                    int index2 = captionGroup.get(j);
+                    if(!merged[j] && codebook.mayMergeForCodebook(codebookItems.get(index1), codebookItems.get(index2), captionOverwriter)){
+                        merged[j] = true;
+                        mergedInto[index2] = index1;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * report the conflicting captions, in the order in which comparing every remaining item with every later item
+     * would find them. The captions are usually all found while comparing the first item, so we stop as soon as
+     * every caption has been reported
+     * @param codebookItems    list of codebook items found in the protocol for a path
+     * @param captionKeys      the caption of each item, ignoring case
+     * @param mergedInto       for each item, the index of the item it is merged into
+     */
+    private void reportConflictingCaptions(List<CodebookItem> codebookItems, String [] captionKeys, int [] mergedInto){
+        Set<String> captions = new HashSet<>();
+        for(CodebookItem codebookItem:codebookItems){
+            captions.add(codebookItem.getCaption());
+        }
+
+        String path = codebookItems.get(0).getPath();
+        Set<String> reported = new HashSet<>();
+        for(int i=0; i<codebookItems.size() && reported.size()<captions.size(); i++){
+            if(mergedInto[i] != i){
+                continue;
+            }
+            CodebookItem codebookItem1 = codebookItems.get(i);
+            for(int j=i+1; j<codebookItems.size(); j++){
+                // items merged into an earlier item were no longer there to compare with
+                if(mergedInto[j]>=i && !captionKeys[i].equals(captionKeys[j])){
+                    CodebookItem codebookItem2 = codebookItems.get(j);
+                    captionOverwriter.addConflictingCaption(path, codebookItem1.getCaption());
+                    captionOverwriter.addConflictingCaption(path, codebookItem2.getCaption());
+                    reported.add(codebookItem1.getCaption());
+                    reported.add(codebookItem2.getCaption());
+                }
+            }
+        }
+    }
+
+    /**
+     * set the options of the remaining items
+     * comparing the items used to union the options of every compared pair. For the first item, this gives the
+     * union of all the options. For a later remaining item, this gives the union of the options of all items up to
+     * the last item it was compared with (or up to itself if there was none)
+     * @param codebookItems    list of codebook items found in the protocol for a path
+     * @param mergedInto       for each item, the index of the item it is merged into
+     */
+    private void mergeOptions(List<CodebookItem> codebookItems, int [] mergedInto){
+        int size = codebookItems.size();
+        // for each remaining item, find the last item it was compared with: the last later item that was
+        // not merged into an earlier item
+        int [] unionUpTo = new int[size];
+        int [] lastMergedInto = new int[size];
+        for(int i=0; i<size; i++){
+            lastMergedInto[mergedInto[i]] = i;
+        }
+        int lastCompared = -1;
+        for(int i=size-1; i>=0; i--){
+            if(mergedInto[i] == i){
+                lastCompared = Math.max(lastCompared, lastMergedInto[i]);
+                unionUpTo[i] = Math.max(lastCompared, i);
+            }
+        }
+
+        // build the union of the options step by step and take the ones we need
+        Map<Integer, List<CodebookItem>> itemsPerUnion = new HashMap<>();
+        for(int i=0; i<size; i++){
+            if(mergedInto[i] == i){
+                itemsPerUnion.computeIfAbsent(unionUpTo[i], k -> new ArrayList<>()).add(codebookItems.get(i));
+            }
+        }
+        Set<String> union = new LinkedHashSet<>();
+        List<List<String>> options = new ArrayList<>(size);
+        for(CodebookItem codebookItem:codebookItems){
+            options.add(codebookItem.getOptions());
+        }
+        for(int i=0; i<size; i++){
+            union.addAll(options.get(i));
+            List<CodebookItem> itemsForUnion = itemsPerUnion.get(i);
+            if(itemsForUnion != null){
+                for(CodebookItem codebookItem:itemsForUnion){
+                    codebookItem.setOptions(new ArrayList<>(union));
+                }
+            }
+        }
+    }
+
+    /**
+     * returns the merge key of an item, ignoring case
+     * @param codebookItem    the codebook item
+     * @return the merge key
+     */
+    private List<String> getMergeKey(CodebookItem codebookItem){
+        List<String> mergeKey = new ArrayList<>();
+        for(String value:codebook.getMergeKey(codebookItem)){
+            mergeKey.add(ignoreCase(value));
+        }
+        return mergeKey;
+    }
+
+    /**
+     * returns a value which is equal for two strings if and only if the strings are equal ignoring case
+     * (the same character mapping as String.equalsIgnoreCase uses)
+     * @param value    the string
+     * @return the value
+     */
+    private static String ignoreCase(String value){
+        char [] chars = value.toCharArray();
+        for(int i=0; i<chars.length; i++){
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+}
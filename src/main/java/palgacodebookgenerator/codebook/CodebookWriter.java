@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.codebook;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import palgacodebookgenerator.utils.RunStatistics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * generates and writes codebooks in parallel
+ * the codebooks are independent of each other: they share the (read-only) codebook items and the caption
+ * overwriter, which is safe for concurrent use. Serializing and compressing a workbook takes most of the time, so
+ * writing the codebooks of "PALGA & NKI" at the same time saves a lot of waiting
+ */
+public class CodebookWriter {
+    private static final Logger logger = LogManager.getLogger(CodebookWriter.class.getName());
+    private final int maxThreads;
+
+    /**
+     * listener which is informed whenever a codebook is done
+     */
+    public interface ProgressListener {
+        /**
+         * called when a codebook has been written or has failed
+         * @param codebook    the codebook
+         * @param done        the number of codebooks which are done
+         * @param total       the total number of codebooks
+         */
+        void codebookDone(Codebook codebook, int done, int total);
+    }
+
+    /**
+     * constructor
+     * @param maxThreads    the maximum number of codebooks which are written at the same time
+     */
+    public CodebookWriter(int maxThreads){
+        this.maxThreads = Math.max(1, maxThreads);
+    }
+
+    /**
+     * generate and write the codebooks. A codebook which fails does not stop the others
+     * @param codebookList        the codebooks to write
+     * @param outputDir           directory which will contain the created codebooks
+     * @param progressListener    listener which is informed whenever a codebook is done
+     * @return list with the names of the codebooks which could not be written
+     */
+    public List<String> writeCodebooks(List<Codebook> codebookList, String outputDir, ProgressListener progressListener){
+        List<String> failedCodebooks = new ArrayList<>();
+        if(codebookList.isEmpty()){
+            return failedCodebooks;
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(maxThreads, codebookList.size()));
+        try {
+            CompletionService<Codebook> completionService = new ExecutorCompletionService<>(executorService);
+            Map<Future<Codebook>, Codebook> codebookFutures = new HashMap<>();
+            // the statistics of the run are passed on to the threads which write the codebooks
+            RunStatistics runStatistics = RunStatistics.current();
+            for(Codebook codebook:codebookList){
+                codebookFutures.put(completionService.submit(() -> runStatistics.call(() -> writeCodebook(codebook, outputDir))), codebook);
+            }
+
+            for(int done=1; done<=codebookList.size(); done++){
+                Future<Codebook> codebookFuture = completionService.take();
+                Codebook codebook = codebookFutures.get(codebookFuture);
+                try {
+                    codebookFuture.get();
+                } catch (ExecutionException e) {
+                    logger.log(Level.INFO, "A problem occurred writing the "+codebook.getName()+" codebook:\n"+e.getCause().getMessage());
+                    failedCodebooks.add(codebook.getName());
+                }
+                progressListener.codebookDone(codebook, done, codebookList.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while writing the codebooks");
+        } finally {
+            executorService.shutdownNow();
+        }
+        return failedCodebooks;
+    }
+
+    /**
+     * generate and write a single codebook
+     * @param codebook     the codebook
+     * @param outputDir    directory which will contain the created codebook
+     * @return the codebook
+     */
+    private static Codebook writeCodebook(Codebook codebook, String outputDir){
+        logger.log(Level.INFO, "Writing the "+codebook.getName()+" codebook...");
+        codebook.writeToExcel(outputDir);
+        logger.log(Level.INFO, "Done writing the "+codebook.getName()+" codebook");
+        return codebook;
+    }
+}
@@ -21,9 +21,9 @@
 package palgacodebookgenerator.codebook;
 
 import palgacodebookgenerator.data.Protocol;
-import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import palgacodebookgenerator.utils.ExcelUtils;
+import palgacodebookgenerator.utils.SheetWriter;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -36,10 +36,10 @@ class DebugCodebook extends DefaultCodebook {
     /**
      * constructor
      * @param protocol             the protocol which should be written to the codebook
-     * @param captionOverwriter    caption overwriting and tracking of conflicting captions
+     * @param codebookItemSnapshot    the codebook items found in the protocol
      */
-    DebugCodebook(Protocol protocol, CaptionOverwriter captionOverwriter, boolean writeInSeparateSheets){
-        super(protocol, captionOverwriter, "DEBUG", writeInSeparateSheets);
+    DebugCodebook(Protocol protocol, CodebookItemSnapshot codebookItemSnapshot, boolean writeInSeparateSheets){
+        super(protocol, codebookItemSnapshot, "DEBUG", writeInSeparateSheets);
     }
 
     /**
@@ -48,14 +48,15 @@ class DebugCodebook extends DefaultCodebook {
      */
     @Override
     public void writeToExcelSingleSheet(String outputDir){
-        Workbook workbook = ExcelUtils.createXLSXWorkbook();
-        Sheet mainsheet = addMainWorksheet(workbook, getWriteToExcelMainHeader());
+        Workbook workbook = createWorkbook();
+        SheetWriter mainsheet = addMainWorksheet(workbook, getWriteToExcelMainHeader());
 
         for(List<CodebookItem> codebookItems:codebookItemMap.values()){
             for(CodebookItem codebookItem:codebookItems){
-                ExcelUtils.writeValues(mainsheet, getWriteToExcelValues(codebookItem));
+                mainsheet.writeValues(getWriteToExcelValues(codebookItem));
             }
         }
+        addRulesWorksheet(workbook);
         ExcelUtils.writeXLSXWorkBook(workbook, getCodebookOutputName(outputDir));
     }
 
@@ -77,7 +78,7 @@ class DebugCodebook extends DefaultCodebook {
      */
     private List<String> getWriteToExcelValues(CodebookItem codebookItem){
         List<String> argumentsList = new ArrayList<>(Arrays.asList(codebookItem.getNet(),codebookItem.getId(),codebookItem.getNtype(),codebookItem.getLog(),codebookItem.getPath(),codebookItem.getCaption(),codebookItem.get_name(),codebookItem.getData_type(),codebookItem.getOptionsString(),codebookItem.getValidationRule()));
-        argumentsList.addAll(codebookItem.getPartialRules());
+        argumentsList.addAll(getFieldEnteredWhen(codebookItem));
         return argumentsList;
     }
 
@@ -89,21 +90,22 @@ class DebugCodebook extends DefaultCodebook {
     public void writeToExcelOptionsInSheets(String outputDir){
         List<String> sheetHeaderList = Arrays.asList("PALGA_VALUE", "PALGA_DESCRIPTION", "CODESYSTEM");
 
-        Workbook workbook = ExcelUtils.createXLSXWorkbook();
-        Sheet mainsheet = addMainWorksheet(workbook, getWriteToExcelOptionsMainHeader());
+        Workbook workbook = createWorkbook();
+        SheetWriter mainsheet = addMainWorksheet(workbook, getWriteToExcelOptionsMainHeader());
 
         for(List<CodebookItem> codebookItems:codebookItemMap.values()){
             for(CodebookItem codebookItem:codebookItems){
                 String path = codebookItem.getPath();
                 if(codebookItem.hasOptions()) {
-                    ExcelUtils.writeValues(mainsheet, getWriteToExcelOptionsValuesOptionsRef(codebookItem));
+                    mainsheet.writeValues(getWriteToExcelOptionsValuesOptionsRef(codebookItem));
                     addOptionsWorksheet(workbook, codebookItem.getPathAsRef(), sheetHeaderList, codebookItem.getOptions());
                 }
                 else {
-                    ExcelUtils.writeValues(mainsheet, getWriteToExcelOptionsValuesNoOptionsRef(codebookItem));
+                    mainsheet.writeValues(getWriteToExcelOptionsValuesNoOptionsRef(codebookItem));
                 }
             }
         }
+        addRulesWorksheet(workbook);
         ExcelUtils.writeXLSXWorkBook(workbook, getCodebookOutputName(outputDir));
     }
 
@@ -124,7 +126,7 @@ class DebugCodebook extends DefaultCodebook {
      */
     private List<String> getWriteToExcelOptionsValuesNoOptionsRef(CodebookItem codebookItem){
         List<String> argumentsList = new ArrayList<>(Arrays.asList(codebookItem.getNet(),codebookItem.getId(),codebookItem.getNtype(),codebookItem.getLog(),codebookItem.getPath(),codebookItem.getCaption(),codebookItem.get_name(),codebookItem.getData_type(),"",codebookItem.getValidationRule()));
-        argumentsList.addAll(codebookItem.getPartialRules());
+        argumentsList.addAll(getFieldEnteredWhen(codebookItem));
         return argumentsList;
     }
 
@@ -135,32 +137,27 @@ class DebugCodebook extends DefaultCodebook {
      */
     private List<String> getWriteToExcelOptionsValuesOptionsRef(CodebookItem codebookItem){
         List<String> argumentsList = new ArrayList<>(Arrays.asList(codebookItem.getNet(),codebookItem.getId(),codebookItem.getNtype(),codebookItem.getLog(),codebookItem.getPath(),codebookItem.getCaption(),codebookItem.get_name(),codebookItem.getData_type(),codebookItem.getPathAsRef(),codebookItem.getValidationRule()));
-        argumentsList.addAll(codebookItem.getPartialRules());
+        argumentsList.addAll(getFieldEnteredWhen(codebookItem));
         return argumentsList;
     }
 
 
     /**
-     * checks whether two codebookitems can be merged into a single codebookitem
-     * @param codebookItem1        first codebook item
-     * @param codebookItem2        second codebook item
-     * @param captionOverwriter    caption overwriting and tracking of conflicting captions
-     * @return true/false
+     * returns the name of the merge policy of the codebook
+     * @return the name of the merge policy
      */
     @Override
-    boolean mayMergeForCodebook(CodebookItem codebookItem1, CodebookItem codebookItem2, CaptionOverwriter captionOverwriter) {
-        boolean canMerge=true;
-
-        if(!codebookItem1.getData_type().equalsIgnoreCase(codebookItem2.getData_type())){
-            canMerge = false;
-        }
-        else if(!codebookItem1.getValidationRule().equalsIgnoreCase(codebookItem2.getValidationRule())){
-            canMerge = false;
-        }
-        else if(!codebookItem1.getPartialRulesString().equalsIgnoreCase(codebookItem2.getPartialRulesString())){
-            canMerge = false;
-        }
+    String getMergePolicy() {
+        return "DEBUG";
+    }
 
-        return canMerge;
+    /**
+     * returns the values which decide whether two codebookitems can be merged into a single codebookitem
+     * @param codebookItem    the codebook item
+     * @return list with the data_type, validation rule and partial rules
+     */
+    @Override
+    List<String> getMergeKey(CodebookItem codebookItem) {
+        return Arrays.asList(codebookItem.getData_type(), codebookItem.getValidationRule(), codebookItem.getPartialRulesString());
     }
 }
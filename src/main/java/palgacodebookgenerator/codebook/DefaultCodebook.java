@@ -22,12 +22,14 @@ package palgacodebookgenerator.codebook;
 
 import palgacodebookgenerator.data.Protocol;
 import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import palgacodebookgenerator.utils.ExcelUtils;
+import palgacodebookgenerator.utils.RunStatistics;
+import palgacodebookgenerator.utils.SheetWriter;
 import palgacodebookgenerator.utils.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -37,75 +39,92 @@ import java.util.Map;
 abstract class DefaultCodebook implements Codebook{
     Map<String, List<CodebookItem>> codebookItemMap;
     Protocol protocol;
+    private final CodebookItemSnapshot codebookItemSnapshot;
     private int maxPartialRulesLength=0;
     private final boolean writeInSeparateSheets;
     private final String codebookType;
+    private boolean streamingWorkbook = false;
+    private boolean sharedRules = false;
+    // the rules which have been written to the workbook, only used when the rules are shared
+    private RuleTable ruleTable;
+    // the header style of the workbook which is being written, shared by all its sheets
+    private Workbook headerStyleWorkbook;
+    private CellStyle headerStyle;
 
-    DefaultCodebook(Protocol protocol, CaptionOverwriter captionOverwriter, String codebookType, boolean writeInSeparateSheets){
+    DefaultCodebook(Protocol protocol, CodebookItemSnapshot codebookItemSnapshot, String codebookType, boolean writeInSeparateSheets){
         this.writeInSeparateSheets = writeInSeparateSheets;
         this.codebookType = codebookType;
         this.protocol = protocol;
-        addData(captionOverwriter);
+        this.codebookItemSnapshot = codebookItemSnapshot;
     }
 
     /**
-     * write codebook to Excel.
+     * write codebook to Excel. The codebook items are merged first, so this is where the codebook is generated
      * @param outputDir directory which will contain the created codebook
      */
     @Override
     public final void writeToExcel(String outputDir) {
-        if(writeInSeparateSheets) {
-            writeToExcelOptionsInSheets(outputDir);
-        }
-        else{
-            writeToExcelSingleSheet(outputDir);
+        if(codebookItemMap==null){
+            addData();
         }
+        RunStatistics.current().time(RunStatistics.BUILD_SHEETS, () -> {
+            ruleTable = sharedRules ? new RuleTable() : null;
+            if(writeInSeparateSheets) {
+                writeToExcelOptionsInSheets(outputDir);
+            }
+            else{
+                writeToExcelSingleSheet(outputDir);
+            }
+        });
     }
 
     /**
-     * generate the codebook item map and try to merge codebook items
-     * @param captionOverwriter    holds caption overwrites and tricks conflicting captions
+     * set whether the codebook should be written using a streaming workbook
+     * @param streamingWorkbook    true/false
      */
-    private void addData(CaptionOverwriter captionOverwriter){
-        codebookItemMap = protocol.getCodebookItems();
-        for(List<CodebookItem> codebookItems:codebookItemMap.values()) {
-            overwriteCaption(codebookItems, captionOverwriter);
-            tryMerge(codebookItems, captionOverwriter);
-        }
+    @Override
+    public void setStreamingWorkbook(boolean streamingWorkbook) {
+        this.streamingWorkbook = streamingWorkbook;
     }
 
     /**
-     * merge functionality for a list of codebook items
-     * @param codebookItems        list of codebook items found in the protocol
-     * @param captionOverwriter    holds caption overwrites and tricks conflicting captions
+     * set whether the rules should be written once to a RULES sheet, with the rows of the codebook referring to them
+     * @param sharedRules    true/false
      */
-    private void tryMerge(List<CodebookItem> codebookItems, CaptionOverwriter captionOverwriter){
-        for(int i=0; i<codebookItems.size(); i++){
-            CodebookItem codebookItem1 = codebookItems.get(i);
-            for(int j=i+1; j<codebookItems.size(); j++){
-                CodebookItem codebookItem2 = codebookItems.get(j);
-                codebookItem1.mergeOptions(codebookItem2);
-                if(mayMerge(codebookItem1, codebookItem2, captionOverwriter)){
-                    codebookItems.remove(j);
-                    j--;
-                }
-            }
-            checkPartialRulesLength(codebookItem1);
-        }
+    @Override
+    public void setSharedRules(boolean sharedRules) {
+        this.sharedRules = sharedRules;
     }
 
     /**
-     * attempts to overwrite the captions using the caption overwrite file
-     * @param codebookItemList     list with codebookitems
-     * @param captionOverwriter    caption overwriting and tracking of conflicting captions
+     * create the workbook to which the codebook is written
+     * @return the workbook
+     */
+    Workbook createWorkbook(){
+        return ExcelUtils.createXLSXWorkbook(streamingWorkbook);
+    }
+
+    /**
+     * returns the name of the codebook, e.g. PALGA_sep
+     * @return the name of the codebook
      */
-    private void overwriteCaption(List<CodebookItem> codebookItemList, CaptionOverwriter captionOverwriter){
-        for(CodebookItem codebookItem:codebookItemList) {
-            String path = codebookItem.getPath();
-            if (captionOverwriter.isValidOverwriteFileProvided() && captionOverwriter.containsPath(path)) {
-                // if so, use the specified overwrite
-                String newCaption = captionOverwriter.getOverwrite(path);
-                codebookItem.setCaption(newCaption);
+    @Override
+    public String getName(){
+        return writeInSeparateSheets ? codebookType+"_sep" : codebookType;
+    }
+
+    /**
+     * get the merged codebook items from the snapshot. Codebooks with the same merge policy share these, so they
+     * must not be changed
+     */
+    private void addData(){
+        codebookItemMap = codebookItemSnapshot.getMergedItems(this);
+        if(sharedRules){
+            return;
+        }
+        for(List<CodebookItem> codebookItems:codebookItemMap.values()) {
+            for(CodebookItem codebookItem:codebookItems){
+                checkPartialRulesLength(codebookItem);
             }
         }
     }
@@ -128,8 +147,7 @@ abstract class DefaultCodebook implements Codebook{
      * @return full filename
      */
     String getCodebookOutputName(String outputDir){
-        String inSeparateSheets = writeInSeparateSheets ?"_sep":"";
-        return outputDir+protocol.getProtocolName()+"_codebook_"+protocol.getSmallVersion()+"_"+codebookType+inSeparateSheets+".xlsx";
+        return outputDir+protocol.getProtocolName()+"_codebook_"+protocol.getSmallVersion()+"_"+getName()+".xlsx";
     }
 
     /**
@@ -141,12 +159,10 @@ abstract class DefaultCodebook implements Codebook{
      */
     void addOptionsWorksheet(Workbook workbook, String sheetName, List<String> headerList, List<String> optionsList){
         sheetName = StringUtils.cleanString(sheetName);
-        Sheet sheet = workbook.getSheet(sheetName);
-        if(sheet==null){
-            CellStyle headerStyle = ExcelUtils.createHeaderStyle(workbook);
-            sheet = ExcelUtils.createSheetWithHeader(workbook, sheetName, headerList, headerStyle);
+        if(workbook.getSheet(sheetName)==null){
+            SheetWriter sheetWriter = ExcelUtils.createSheetWithHeader(workbook, sheetName, headerList, getHeaderStyle(workbook));
             for(String anOption:optionsList){
-                ExcelUtils.writeValues(sheet, anOption, anOption);
+                sheetWriter.writeValues(anOption, anOption);
             }
         }
     }
@@ -155,22 +171,75 @@ abstract class DefaultCodebook implements Codebook{
      * creates the CODEBOOK sheet
      * @param workbook        workbook in which to create the sheet
      * @param mainHeaderNames headers to add
-     * @return the newly created sheet
+     * @return writer for the newly created sheet
      */
-    Sheet addMainWorksheet(Workbook workbook, List<String> mainHeaderNames){
-        CellStyle headerStyle = ExcelUtils.createHeaderStyle(workbook);
+    SheetWriter addMainWorksheet(Workbook workbook, List<String> mainHeaderNames){
         String sheetName = "CODEBOOK";
-        return ExcelUtils.createSheetWithHeader(workbook, sheetName, mainHeaderNames, headerStyle);
+        return ExcelUtils.createSheetWithHeader(workbook, sheetName, mainHeaderNames, getHeaderStyle(workbook));
+    }
+
+    /**
+     * returns the header style of a workbook. The style is only created once per workbook, instead of once per sheet
+     * @param workbook    the workbook which is being written
+     * @return the header style
+     */
+    private CellStyle getHeaderStyle(Workbook workbook){
+        if(headerStyleWorkbook != workbook){
+            headerStyle = ExcelUtils.createHeaderStyle(workbook);
+            headerStyleWorkbook = workbook;
+        }
+        return headerStyle;
+    }
+
+    /**
+     * creates the RULES sheet, with the id and definition of every rule the CODEBOOK sheet refers to
+     * only when the rules are shared and the sheet refers to them, otherwise the rules are written in the CODEBOOK
+     * sheet itself
+     * @param workbook    workbook in which to create the sheet
+     */
+    void addRulesWorksheet(Workbook workbook){
+        if(ruleTable == null || ruleTable.getIds().isEmpty()){
+            return;
+        }
+        // like the field_entered_when, a definition can span multiple cells due to Excel cell limitations
+        List<List<String>> definitionParts = new ArrayList<>();
+        int maxDefinitionLength = 1;
+        for(String definition:ruleTable.getDefinitions()){
+            List<String> parts = StringUtils.splitString(definition);
+            definitionParts.add(parts);
+            maxDefinitionLength = Math.max(maxDefinitionLength, parts.size());
+        }
+
+        List<String> headerList = new ArrayList<>(Collections.singletonList("rule_id"));
+        if(maxDefinitionLength == 1){
+            headerList.add("rule");
+        }
+        else {
+            for(int i=1; i<=maxDefinitionLength; i++){
+                headerList.add("rule_"+i);
+            }
+        }
+        SheetWriter sheetWriter = ExcelUtils.createSheetWithHeader(workbook, "RULES", headerList, getHeaderStyle(workbook));
+        List<String> ids = ruleTable.getIds();
+        for(int i=0; i<ids.size(); i++){
+            List<String> values = new ArrayList<>(Collections.singletonList(ids.get(i)));
+            values.addAll(definitionParts.get(i));
+            sheetWriter.writeValues(values);
+        }
     }
 
     /**
      * get a list for the partial rules variable: the field_entered_when header
      * as this variable can span multiple cells, the field_entered_when get an extension
      * based on the maximum number of columns the variable spans
+     * when the rules are shared, a single field_entered_when column refers to the RULES sheet
      * @return list with field_entered_when column names
      */
     List<String> getFieldEnteredWhenHeader(){
         String stringPart = "field_entered_when";
+        if(sharedRules){
+            return Collections.singletonList(stringPart);
+        }
         List<String> headerPartList = new ArrayList<>();
         for(int i=1; i<=maxPartialRulesLength; i++){
             headerPartList.add(stringPart+"_"+i);
@@ -179,53 +248,48 @@ abstract class DefaultCodebook implements Codebook{
     }
 
     /**
-     * checks whether two codebook items can be merged
-     * @param codebookItem1        first codebook item
-     * @param codebookItem2        second codebook item
-     * @param captionOverwriter    caption overwriting and tracking of conflicting captions
-     * @return true/false
+     * get the values for the field_entered_when columns of a codebook item: its partial rules, or the reference
+     * to its rule in the RULES sheet when the rules are shared
+     * @param codebookItem    the codebook item
+     * @return list with the values
      */
-    private boolean mayMerge(CodebookItem codebookItem1, CodebookItem codebookItem2, CaptionOverwriter captionOverwriter){
-        boolean canMerge = updateCaption(codebookItem1, codebookItem2, captionOverwriter);
-        return canMerge && mayMergeForCodebook(codebookItem1, codebookItem2, captionOverwriter);
+    List<String> getFieldEnteredWhen(CodebookItem codebookItem){
+        if(ruleTable != null){
+            return Collections.singletonList(ruleTable.getReference(codebookItem.getRule()));
+        }
+        return codebookItem.getPartialRules();
     }
 
     /**
-     * general part of the merge check, which attempts to overwrite the caption of the codebookitems
-     * using the captionoverwriter
-     * as discussed with PALGA, overwrites will always be used if available, even if there is no conflict
-     * reason for this is that it will allow us to specify better labels for the codebook if desired
-     *
-     * @param codebookItem1        first codebook item
-     * @param codebookItem2        second codebook item
-     * @param captionOverwriter    caption overwriting and tracking of conflicting captions
-     * @return true/false
+     * returns the name of the merge policy of the codebook. Codebooks with the same merge policy must merge items
+     * in the same way, as they share the merged codebook items
+     * @return the name of the merge policy
      */
-    private boolean updateCaption(CodebookItem codebookItem1, CodebookItem codebookItem2, CaptionOverwriter captionOverwriter) {
-        boolean canMerge=true;
-
-        String path = codebookItem1.getPath();
-        // check whether the caption is conflicting between the two codebook items
-        if(!codebookItem1.getCaption().equalsIgnoreCase(codebookItem2.getCaption())){
-            // if conflicting, add the conflict to the captionOverwriter and return that the items cannot
-            // be merged
-            captionOverwriter.addConflictingCaption(path, codebookItem1.getCaption());
-            captionOverwriter.addConflictingCaption(path, codebookItem2.getCaption());
-            canMerge = false;
-        }
+    abstract String getMergePolicy();
 
-        return canMerge;
+    /**
+     * returns the values which decide whether two codebook items with the same caption can be merged: the items are
+     * merged if the values are equal, ignoring case. As the fields collected differ per codebook, the values are
+     * chosen by the individual codebooks.
+     * codebooks which have to compare (or change) the items pairwise return null and implement mayMergeForCodebook
+     * @param codebookItem    the codebook item
+     * @return list with the values or null
+     */
+    List<String> getMergeKey(CodebookItem codebookItem){
+        return null;
     }
 
     /**
-     * abstract method which every codebook must implement. The method checks whether two codebook items can be merged.
-     * as the fields collected differ per codebook, merging must be handled by the individual codebooks.
+     * checks whether two codebook items with the same caption can be merged. Only used when the codebook
+     * does not provide merge keys
      * @param codebookItem1        first codebook item
      * @param codebookItem2        second codebook item
      * @param captionOverwriter    caption overwriting and tracking of conflicting captions
      * @return true/false
      */
-    abstract boolean mayMergeForCodebook(CodebookItem codebookItem1, CodebookItem codebookItem2, CaptionOverwriter captionOverwriter);
+    boolean mayMergeForCodebook(CodebookItem codebookItem1, CodebookItem codebookItem2, CaptionOverwriter captionOverwriter){
+        return false;
+    }
 
     /**
      * write a codebook to Excel
@@ -21,9 +21,9 @@
 package palgacodebookgenerator.codebook;
 
 import palgacodebookgenerator.data.Protocol;
-import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import palgacodebookgenerator.utils.ExcelUtils;
+import palgacodebookgenerator.utils.SheetWriter;
 
 import java.util.Arrays;
 import java.util.List;
@@ -35,10 +35,10 @@ abstract class DefaultPalgaCodebook extends DefaultCodebook {
     /**
      * constructor
      * @param protocol             the protocol which should be written to the codebook
-     * @param captionOverwriter    caption overwriting and tracking of conflicting captions
+     * @param codebookItemSnapshot    the codebook items found in the protocol
      */
-    DefaultPalgaCodebook (Protocol protocol, CaptionOverwriter captionOverwriter, String codebookType, boolean writeInSeparateSheets){
-        super(protocol, captionOverwriter, codebookType, writeInSeparateSheets);
+    DefaultPalgaCodebook (Protocol protocol, CodebookItemSnapshot codebookItemSnapshot, String codebookType, boolean writeInSeparateSheets){
+        super(protocol, codebookItemSnapshot, codebookType, writeInSeparateSheets);
     }
 
     /**
@@ -47,14 +47,15 @@ abstract class DefaultPalgaCodebook extends DefaultCodebook {
      */
     @Override
     public void writeToExcelSingleSheet(String outputDir){
-        Workbook workbook = ExcelUtils.createXLSXWorkbook();
-        Sheet mainsheet = addMainWorksheet(workbook, getWriteToExcelMainHeader());
+        Workbook workbook = createWorkbook();
+        SheetWriter mainsheet = addMainWorksheet(workbook, getWriteToExcelMainHeader());
 
         for(List<CodebookItem> codebookItems:codebookItemMap.values()){
             for(CodebookItem codebookItem:codebookItems){
-                ExcelUtils.writeValues(mainsheet, getWriteToExcelValuesSingleSheet(codebookItem));
+                mainsheet.writeValues(getWriteToExcelValuesSingleSheet(codebookItem));
             }
         }
+        addRulesWorksheet(workbook);
         ExcelUtils.writeXLSXWorkBook(workbook, getCodebookOutputName(outputDir));
     }
 
@@ -76,20 +77,21 @@ abstract class DefaultPalgaCodebook extends DefaultCodebook {
     public void writeToExcelOptionsInSheets(String outputDir){
         List<String> sheetHeaderList = Arrays.asList("PALGA_VALUE", "PALGA_DESCRIPTION", "CODESYSTEM");
 
-        Workbook workbook = ExcelUtils.createXLSXWorkbook();
-        Sheet mainsheet = addMainWorksheet(workbook, getWriteToExcelMainHeader());
+        Workbook workbook = createWorkbook();
+        SheetWriter mainsheet = addMainWorksheet(workbook, getWriteToExcelMainHeader());
 
         for(List<CodebookItem> codebookItems:codebookItemMap.values()){
             for(CodebookItem codebookItem:codebookItems){
                 if(codebookItem.hasOptions()) {
-                    ExcelUtils.writeValues(mainsheet, getWriteToExcelOptionsValuesOptionsRef(codebookItem));
+                    mainsheet.writeValues(getWriteToExcelOptionsValuesOptionsRef(codebookItem));
                     addOptionsWorksheet(workbook, codebookItem.getPathAsRef(), sheetHeaderList, codebookItem.getOptions());
                 }
                 else {
-                    ExcelUtils.writeValues(mainsheet, getWriteToExcelOptionsValuesNoOptionsRef(codebookItem));
+                    mainsheet.writeValues(getWriteToExcelOptionsValuesNoOptionsRef(codebookItem));
                 }
             }
         }
+        addRulesWorksheet(workbook);
         ExcelUtils.writeXLSXWorkBook(workbook, getCodebookOutputName(outputDir));
     }
 
@@ -110,27 +112,22 @@ abstract class DefaultPalgaCodebook extends DefaultCodebook {
 
 
     /**
-     * checks whether two codebookitems can be merged into a single codebookitem
-     * @param codebookItem1        first codebook item
-     * @param codebookItem2        second codebook item
-     * @param captionOverwriter    caption overwriting and tracking of conflicting captions
-     * @return true/false
+     * returns the name of the merge policy of the codebook
+     * @return the name of the merge policy
      */
     @Override
-    boolean mayMergeForCodebook(CodebookItem codebookItem1, CodebookItem codebookItem2, CaptionOverwriter captionOverwriter) {
-        boolean canMerge=true;
-
-        if(!codebookItem1.getData_type().equalsIgnoreCase(codebookItem2.getData_type())){
-            canMerge = false;
-        }
-        else if(!codebookItem1.getValidationRule().equalsIgnoreCase(codebookItem2.getValidationRule())){
-            canMerge = false;
-        }
-        else if(!codebookItem1.getPartialRulesString().equalsIgnoreCase(codebookItem2.getPartialRulesString())){
-            canMerge = false;
-        }
+    String getMergePolicy() {
+        return "PALGA";
+    }
 
-        return canMerge;
+    /**
+     * returns the values which decide whether two codebookitems can be merged into a single codebookitem
+     * @param codebookItem    the codebook item
+     * @return list with the data_type, validation rule and partial rules
+     */
+    @Override
+    List<String> getMergeKey(CodebookItem codebookItem) {
+        return Arrays.asList(codebookItem.getData_type(), codebookItem.getValidationRule(), codebookItem.getPartialRulesString());
     }
 
 }
@@ -21,9 +21,9 @@
 package palgacodebookgenerator.codebook;
 
 import palgacodebookgenerator.data.Protocol;
-import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import palgacodebookgenerator.utils.ExcelUtils;
+import palgacodebookgenerator.utils.SheetWriter;
 
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
@@ -52,10 +52,10 @@ class NKICodebook  extends DefaultCodebook {
     /**
      * constructor
      * @param protocol             the protocol which should be written to the codebook
-     * @param captionOverwriter    caption overwriting and tracking of conflicting captions
+     * @param codebookItemSnapshot    the codebook items found in the protocol
      */
-    NKICodebook(Protocol protocol, CaptionOverwriter captionOverwriter, boolean writeInSeparateSheets){
-        super(protocol, captionOverwriter, "NKI", writeInSeparateSheets);
+    NKICodebook(Protocol protocol, CodebookItemSnapshot codebookItemSnapshot, boolean writeInSeparateSheets){
+        super(protocol, codebookItemSnapshot, "NKI", writeInSeparateSheets);
     }
 
     /**
@@ -66,14 +66,14 @@ class NKICodebook  extends DefaultCodebook {
     public void writeToExcelSingleSheet(String outputDir){
         List<String> mainHeaderNames = Arrays.asList("path","caption","input_type","data_type", "options");
 
-        Workbook workbook = ExcelUtils.createXLSXWorkbook();
-        Sheet mainsheet = addMainWorksheet(workbook, mainHeaderNames);
+        Workbook workbook = createWorkbook();
+        SheetWriter mainsheet = addMainWorksheet(workbook, mainHeaderNames);
 
         for(List<CodebookItem> codebookItems:codebookItemMap.values()){
             for(CodebookItem codebookItem:codebookItems){
                 String path = codebookItem.getPath();
                 if(!skipPath(path)) {
-                    ExcelUtils.writeValues(mainsheet,
+                    mainsheet.writeValues(
                             path,
                             codebookItem.getCaption(),
                             codebookItem.get_name(),
@@ -94,11 +94,11 @@ class NKICodebook  extends DefaultCodebook {
         List<String> mainHeaderNames = Arrays.asList("id", "description_nl", "description_en", "codesystem","code", "description_code", "codelist_ref","data_type", "input_type", "properties");
         List<String> sheetHeaderList = Arrays.asList("value_nl", "description_nl", "value_en", "description_en", "codesystem", "code", "description_code");
 
-        Workbook workbook = ExcelUtils.createXLSXWorkbook();
-        Sheet infosheet = ExcelUtils.createSheetWithoutHeader(workbook, "INFO");
+        Workbook workbook = createWorkbook();
+        SheetWriter infosheet = ExcelUtils.createSheetWithoutHeader(workbook, "INFO");
         addInfoSheetData(infosheet);
 
-        Sheet mainsheet = addMainWorksheet(workbook, mainHeaderNames);
+        SheetWriter mainsheet = addMainWorksheet(workbook, mainHeaderNames);
 
         for(List<CodebookItem> codebookItems:codebookItemMap.values()){
             for(CodebookItem codebookItem:codebookItems){
@@ -107,9 +107,9 @@ class NKICodebook  extends DefaultCodebook {
                     String property = "{PALGA_COLNAME=" + path + "}";
                     List<String> optionsList = codebookItem.getOptions();
                     if (optionsList.size() == 0) {
-                        ExcelUtils.writeValues(mainsheet, path, codebookItem.getCaption(), "", "", "", "", "", codebookItem.getData_type(), codebookItem.get_name(), property);
+                        mainsheet.writeValues(path, codebookItem.getCaption(), "", "", "", "", "", codebookItem.getData_type(), codebookItem.get_name(), property);
                     } else {
-                        ExcelUtils.writeValues(mainsheet, path, codebookItem.getCaption(), "", "", "", "", path, codebookItem.getData_type(), codebookItem.get_name(), property);
+                        mainsheet.writeValues(path, codebookItem.getCaption(), "", "", "", "", path, codebookItem.getData_type(), codebookItem.get_name(), property);
                         addOptionsWorksheet(workbook, codebookItem.getPathAsRef(), sheetHeaderList, optionsList);
                     }
                 }
@@ -122,17 +122,17 @@ class NKICodebook  extends DefaultCodebook {
      * add sheet with metadata
      * @param sheet the sheet to which to add the metadata
      */
-    private void addInfoSheetData(Sheet sheet){
+    private void addInfoSheetData(SheetWriter sheet){
         String version = protocol.getSmallVersion();
         String protocolName = protocol.getProtocolName();
         String effectiveDate= new SimpleDateFormat("yyyy-MM-dd").format(new Date());
 
-        ExcelUtils.writeValues(sheet, "Version", version);
-        ExcelUtils.writeValues(sheet, "DatasetName_nl", "PALGA Protocol: "+ protocolName);
-        ExcelUtils.writeValues(sheet, "DatasetDescription_nl", "PALGA Protocol: "+ protocolName +" versie "+version);
-        ExcelUtils.writeValues(sheet, "DatasetName_en", "PALGA Protocol: "+ protocolName);
-        ExcelUtils.writeValues(sheet, "DatasetDescription_en", "PALGA Protocol: "+ protocolName + " version "+version);
-        ExcelUtils.writeValues(sheet, "Effectivedate", effectiveDate);
+        sheet.writeValues("Version", version);
+        sheet.writeValues("DatasetName_nl", "PALGA Protocol: "+ protocolName);
+        sheet.writeValues("DatasetDescription_nl", "PALGA Protocol: "+ protocolName +" versie "+version);
+        sheet.writeValues("DatasetName_en", "PALGA Protocol: "+ protocolName);
+        sheet.writeValues("DatasetDescription_en", "PALGA Protocol: "+ protocolName + " version "+version);
+        sheet.writeValues("Effectivedate", effectiveDate);
 
     }
 
@@ -183,6 +183,15 @@ class NKICodebook  extends DefaultCodebook {
         }
     }
 
+    /**
+     * returns the name of the merge policy of the codebook
+     * @return the name of the merge policy
+     */
+    @Override
+    String getMergePolicy() {
+        return "NKI";
+    }
+
     /**
      * checks whether two codebookitems can be merged into a single codebookitem
      * @param codebookItem1        first codebook item
@@ -33,10 +33,10 @@ class PalgaCodebook extends DefaultPalgaCodebook {
     /**
      * constructor
      * @param protocol             the protocol which should be written to the codebook
-     * @param captionOverwriter    caption overwriting and tracking of conflicting captions
+     * @param codebookItemSnapshot    the codebook items found in the protocol
      */
-    PalgaCodebook(Protocol protocol, CaptionOverwriter captionOverwriter, boolean writeInSeparateSheets){
-        super(protocol, captionOverwriter, "PALGA", writeInSeparateSheets);
+    PalgaCodebook(Protocol protocol, CodebookItemSnapshot codebookItemSnapshot, boolean writeInSeparateSheets){
+        super(protocol, codebookItemSnapshot, "PALGA", writeInSeparateSheets);
     }
 
     /**
@@ -56,7 +56,7 @@ class PalgaCodebook extends DefaultPalgaCodebook {
      */
     List<String> getWriteToExcelValuesSingleSheet(CodebookItem codebookItem){
         List<String> argumentsList = new ArrayList<>(Arrays.asList(codebookItem.getPath(), codebookItem.getCaption(), codebookItem.get_name(), codebookItem.getData_type(),  codebookItem.getOptionsString(), codebookItem.getValidationRule()));
-        argumentsList.addAll(codebookItem.getPartialRules());
+        argumentsList.addAll(getFieldEnteredWhen(codebookItem));
         return argumentsList;
     }
 
@@ -67,7 +67,7 @@ class PalgaCodebook extends DefaultPalgaCodebook {
      */
     List<String> getWriteToExcelOptionsValuesNoOptionsRef(CodebookItem codebookItem){
         List<String> argumentsList = new ArrayList<>(Arrays.asList(codebookItem.getPath(), codebookItem.getCaption(), codebookItem.get_name(), codebookItem.getData_type(), "", codebookItem.getValidationRule()));
-        argumentsList.addAll(codebookItem.getPartialRules());
+        argumentsList.addAll(getFieldEnteredWhen(codebookItem));
         return argumentsList;
     }
 
@@ -78,7 +78,7 @@ class PalgaCodebook extends DefaultPalgaCodebook {
      */
     List<String> getWriteToExcelOptionsValuesOptionsRef(CodebookItem codebookItem){
         List<String> argumentsList = new ArrayList<>(Arrays.asList(codebookItem.getPath(), codebookItem.getCaption(), codebookItem.get_name(), codebookItem.getData_type(), codebookItem.getPathAsRef(), codebookItem.getValidationRule()));
-        argumentsList.addAll(codebookItem.getPartialRules());
+        argumentsList.addAll(getFieldEnteredWhen(codebookItem));
         return argumentsList;
     }
 }
@@ -33,10 +33,10 @@ class PalgaCodebookWeb extends DefaultPalgaCodebook {
     /**
      * constructor
      * @param protocol             the protocol which should be written to the codebook
-     * @param captionOverwriter    caption overwriting and tracking of conflicting captions
+     * @param codebookItemSnapshot    the codebook items found in the protocol
      */
-    PalgaCodebookWeb(Protocol protocol, CaptionOverwriter captionOverwriter, boolean writeInSeparateSheets){
-        super(protocol, captionOverwriter, "PALGAWEB", writeInSeparateSheets);
+    PalgaCodebookWeb(Protocol protocol, CodebookItemSnapshot codebookItemSnapshot, boolean writeInSeparateSheets){
+        super(protocol, codebookItemSnapshot, "PALGAWEB", writeInSeparateSheets);
     }
 
 
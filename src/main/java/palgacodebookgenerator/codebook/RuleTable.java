@@ -0,0 +1,166 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+package palgacodebookgenerator.codebook;
+
+import palgacodebookgenerator.data.rule.RuleExpression;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * table with the rules of a codebook, in which every distinct part of the rules is defined once with an id
+ * (R1, R2, ...). The rows of the codebook refer to the id of their rule instead of repeating its text.
+ * a part is defined by its atoms and the ids of its parts, e.g. [A == true] AND R3. Parts which are joined with the
+ * same operator are taken together, as they do not need brackets. The ids are given in the order in which the
+ * parts are first used and a part is always defined after its own parts, so the table is the same for every run
+ */
+class RuleTable {
+    private final Map<RuleExpression, String> expressionIds = new IdentityHashMap<>();
+    // the same part in different nets is a different object, but has the same definition
+    private final Map<String, String> definitionIds = new HashMap<>();
+    private final List<String> ids = new ArrayList<>();
+    private final List<String> definitions = new ArrayList<>();
+
+    /**
+     * returns the text which refers to a rule: the id of the rule, or the rule itself if it is a single atom
+     * (or empty) and does not need an id
+     * the parts which do not have an id yet are defined first, using a stack rather than recursion, as the rules
+     * of long chains are nested deeply
+     * @param rule    the rule
+     * @return the text which refers to the rule
+     */
+    String getReference(RuleExpression rule){
+        if(rule.isAtom()){
+            return rule.getAtom();
+        }
+        if(!expressionIds.containsKey(rule)){
+            // the rules which are being defined; a rule is defined once all its parts can be referred to
+            Deque<Definition> stack = new ArrayDeque<>();
+            stack.push(new Definition(rule));
+            while(!stack.isEmpty()){
+                RuleExpression part = stack.peek().nextUndefinedPart();
+                if(part != null){
+                    stack.push(new Definition(part));
+                }
+                else{
+                    define(stack.pop());
+                }
+            }
+        }
+        return expressionIds.get(rule);
+    }
+
+    /**
+     * give a rule an id, the id of an earlier rule with the same definition if there is one
+     * @param definition    the rule, all parts of which can be referred to
+     */
+    private void define(Definition definition){
+        List<String> references = new ArrayList<>();
+        for(RuleExpression part:definition.parts){
+            references.add(part.isAtom() ? part.getAtom() : expressionIds.get(part));
+        }
+        String text = String.join(" "+definition.rule.getOperator()+" ", references);
+        String id = definitionIds.get(text);
+        if(id == null){
+            id = "R"+(ids.size()+1);
+            definitionIds.put(text, id);
+            ids.add(id);
+            definitions.add(text);
+        }
+        expressionIds.put(definition.rule, id);
+    }
+
+    /**
+     * returns the ids of the rules, in the order in which they were defined
+     * @return list with the ids
+     */
+    List<String> getIds(){
+        return ids;
+    }
+
+    /**
+     * returns the definitions of the rules, in the same order as the ids
+     * @return list with the definitions
+     */
+    List<String> getDefinitions(){
+        return definitions;
+    }
+
+    /**
+     * a rule which is being defined, with the parts its definition refers to: parts which are joined with the same
+     * operator are taken together
+     */
+    private class Definition {
+        private final RuleExpression rule;
+        private final List<RuleExpression> parts = new ArrayList<>();
+        private int next = 0;
+
+        /**
+         * constructor
+         * @param rule    the rule, which is not an atom
+         */
+        Definition(RuleExpression rule){
+            this.rule = rule;
+            Deque<RuleExpression> stack = new ArrayDeque<>();
+            pushParts(stack, rule);
+            while(!stack.isEmpty()){
+                RuleExpression part = stack.pop();
+                if(!part.isAtom() && part.getOperator().equals(rule.getOperator())){
+                    pushParts(stack, part);
+                }
+                else{
+                    parts.add(part);
+                }
+            }
+        }
+
+        /**
+         * push the parts of a rule, so the first part is on top
+         * @param stack    the stack
+         * @param rule     the rule
+         */
+        private void pushParts(Deque<RuleExpression> stack, RuleExpression rule){
+            for(int i=rule.getParts().size()-1; i>=0; i--){
+                stack.push(rule.getParts().get(i));
+            }
+        }
+
+        /**
+         * returns the next part which does not have an id yet, in the order of the parts
+         * @return the part, null if all parts can be referred to
+         */
+        RuleExpression nextUndefinedPart(){
+            while(next < parts.size()){
+                RuleExpression part = parts.get(next);
+                if(!part.isAtom() && !expressionIds.containsKey(part)){
+                    return part;
+                }
+                next++;
+            }
+            return null;
+        }
+    }
+}
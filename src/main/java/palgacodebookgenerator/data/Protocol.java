@@ -20,26 +20,43 @@
 
 package palgacodebookgenerator.data;
 
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import palgacodebookgenerator.codebook.CodebookItem;
 import palgacodebookgenerator.data.net.Net;
+import palgacodebookgenerator.data.net.NetCache;
 import palgacodebookgenerator.utils.ParseUtils;
+import palgacodebookgenerator.utils.RunStatistics;
 import palgacodebookgenerator.utils.SQLiteUtils;
 
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * PALGA Protocol
  */
 public class Protocol {
+    private static final Logger logger = LogManager.getLogger(Protocol.class.getName());
     // List with nets selected in the wizard
     private List<String> selectedNets = new ArrayList<>();
+    // the workspace database which contains the protocol
+    private String workspace = "";
     private String protocolTablePrefix;
     private String protocolName;
+    // whether the nets are parsed concurrently
+    private boolean parallelParsing = true;
+    // cache with parsed nets, null if the nets are always parsed
+    private NetCache netCache;
 
     private Map<String, List<CodebookItem>> codebookItemMap = new TreeMap<>();
 
@@ -53,7 +70,7 @@ public class Protocol {
      * load additional information about the selected protocol
      */
     public void loadProtocolInfo(){
-        protocolInfo = new ProtocolInfo();
+        protocolInfo = new ProtocolInfo(workspace);
     }
 
     /**
@@ -72,6 +89,22 @@ public class Protocol {
         return protocolInfo.getSmallVersion();
     }
 
+    /**
+     * returns the workspace database which contains the protocol
+     * @return location of the workspace
+     */
+    public String getWorkspace() {
+        return workspace;
+    }
+
+    /**
+     * set the workspace database which contains the protocol
+     * @param workspace    location of the workspace
+     */
+    public void setWorkspace(String workspace) {
+        this.workspace = workspace;
+    }
+
     /**
      * set the table prefix of the protocol as well as the name
      * @param protocolTablePrefix    the name of the protocol
@@ -106,6 +139,30 @@ public class Protocol {
     }
 
 
+    /**
+     * returns whether the nets are parsed concurrently
+     * @return true/false
+     */
+    public boolean isParallelParsing() {
+        return parallelParsing;
+    }
+
+    /**
+     * set whether the nets are parsed concurrently
+     * @param parallelParsing    true/false
+     */
+    public void setParallelParsing(boolean parallelParsing) {
+        this.parallelParsing = parallelParsing;
+    }
+
+    /**
+     * set the cache with parsed nets. Nets which have not changed since they were cached are not parsed again
+     * @param netCache    the cache, null to always parse the nets
+     */
+    public void setNetCache(NetCache netCache) {
+        this.netCache = netCache;
+    }
+
     /**
      * returns the codebookItems map. It the map is empty, fills it first
      * @return the codebookItems map
@@ -117,36 +174,82 @@ public class Protocol {
 
     /**
      * for each net, adds codebookItems to the codebookItemMap
+     * the nets are read from the database one at a time and parsed as they arrive
+     * @throws RuntimeException if the nets cannot be read from the workspace
      */
+    @SuppressWarnings("try")
     private void generateCodebookItems(){
-        List<Net> netList = createNetList();
-        // for each net add its items to the codebookItem Map
-        for(Net net:netList){
-            net.addCodebookItems(codebookItemMap);
+        try {
+            if(parallelParsing && selectedNets.size()>1){
+                generateCodebookItemsParallel();
+            }
+            else {
+                // for each net add its items to the codebookItem Map
+                try (RunStatistics.Stage stage = RunStatistics.current().start(RunStatistics.READ_DATABASE)) {
+                    SQLiteUtils.readLogicNetData(workspace, selectedNets, netData -> createNet(netData).addCodebookItems(codebookItemMap));
+                }
+            }
+        } catch (SQLException e){
+            throw new RuntimeException("Could not read the nets from "+workspace+": "+e.getMessage(), e);
         }
     }
 
     /**
-     * creates Net objects for each Net selected net and return them as a list
-     * @return list with net objects
+     * parses the nets, connects their nodes and extracts the codebook items concurrently on the common
+     * ForkJoin pool, while the next nets are still being read from the database. Each net fills its own map;
+     * the maps are merged afterwards in the order of the nets, so the items for a path end up in the same order as
+     * they would when the nets are processed one by one.
+     * the number of nets waiting to be parsed is limited, so we do not hold the data of all nets at once
+     * @throws SQLException if the nets cannot be read from the workspace
      */
-    private List<Net> createNetList(){
-        SQLiteUtils.openDB();
-        // List with data of the selected nets
-        List<Net> netList = new ArrayList<>();
-
-        // change the list with the selected nets into a string usable by sql and fetch the data from the database
-        String selectedNetsString = selectedNets.stream().map(t-> "'"+t+"'").collect(Collectors.joining(","));
-        List<String> dbNetList = SQLiteUtils.getLogicNetData(selectedNetsString);
+    @SuppressWarnings("try")
+    private void generateCodebookItemsParallel() throws SQLException {
+        // the statistics of the run are passed on to the threads which parse the nets
+        RunStatistics runStatistics = RunStatistics.current();
+        Semaphore netsInProgress = new Semaphore(2*ForkJoinPool.getCommonPoolParallelism());
+        List<CompletableFuture<Map<String, List<CodebookItem>>>> netItemMapFutures = new ArrayList<>();
+        try (RunStatistics.Stage stage = runStatistics.start(RunStatistics.READ_DATABASE)) {
+            SQLiteUtils.readLogicNetData(workspace, selectedNets, netData -> {
+                runStatistics.time(RunStatistics.WAIT_FOR_PARSERS, () -> netsInProgress.acquireUninterruptibly());
+                netItemMapFutures.add(CompletableFuture.supplyAsync(() -> runStatistics.call(() -> createNetItemMap(netData)))
+                        .whenComplete((netItemMap, e) -> netsInProgress.release()));
+            });
+        }
 
-        // create nets for the net-data found in the database and add to the netlist
-        for(String netString:dbNetList){
-            Net net = new Net(netString);
-            netList.add(net);
+        for(CompletableFuture<Map<String, List<CodebookItem>>> netItemMapFuture:netItemMapFutures){
+            Map<String, List<CodebookItem>> netItemMap;
+            try {
+                netItemMap = runStatistics.time(RunStatistics.WAIT_FOR_PARSERS, netItemMapFuture::join);
+            } catch (CompletionException e) {
+                // rethrow the problem of the net itself
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+            runStatistics.time(RunStatistics.COLLECT_ITEMS, () -> {
+                for(Map.Entry<String, List<CodebookItem>> entry:netItemMap.entrySet()){
+                    codebookItemMap.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).addAll(entry.getValue());
+                }
+            });
         }
+    }
+
+    /**
+     * creates the Net for the net data and returns its codebook items
+     * @param netData    the data of the net
+     * @return map with the paths and codebook items of the net
+     */
+    private Map<String, List<CodebookItem>> createNetItemMap(CharSequence netData){
+        Map<String, List<CodebookItem>> netItemMap = new HashMap<>();
+        createNet(netData).addCodebookItems(netItemMap);
+        return netItemMap;
+    }
 
-        SQLiteUtils.closeDB();
-        return netList;
+    /**
+     * creates the Net for the net data, using the net cache if there is one
+     * @param netData    the data of the net
+     * @return the net
+     */
+    private Net createNet(CharSequence netData){
+        return netCache == null ? new Net(netData) : netCache.getNet(netData);
     }
 
     /**
@@ -165,20 +268,25 @@ public class Protocol {
         private String version;
         private String smallVersion;
 
-        ProtocolInfo(){
-            setup();
+        ProtocolInfo(String workspace){
+            setup(workspace);
         }
 
         /**
          * setup for the ProtocolInfo. Retrieves the data from the database
          * based on the projectName and then extracts the version information from it
+         * @param workspace    location of the workspace
          */
-        private void setup(){
-            SQLiteUtils.openDB();
-            String data = SQLiteUtils.doTableSettingsQuery();
+        private void setup(String workspace){
+            String data = "";
+            try {
+                data = SQLiteUtils.doTableSettingsQuery(workspace);
+            } catch (SQLException e){
+                // without the settings the version stays empty; the nets themselves are read later on
+                logger.log(Level.ERROR, "Could not read the settings of "+workspace+": "+e.getMessage());
+            }
             version = ParseUtils.getValue(data, versionPattern);
             setSmallVersion();
-            SQLiteUtils.closeDB();
         }
 
         /**
@@ -24,6 +24,14 @@ import palgacodebookgenerator.codebook.CodebookItem;
 import palgacodebookgenerator.data.node.CodebookNode;
 import palgacodebookgenerator.data.node.Node;
 import palgacodebookgenerator.data.node.NodeFactory;
+import palgacodebookgenerator.data.node.NodeTypeEnum;
+import palgacodebookgenerator.data.parser.LogicNetParser;
+import palgacodebookgenerator.data.parser.LogicNetTable;
+import palgacodebookgenerator.data.rule.RuleDiagram;
+import palgacodebookgenerator.jfr.NetParseEvent;
+import palgacodebookgenerator.jfr.NetRulesEvent;
+import palgacodebookgenerator.utils.ParseUtils;
+import palgacodebookgenerator.utils.RunStatistics;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -39,83 +47,157 @@ import java.util.Map;
 public class Net {
     private static final Logger logger = LogManager.getLogger(Net.class.getName());
     private final Map<String, Node> nodeMap = new HashMap<>();
-    private final List<CodebookNode> codebookNodes = new ArrayList<>();
+    // the nodes in the order in which they were found, without the nodes with a double id
+    private final List<Node> nodeList = new ArrayList<>();
+    private List<CodebookNode> codebookNodes = new ArrayList<>();
     private Node startNode;
 
-    private NetInformation netInformation;
+    private final NetInformation netInformation;
 
     /**
      * constructor
      * @param data    the data for the NET
      */
-    public Net(String data){
-        parseNet(data);
+    public Net(CharSequence data){
+        // split the data, which gives us a list with a node at each position
+        // the entries are views on the data, so the node texts are not copied
+        this(startParseEvent(), ParseUtils.split(data, "\n\n"));
     }
 
     /**
-     * parse a net, transforming it into Nodes
-     * @param data    the data for the NET
+     * constructor
+     * @param parseEvent    the JFR event for parsing the net, which has been started
+     * @param splitData     the data for the NET, split into the net information and the nodes
      */
-    private void parseNet(String data){
-        // split the data, which gives us an array with a node at each position
-        String [] splitString = data.split("\n\n");
-        netInformation = new NetInformation(splitString[0]);
+    private Net(NetParseEvent parseEvent, List<CharSequence> splitData){
+        this(parseNetInformation(splitData), getNodeTypes(splitData), parseNodes(splitData), parseEvent);
+    }
 
-        // create a node for each entry
-        for(int i=1; i<splitString.length; i++) {
-            Node node = NodeFactory.createNode(splitString[i]);
-            if(node.isStartNode()){
-                startNode = node;
-            }
+    /**
+     * constructor for a net which has already been parsed
+     * @param netInformation    the net information
+     * @param nodeTypes         the type of each node
+     * @param nodeTables        the parsed data of each node
+     * @param parseEvent        the JFR event for parsing the net, which has been started
+     */
+    Net(NetInformation netInformation, List<NodeTypeEnum> nodeTypes, List<LogicNetTable> nodeTables, NetParseEvent parseEvent){
+        this.netInformation = netInformation;
+        createNodes(nodeTypes, nodeTables);
+        commitParseEvent(parseEvent, nodeTables.size());
+    }
 
-            // store the node in a map
-            String key = node.getId();
-            if(!nodeMap.containsKey(key)){
-                nodeMap.put(key, node);
-            }
-            else{
-                logger.log(Level.INFO, "Net: "+netInformation.getName()+"\tdouble id found: "+key);
-            }
-        }
-        // connect the nodes, which we need to be able to generate rules
-        if(startNode!=null) {
-            connectNodes(startNode);
+    /**
+     * creates and starts the JFR event for parsing a net
+     * @return the event
+     */
+    static NetParseEvent startParseEvent(){
+        NetParseEvent parseEvent = new NetParseEvent();
+        parseEvent.begin();
+        return parseEvent;
+    }
+
+    /**
+     * commit the JFR event for parsing this net, if it is recorded
+     * @param parseEvent    the event
+     * @param nodeCount     the number of nodes of the net
+     */
+    private void commitParseEvent(NetParseEvent parseEvent, int nodeCount){
+        parseEvent.end();
+        if(parseEvent.shouldCommit()){
+            parseEvent.netName = netInformation.getName();
+            parseEvent.nodeCount = nodeCount;
+            parseEvent.codebookNodeCount = codebookNodes.size();
+            parseEvent.commit();
         }
     }
 
     /**
-     * find all the nodes that are reachable from the startNode. Others are in a side net and
-     * can be ignored (discussed with PALGA)
-     * recursive function
-     * determine whether the nodes are codebook nodes
-     * add parents, which we need to add the rule information to the reports
-     * @param node    the current node
+     * parse the net information, which is the first entry of the data
+     * @param splitData    the data for the NET, split into the net information and the nodes
+     * @return the net information
+     */
+    static NetInformation parseNetInformation(List<CharSequence> splitData){
+        return new NetInformation(LogicNetParser.parse(splitData.get(0)));
+    }
+
+    /**
+     * returns the type of each node
+     * @param splitData    the data for the NET, split into the net information and the nodes
+     * @return list with the node types
      */
-    private void connectNodes(Node node){
-        node.setConnected();
-        // check whether this node is a codebooknode and if it is, add it to the codebooknode list
-        if(node.isCodebookNode()){
-            codebookNodes.add((CodebookNode) node);
+    static List<NodeTypeEnum> getNodeTypes(List<CharSequence> splitData){
+        List<NodeTypeEnum> nodeTypes = new ArrayList<>();
+        for(int i=1; i<splitData.size(); i++) {
+            nodeTypes.add(NodeFactory.getNodeType(splitData.get(i)));
         }
+        return nodeTypes;
+    }
 
-        // find the target nodes of our current node
-        List<String> outputTargets = node.getOutputTargets();
-        for(String target:outputTargets){
-            if(!target.equalsIgnoreCase("")) {
-                // if there is a target node, fetch it from the nodemap
-                Node targetNode = nodeMap.get(target);
-                // if our current node is a node that may contribute Rule information, add it to the targetNode
-                if (node.isRuleContributorNode()) {
-                    targetNode.addPreviousRuleNode(node);
+    /**
+     * parse the data of each node
+     * @param splitData    the data for the NET, split into the net information and the nodes
+     * @return list with the parsed data of the nodes
+     */
+    static List<LogicNetTable> parseNodes(List<CharSequence> splitData){
+        RunStatistics runStatistics = RunStatistics.current();
+        List<LogicNetTable> nodeTables = new ArrayList<>();
+        runStatistics.time(RunStatistics.PARSE_NODES, () -> {
+            for(int i=1; i<splitData.size(); i++) {
+                nodeTables.add(LogicNetParser.parse(splitData.get(i)));
+            }
+        });
+        runStatistics.count(RunStatistics.NETS_PARSED, 1);
+        runStatistics.count(RunStatistics.NODES_PARSED, nodeTables.size());
+        return nodeTables;
+    }
+
+    /**
+     * transform the parsed data into Nodes
+     * @param nodeTypes     the type of each node
+     * @param nodeTables    the parsed data of each node
+     */
+    private void createNodes(List<NodeTypeEnum> nodeTypes, List<LogicNetTable> nodeTables){
+        // create a node for each entry
+        RunStatistics.current().time(RunStatistics.CREATE_NODES, () -> {
+            for(int i=0; i<nodeTables.size(); i++) {
+                Node node = NodeFactory.createNode(nodeTypes.get(i), nodeTables.get(i));
+                if(node.isStartNode()){
+                    startNode = node;
+                }
+
+                // store the node in a map
+                String key = node.getId();
+                if(!nodeMap.containsKey(key)){
+                    nodeMap.put(key, node);
+                    nodeList.add(node);
                 }
-                // if we haven't visited the target node yet, go there
-                if(!targetNode.isConnected()) {
-                    connectNodes(targetNode);
+                else{
+                    logger.log(Level.INFO, "Net: "+netInformation.getName()+"\tdouble id found: "+key);
                 }
             }
+        });
+        // connect the nodes, which we need to be able to generate rules
+        if(startNode!=null) {
+            RunStatistics.current().time(RunStatistics.CONNECT_GRAPH, this::connectNodes);
         }
     }
 
+    /**
+     * build the graph of the net and find all the nodes that are reachable from the startNode
+     * this determines the codebook nodes and adds the parents, which we need to add the rule
+     * information to the reports
+     */
+    private void connectNodes(){
+        // the start node may have a double id, in which case it is not in the list yet
+        int startIndex = nodeList.indexOf(startNode);
+        if(startIndex<0){
+            nodeList.add(startNode);
+            startIndex = nodeList.size()-1;
+        }
+        NetGraph netGraph = new NetGraph(netInformation.getName(), nodeList, nodeMap);
+        codebookNodes = netGraph.connect(startIndex, new RuleDiagram());
+    }
+
     /**
      * add data to the itemMap
      * the map contains the path (variable name) as key and a list of codebook items as values
@@ -123,6 +205,26 @@ public class Net {
      * @param itemMap    map further filled with paths and their codebook items
      */
     public void addCodebookItems(Map<String, List<CodebookItem>> itemMap){
+        RunStatistics runStatistics = RunStatistics.current();
+        NetRulesEvent rulesEvent = new NetRulesEvent();
+        rulesEvent.begin();
+        int numberOfItems = runStatistics.time(RunStatistics.DERIVE_RULES, () -> addCodebookItemsOfNodes(itemMap));
+        runStatistics.count(RunStatistics.ITEMS_EXTRACTED, numberOfItems);
+        rulesEvent.end();
+        if(rulesEvent.shouldCommit()){
+            rulesEvent.netName = netInformation.getName();
+            rulesEvent.itemCount = numberOfItems;
+            rulesEvent.commit();
+        }
+    }
+
+    /**
+     * add the codebook items of the codebook nodes to the itemMap
+     * @param itemMap    map further filled with paths and their codebook items
+     * @return the number of codebook items which were added
+     */
+    private int addCodebookItemsOfNodes(Map<String, List<CodebookItem>> itemMap){
+        int numberOfItems = 0;
         // for each codebook node in this net
         for(CodebookNode codebookNode:codebookNodes){
             // get a list which contains codebookitems for this node. Has to be a list, as a Parts entry can contain multiple paths (concept names)
@@ -140,6 +242,8 @@ public class Net {
                 List<CodebookItem> tmpList = itemMap.get(path);
                 tmpList.add(codebookItem);
             }
+            numberOfItems += codebookItemList.size();
         }
+        return numberOfItems;
     }
 }
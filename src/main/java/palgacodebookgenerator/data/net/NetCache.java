@@ -0,0 +1,263 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.data.net;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import palgacodebookgenerator.data.node.NodeTypeEnum;
+import palgacodebookgenerator.data.parser.LogicNetTable;
+import palgacodebookgenerator.jfr.NetParseEvent;
+import palgacodebookgenerator.utils.ParseUtils;
+import palgacodebookgenerator.utils.RunStatistics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * persistent cache of parsed nets
+ * the parsed data of the nodes of a net (and the type of each node, which decides whether it is a form, a rule
+ * contributor, etc.) is stored in a compressed binary file per net. A file is only used when the workspace, name,
+ * version, stamp and a hash of the data of the net match the ones stored in it, so a changed net is parsed again
+ * and its file replaced, also when the net has no version or stamp.
+ * Nets read from the cache skip the parsing and go straight to creating the nodes and extracting the items
+ * every workspace has a directory of its own in the cache. Files which have not been used for MAX_AGE_DAYS are
+ * removed by prune, together with the directories of workspaces which are no longer used
+ */
+public class NetCache {
+    private static final Logger logger = LogManager.getLogger(NetCache.class.getName());
+    private static final int MAGIC = 0x504E4554;
+    // increase when the format of the file or of the parsed data changes
+    private static final int FORMAT_VERSION = 2;
+    // number of days after which a file which has not been used is removed from the cache
+    public static final int MAX_AGE_DAYS = 30;
+
+    private final Path netCacheDir;
+    private final String workspace;
+
+    /**
+     * constructor
+     * @param cacheDir     directory of the cache
+     * @param workspace    the workspace database from which the nets are read
+     */
+    public NetCache(String cacheDir, String workspace){
+        this.workspace = new File(workspace).getAbsolutePath();
+        this.netCacheDir = Paths.get(cacheDir, Integer.toHexString(this.workspace.hashCode()));
+    }
+
+    /**
+     * returns the default directory of the cache, in the home directory of the user
+     * @return the default directory of the cache
+     */
+    public static String getDefaultCacheDir(){
+        return Paths.get(System.getProperty("user.home"), ".palgacodebookgenerator", "netcache").toString();
+    }
+
+    /**
+     * remove the files which have not been used for MAX_AGE_DAYS days from the cache, of every workspace, and the
+     * directories of the workspaces which are left empty
+     * @param cacheDir    directory of the cache
+     */
+    public static void prune(String cacheDir){
+        long oldest = System.currentTimeMillis()-TimeUnit.DAYS.toMillis(MAX_AGE_DAYS);
+        int removed = 0;
+        try (DirectoryStream<Path> workspaceDirs = Files.newDirectoryStream(Paths.get(cacheDir), Files::isDirectory)){
+            for(Path workspaceDir:workspaceDirs){
+                try (DirectoryStream<Path> cacheFiles = Files.newDirectoryStream(workspaceDir, "*.{net,tmp}")){
+                    for(Path cacheFile:cacheFiles){
+                        if(Files.getLastModifiedTime(cacheFile).toMillis() < oldest && Files.deleteIfExists(cacheFile)){
+                            removed++;
+                        }
+                    }
+                }
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(workspaceDir)){
+                    if(!files.iterator().hasNext()){
+                        Files.deleteIfExists(workspaceDir);
+                    }
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // no cache yet
+        } catch (IOException e) {
+            logger.log(Level.INFO, "Could not clean up the net cache "+cacheDir+": "+e.getMessage());
+        }
+        if(removed>0){
+            logger.log(Level.INFO, "Removed "+removed+" net(s) which were not used for "+MAX_AGE_DAYS+" days from the net cache");
+        }
+    }
+
+    /**
+     * returns the net for the data, from the cache if possible. Nets which are parsed are added to the cache
+     * @param data    the data for the NET
+     * @return the net
+     */
+    public Net getNet(CharSequence data){
+        NetParseEvent parseEvent = Net.startParseEvent();
+        List<CharSequence> splitData = ParseUtils.split(data, "\n\n");
+        NetInformation netInformation = Net.parseNetInformation(splitData);
+        Path cacheFile = getCacheFile(netInformation);
+        long dataHash = hash(data);
+
+        List<NodeTypeEnum> nodeTypes = new ArrayList<>();
+        List<LogicNetTable> nodeTables = new ArrayList<>();
+        boolean cached = RunStatistics.current().time(RunStatistics.READ_NET_CACHE,
+                () -> Files.exists(cacheFile) && read(cacheFile, netInformation, dataHash, nodeTypes, nodeTables));
+        if(cached){
+            touch(cacheFile);
+            RunStatistics.current().count(RunStatistics.NETS_FROM_CACHE, 1);
+            parseEvent.fromCache = true;
+            return new Net(netInformation, nodeTypes, nodeTables, parseEvent);
+        }
+
+        List<NodeTypeEnum> parsedNodeTypes = Net.getNodeTypes(splitData);
+        List<LogicNetTable> parsedNodeTables = Net.parseNodes(splitData);
+        RunStatistics.current().time(RunStatistics.WRITE_NET_CACHE,
+                () -> write(cacheFile, netInformation, dataHash, parsedNodeTypes, parsedNodeTables));
+        return new Net(netInformation, parsedNodeTypes, parsedNodeTables, parseEvent);
+    }
+
+    /**
+     * returns the cache file of a net
+     * @param netInformation    the net information
+     * @return the cache file
+     */
+    private Path getCacheFile(NetInformation netInformation){
+        String name = netInformation.getName();
+        String fileName = name.replaceAll("[^A-Za-z0-9_.-]", "_")+"_"+Integer.toHexString(name.hashCode())+".net";
+        return netCacheDir.resolve(fileName);
+    }
+
+    /**
+     * returns a 64-bit FNV-1a hash of the data of a net, which identifies the contents of the net in its cache file
+     * @param data    the data for the NET
+     * @return the hash
+     */
+    private static long hash(CharSequence data){
+        long hash = 0xcbf29ce484222325L;
+        for(int i=0; i<data.length(); i++){
+            hash = (hash ^ data.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * mark a cache file as used, so it is not removed by prune
+     * @param cacheFile    the cache file
+     */
+    private static void touch(Path cacheFile){
+        try {
+            Files.setLastModifiedTime(cacheFile, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // the file is removed a bit earlier, which only costs a parse
+        }
+    }
+
+    /**
+     * read the parsed nodes of a net from its cache file
+     * @param cacheFile         the cache file
+     * @param netInformation    the net information, which must match the information in the file
+     * @param dataHash          the hash of the data of the net, which must match the hash in the file
+     * @param nodeTypes         list to which the type of each node is added
+     * @param nodeTables        list to which the parsed data of each node is added
+     * @return true if the nodes were read, false if the file is outdated or could not be read
+     */
+    private boolean read(Path cacheFile, NetInformation netInformation, long dataHash, List<NodeTypeEnum> nodeTypes, List<LogicNetTable> nodeTables){
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(cacheFile))))){
+            if(in.readInt()!=MAGIC || in.readInt()!=FORMAT_VERSION ||
+                    !in.readUTF().equals(workspace) ||
+                    !in.readUTF().equals(netInformation.getName()) ||
+                    !in.readUTF().equals(netInformation.getVersion()) ||
+                    !in.readUTF().equals(netInformation.getStamp()) ||
+                    in.readLong()!=dataHash){
+                return false;
+            }
+            int size = in.readInt();
+            for(int i=0; i<size; i++){
+                nodeTypes.add(NodeTypeEnum.valueOf(in.readUTF()));
+                nodeTables.add(LogicNetTable.read(in));
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.INFO, "Net: "+netInformation.getName()+"\tcould not read the cached net, parsing it instead: "+e.getMessage());
+            nodeTypes.clear();
+            nodeTables.clear();
+            return false;
+        }
+    }
+
+    /**
+     * write the parsed nodes of a net to its cache file
+     * the file is written under a temporary name and then moved, so a file is never read while it is written
+     * @param cacheFile         the cache file
+     * @param netInformation    the net information
+     * @param dataHash          the hash of the data of the net
+     * @param nodeTypes         the type of each node
+     * @param nodeTables        the parsed data of each node
+     */
+    private void write(Path cacheFile, NetInformation netInformation, long dataHash, List<NodeTypeEnum> nodeTypes, List<LogicNetTable> nodeTables){
+        Path tmpFile = null;
+        try {
+            Files.createDirectories(netCacheDir);
+            tmpFile = Files.createTempFile(netCacheDir, "net", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmpFile))))){
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(workspace);
+                out.writeUTF(netInformation.getName());
+                out.writeUTF(netInformation.getVersion());
+                out.writeUTF(netInformation.getStamp());
+                out.writeLong(dataHash);
+                out.writeInt(nodeTables.size());
+                for(int i=0; i<nodeTables.size(); i++){
+                    out.writeUTF(nodeTypes.get(i).name());
+                    nodeTables.get(i).write(out);
+                }
+            }
+            Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.log(Level.INFO, "Net: "+netInformation.getName()+"\tcould not write the net to the cache: "+e.getMessage());
+            if(tmpFile != null){
+                try {
+                    Files.deleteIfExists(tmpFile);
+                } catch (IOException ignored) {
+                    // nothing we can do about it
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,371 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.data.net;
+
+import palgacodebookgenerator.data.node.CodebookNode;
+import palgacodebookgenerator.data.node.Node;
+import palgacodebookgenerator.data.rule.RuleDiagram;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * compact representation of the graph of a NET
+ * every node gets a dense index; the targets of the nodes are stored in CSR style arrays:
+ * the targets of node i are edgeTargets[edgeStart[i]] up to edgeTargets[edgeStart[i+1]]
+ */
+class NetGraph {
+    private static final Logger logger = LogManager.getLogger(NetGraph.class.getName());
+    // entry dominator of a node which is always entered
+    private static final int ALWAYS_ENTERED = -2;
+
+    private final String netName;
+    private final Node [] nodes;
+    private final int [] edgeStart;
+    private final int [] edgeTargets;
+    private final BitSet ruleContributors;
+    // nodes with an output that does not lead to a node of the net
+    private final BitSet openEnded;
+    private final BitSet connected;
+
+    /**
+     * constructor, builds the graph
+     * @param netName    the name of the net, used for feedback
+     * @param nodeList   the nodes of the net; the position in the list becomes the index of the node
+     * @param nodeMap    map with the id and the node that should be used when a target refers to the id
+     */
+    NetGraph(String netName, List<Node> nodeList, Map<String, Node> nodeMap){
+        this.netName = netName;
+        int size = nodeList.size();
+        nodes = nodeList.toArray(new Node[size]);
+        edgeStart = new int[size+1];
+        ruleContributors = new BitSet(size);
+        openEnded = new BitSet(size);
+        connected = new BitSet(size);
+
+        // index of the nodes
+        Map<Node, Integer> indexMap = new HashMap<>();
+        for(int i=0; i<size; i++){
+            indexMap.put(nodes[i], i);
+        }
+
+        // resolve the targets of each node once
+        List<Integer> targets = new ArrayList<>();
+        for(int i=0; i<size; i++){
+            edgeStart[i] = targets.size();
+            if(nodes[i].isRuleContributorNode()){
+                ruleContributors.set(i);
+            }
+            for(String target:nodes[i].getOutputTargets()){
+                if(!target.equalsIgnoreCase("")) {
+                    Node targetNode = nodeMap.get(target);
+                    if(targetNode != null) {
+                        targets.add(indexMap.get(targetNode));
+                    }
+                    else{
+                        logger.log(Level.INFO, "Net: "+netName+"\tnode "+nodes[i].getId()+" has unknown target: "+target);
+                    }
+                }
+            }
+            if(targets.size()-edgeStart[i] < nodes[i].getOutputTargets().size()){
+                openEnded.set(i);
+            }
+        }
+        edgeStart[size] = targets.size();
+        edgeTargets = targets.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * find all the nodes that are reachable from the node. Others are in a side net and
+     * can be ignored (discussed with PALGA)
+     * depth first, using an explicit stack; the nodes are visited and linked in the same order as
+     * a recursive depth first search would do
+     * determine whether the nodes are codebook nodes
+     * add parents, which we need to add the rule information to the reports
+     * the nodes which are found share the rule diagram in which their rules are derived; the rules of all of them
+     * are derived before returning
+     * @param startIndex     index of the node where we start
+     * @param ruleDiagram    the rule diagram of the net
+     * @return the codebook nodes in the order in which they were found
+     */
+    List<CodebookNode> connect(int startIndex, RuleDiagram ruleDiagram){
+        List<CodebookNode> codebookNodes = new ArrayList<>();
+        // for each level of the stack, the node and the position of the next target to visit
+        int [] stackNodes = new int[nodes.length];
+        int [] stackEdges = new int[nodes.length];
+        int top = 0;
+
+        visit(startIndex, codebookNodes, ruleDiagram);
+        stackNodes[0] = startIndex;
+        stackEdges[0] = edgeStart[startIndex];
+
+        while(top>=0){
+            int current = stackNodes[top];
+            if(stackEdges[top] < edgeStart[current+1]){
+                int target = edgeTargets[stackEdges[top]++];
+                // if our current node is a node that may contribute Rule information, add it to the targetNode
+                if(ruleContributors.get(current)){
+                    nodes[target].addPreviousRuleNode(nodes[current]);
+                }
+                // if we haven't visited the target node yet, go there
+                if(!connected.get(target)){
+                    visit(target, codebookNodes, ruleDiagram);
+                    top++;
+                    stackNodes[top] = target;
+                    stackEdges[top] = edgeStart[target];
+                }
+            }
+            else{
+                top--;
+            }
+        }
+        deriveRules(ruleDiagram, findEntryDominators());
+        return codebookNodes;
+    }
+
+    /**
+     * derive the rules that lead to each node, in topological order, so the rules of the parents of a node are
+     * always known before those of the node itself. The rule contributors of a cycle (e.g. a repeated sample) are
+     * taken together as a single node: they are all entered when the cycle is entered from outside
+     * the nodes which do not contribute rules come last, as they do not lead to other rules
+     * @param ruleDiagram        the rule diagram of the net
+     * @param entryDominators    the entry dominator of each node, see findEntryDominators
+     */
+    private void deriveRules(RuleDiagram ruleDiagram, int [] entryDominators){
+        int [] entryRules = new int[nodes.length];
+        for(int [] component:findRuleComponents()){
+            deriveRules(component, ruleDiagram, entryDominators, entryRules);
+        }
+        for(int node = connected.nextSetBit(0); node >= 0; node = connected.nextSetBit(node+1)){
+            if(!ruleContributors.get(node)){
+                deriveRules(new int[]{node}, ruleDiagram, entryDominators, entryRules);
+            }
+        }
+    }
+
+    /**
+     * derive the rules that lead to the nodes of a strongly connected component, a single node or a cycle
+     * if a rule contributor decides whether a single node is entered, these are the rules that lead to that
+     * contributor; otherwise they are the rules of the parents outside the component joined with OR. Without such
+     * parents, the nodes are always entered
+     * @param component          the nodes of the component
+     * @param ruleDiagram        the rule diagram of the net
+     * @param entryDominators    the entry dominator of each node
+     * @param entryRules         the rules that lead to each node, filled in for the nodes of the component
+     */
+    private void deriveRules(int [] component, RuleDiagram ruleDiagram, int [] entryDominators, int [] entryRules){
+        int rules;
+        int dominator = component.length == 1 ? entryDominators[component[0]] : RuleDominators.NONE;
+        if(dominator != RuleDominators.NONE){
+            rules = dominator == ALWAYS_ENTERED ? RuleDiagram.TRUE : entryRules[dominator];
+        }
+        else {
+            Set<Node> cycle = Collections.emptySet();
+            if(component.length > 1 || hasEdge(component[0], component[0])){
+                cycle = new HashSet<>();
+                for(int node:component){
+                    cycle.add(nodes[node]);
+                }
+                logger.log(Level.INFO, "Net: "+netName+"\trule cycle through "+component.length+" node(s) ("+getIds(component)+"), the rules inside the cycle are ignored");
+            }
+            Integer parentRules = null;
+            for(int node:component){
+                Integer nodeRules = nodes[node].getParentRules(cycle);
+                if(nodeRules != null){
+                    parentRules = parentRules == null ? nodeRules : ruleDiagram.or(parentRules, nodeRules);
+                }
+            }
+            rules = parentRules == null ? RuleDiagram.TRUE : parentRules;
+        }
+        for(int node:component){
+            entryRules[node] = rules;
+            nodes[node].setEntryRules(rules);
+        }
+    }
+
+    /**
+     * find the strongly connected components of the rule contributors which are connected, using the edges
+     * between them (Tarjan's algorithm, with an explicit stack)
+     * @return the components in topological order, each with its nodes in the order of the net
+     */
+    private List<int []> findRuleComponents(){
+        int size = nodes.length;
+        int [] order = new int[size];
+        Arrays.fill(order, -1);
+        int [] lowLink = new int[size];
+        BitSet onStack = new BitSet(size);
+        int [] componentStack = new int[size];
+        int componentTop = 0;
+        int [] stackNodes = new int[size];
+        int [] stackEdges = new int[size];
+        int counter = 0;
+        List<int []> components = new ArrayList<>();
+        // the nodes and their targets are visited last to first, so the topological order keeps them in their order
+
+        for(int start = ruleContributors.previousSetBit(size-1); start >= 0; start = ruleContributors.previousSetBit(start-1)){
+            if(!connected.get(start) || order[start] != -1){
+                continue;
+            }
+            int top = 0;
+            stackNodes[0] = start;
+            stackEdges[0] = edgeStart[start+1];
+            order[start] = lowLink[start] = counter++;
+            componentStack[componentTop++] = start;
+            onStack.set(start);
+
+            while(top>=0){
+                int current = stackNodes[top];
+                if(stackEdges[top] > edgeStart[current]){
+                    int target = edgeTargets[--stackEdges[top]];
+                    if(!ruleContributors.get(target)){
+                        continue;
+                    }
+                    if(order[target] == -1){
+                        order[target] = lowLink[target] = counter++;
+                        componentStack[componentTop++] = target;
+                        onStack.set(target);
+                        top++;
+                        stackNodes[top] = target;
+                        stackEdges[top] = edgeStart[target+1];
+                    }
+                    else if(onStack.get(target)){
+                        lowLink[current] = Math.min(lowLink[current], order[target]);
+                    }
+                }
+                else{
+                    // all targets are done; if nothing below leads back further, the node closes a component
+                    if(lowLink[current] == order[current]){
+                        int componentBottom = componentTop;
+                        do {
+                            onStack.clear(componentStack[--componentBottom]);
+                        } while(componentStack[componentBottom] != current);
+                        int [] component = Arrays.copyOfRange(componentStack, componentBottom, componentTop);
+                        Arrays.sort(component);
+                        components.add(component);
+                        componentTop = componentBottom;
+                    }
+                    top--;
+                    if(top>=0){
+                        lowLink[stackNodes[top]] = Math.min(lowLink[stackNodes[top]], lowLink[current]);
+                    }
+                }
+            }
+        }
+        // a component is found after all components it leads to
+        Collections.reverse(components);
+        return components;
+    }
+
+    /**
+     * returns whether a node leads to another node
+     * @param from    index of the first node
+     * @param to      index of the second node
+     * @return true/false
+     */
+    private boolean hasEdge(int from, int to){
+        for(int edge=edgeStart[from]; edge<edgeStart[from+1]; edge++){
+            if(edgeTargets[edge] == to){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * returns the ids of nodes, for feedback. Only the first ten are given
+     * @param indices    indices of the nodes
+     * @return the ids, separated by a comma
+     */
+    private String getIds(int [] indices){
+        List<String> ids = new ArrayList<>();
+        for(int i=0; i<Math.min(indices.length, 10); i++){
+            ids.add(nodes[indices[i]].getId());
+        }
+        if(indices.length > 10){
+            ids.add("...");
+        }
+        return String.join(", ", ids);
+    }
+
+    /**
+     * find the nodes which are entered exactly when a rule contributor before them is entered, because every
+     * path from that contributor leads to them. Their rules are the rules which lead to that contributor, so the
+     * decisions in between, which reconverge, do not have to be derived
+     * @return for each node the index of that contributor, ALWAYS_ENTERED if the node is always entered or
+     * RuleDominators.NONE if there is no such contributor
+     */
+    private int [] findEntryDominators(){
+        RuleDominators ruleDominators = new RuleDominators(nodes.length);
+        BitSet hasRuleParent = new BitSet(nodes.length);
+        for(int node = connected.nextSetBit(0); node >= 0; node = connected.nextSetBit(node+1)){
+            if(ruleContributors.get(node)){
+                for(int edge=edgeStart[node]; edge<edgeStart[node+1]; edge++){
+                    ruleDominators.addEdge(node, edgeTargets[edge]);
+                    hasRuleParent.set(edgeTargets[edge]);
+                }
+                if(openEnded.get(node) || edgeStart[node] == edgeStart[node+1] || nodes[node].canFollowNoOutput()){
+                    ruleDominators.addExit(node);
+                }
+            }
+            else{
+                ruleDominators.addExit(node);
+            }
+        }
+        for(int node = connected.nextSetBit(0); node >= 0; node = connected.nextSetBit(node+1)){
+            if(ruleContributors.get(node) && !hasRuleParent.get(node)){
+                ruleDominators.addEntry(node);
+            }
+        }
+
+        int [] entryDominators = ruleDominators.getEntryDominators();
+        for(int node=0; node<entryDominators.length; node++){
+            if(entryDominators[node] == ruleDominators.getEntry()){
+                entryDominators[node] = ALWAYS_ENTERED;
+            }
+        }
+        return entryDominators;
+    }
+
+    /**
+     * marks the node as connected and adds it to the codebook node list if it is a codebook node
+     * @param index            index of the node
+     * @param codebookNodes    list with the codebook nodes found so far
+     * @param ruleDiagram      the rule diagram of the net
+     */
+    private void visit(int index, List<CodebookNode> codebookNodes, RuleDiagram ruleDiagram){
+        connected.set(index);
+        nodes[index].setRuleDiagram(ruleDiagram);
+        if(nodes[index].isCodebookNode()){
+            codebookNodes.add((CodebookNode) nodes[index]);
+        }
+    }
+}
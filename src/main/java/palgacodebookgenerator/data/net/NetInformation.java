@@ -20,44 +20,35 @@
 
 package palgacodebookgenerator.data.net;
 
-import palgacodebookgenerator.utils.ParseUtils;
-
-import java.util.regex.Pattern;
+import palgacodebookgenerator.data.parser.LogicNetTable;
 
 /**
  * class for net information: first entry in a Net is special and contains net information
  */
 class NetInformation {
-    private static final Pattern namePattern = ParseUtils.getStringPattern("name");
-    private static final Pattern versionPattern = ParseUtils.getIntPattern("version");
-    private static final Pattern stampPattern = ParseUtils.getIntPattern("stamp");
-
     private String name="";
     private String version="";
     private String stamp="";
 
     /**
      * constructor
-     * @param data    NET data which contains the information we need
+     * @param data    parsed NET data which contains the information we need
      */
-    NetInformation(String data){
+    NetInformation(LogicNetTable data){
         addNodeData(data);
     }
 
     /**
      * parse the add the data to set the values of interest
-     * @param data    NET data which contains the information we need
+     * @param data    parsed NET data which contains the information we need
      */
-    private void addNodeData(String data) {
+    private void addNodeData(LogicNetTable data) {
         // Apparently this part can also contain a datamodel element, which also has a name and a version
-        // Remove it from the String if it's there.
-        String datamodel = ParseUtils.getElementData(data, "datamodel");
-        if(!datamodel.equalsIgnoreCase("")) {
-            data = data.replace(datamodel, "datamodel=\n");
-        }
-        name = ParseUtils.getValue(data, namePattern);
-        version = ParseUtils.getValue(data, versionPattern);
-        stamp = ParseUtils.getValue(data, stampPattern);
+        // Remove it from the tree if it's there.
+        data.remove("datamodel");
+        name = data.getString("name");
+        version = data.getWord("version");
+        stamp = data.getWord("stamp");
     }
 
     /**
@@ -75,4 +66,12 @@ class NetInformation {
     public String getVersion() {
         return version;
     }
+
+    /**
+     * returns the stamp of the net, which changes whenever the net is saved
+     * @return the stamp of the net
+     */
+    public String getStamp() {
+        return stamp;
+    }
 }
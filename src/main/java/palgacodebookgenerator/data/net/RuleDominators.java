@@ -0,0 +1,271 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+package palgacodebookgenerator.data.net;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * dominators and post-dominators of the rule graph of a net
+ * the rule graph has an edge from every rule contributor to each of its targets. A virtual entry leads to the rule
+ * contributors without rule contributing parents, whose rules are always entered, and every node where the rules
+ * stop (a node which does not contribute rules, a rule contributor with an output that leads nowhere, or a rule
+ * contributor which may follow none of its outputs, e.g. a rule node without a false output) leads to a virtual exit.
+ * a node is dominated by a rule contributor when every path from the entry to the node passes through it, and
+ * post-dominates it when every path from the contributor to the exit passes through the node. When a node
+ * post-dominates its closest dominator, every decision in between is reconverging: the node is entered exactly when
+ * the dominator is entered, and the decisions in between do not control it.
+ */
+class RuleDominators {
+    // value of a node which is not entered whenever a single other node is entered
+    static final int NONE = -1;
+
+    private final int size;
+    private final int entry;
+    private final int exit;
+    private final List<List<Integer>> successors = new ArrayList<>();
+    private final List<List<Integer>> predecessors = new ArrayList<>();
+
+    /**
+     * constructor
+     * @param size    the number of nodes of the net; the virtual entry and exit are added after them
+     */
+    RuleDominators(int size){
+        this.size = size;
+        this.entry = size;
+        this.exit = size+1;
+        for(int i=0; i<size+2; i++){
+            successors.add(new ArrayList<>());
+            predecessors.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * returns the number which stands for the virtual entry
+     * @return the virtual entry
+     */
+    int getEntry(){
+        return entry;
+    }
+
+    /**
+     * add an edge from a rule contributor to one of its targets
+     * @param from    the rule contributor
+     * @param to      the target
+     */
+    void addEdge(int from, int to){
+        successors.get(from).add(to);
+        predecessors.get(to).add(from);
+    }
+
+    /**
+     * add a rule contributor whose rules are always entered
+     * @param node    the rule contributor
+     */
+    void addEntry(int node){
+        addEdge(entry, node);
+    }
+
+    /**
+     * add a node where the rules stop
+     * @param node    the node
+     */
+    void addExit(int node){
+        addEdge(node, exit);
+    }
+
+    /**
+     * for each node, find the node which decides whether it is entered
+     * @return for each node of the net, the rule contributor which is entered exactly when the node is entered,
+     * the virtual entry if the node is always entered, or NONE
+     */
+    int [] getEntryDominators(){
+        int [] dominators = getDominators(entry, successors, predecessors);
+        int [] postDominators = getDominators(exit, predecessors, successors);
+        int [][] postDominatorOrder = getTreeOrder(postDominators);
+
+        int [] entryDominators = new int[size];
+        Arrays.fill(entryDominators, NONE);
+        for(int node=0; node<size; node++){
+            int dominator = dominators[node];
+            if(dominator != NONE && postDominators[dominator] != NONE && postDominators[node] != NONE &&
+                    isAncestor(postDominatorOrder, node, dominator)){
+                entryDominators[node] = dominator;
+            }
+        }
+        return entryDominators;
+    }
+
+    /**
+     * returns the immediate dominator of each node, with the iterative algorithm of Cooper, Harvey and Kennedy
+     * used for the post-dominators as well, by starting at the exit and swapping the successors and predecessors
+     * @param start           the node where all paths start
+     * @param successors      the successors of each node
+     * @param predecessors    the predecessors of each node
+     * @return the immediate dominator of each node, the start for the start itself, or NONE if the node is not
+     * reached from the start
+     */
+    private int [] getDominators(int start, List<List<Integer>> successors, List<List<Integer>> predecessors){
+        int [] order = getReversePostOrder(start, successors);
+        int [] orderIndex = new int[size+2];
+        Arrays.fill(orderIndex, NONE);
+        for(int i=0; i<order.length; i++){
+            orderIndex[order[i]] = i;
+        }
+
+        int [] dominators = new int[size+2];
+        Arrays.fill(dominators, NONE);
+        dominators[start] = start;
+        boolean changed = true;
+        while(changed){
+            changed = false;
+            for(int i=1; i<order.length; i++){
+                int node = order[i];
+                int newDominator = NONE;
+                for(int predecessor:predecessors.get(node)){
+                    if(dominators[predecessor] != NONE){
+                        newDominator = newDominator == NONE ? predecessor : intersect(predecessor, newDominator, dominators, orderIndex);
+                    }
+                }
+                if(dominators[node] != newDominator){
+                    dominators[node] = newDominator;
+                    changed = true;
+                }
+            }
+        }
+        return dominators;
+    }
+
+    /**
+     * returns the closest common dominator of two nodes
+     * @param node1         first node
+     * @param node2         second node
+     * @param dominators    the dominators found so far
+     * @param orderIndex    the position of each node in the reverse post order
+     * @return the common dominator
+     */
+    private static int intersect(int node1, int node2, int [] dominators, int [] orderIndex){
+        while(node1 != node2){
+            while(orderIndex[node1] > orderIndex[node2]){
+                node1 = dominators[node1];
+            }
+            while(orderIndex[node2] > orderIndex[node1]){
+                node2 = dominators[node2];
+            }
+        }
+        return node1;
+    }
+
+    /**
+     * returns the nodes reached from the start in reverse post order, using an explicit stack
+     * @param start         the start
+     * @param successors    the successors of each node
+     * @return the nodes in reverse post order
+     */
+    private int [] getReversePostOrder(int start, List<List<Integer>> successors){
+        boolean [] visited = new boolean[size+2];
+        int [] stackNodes = new int[size+2];
+        int [] stackEdges = new int[size+2];
+        int [] postOrder = new int[size+2];
+        int count = 0;
+        int top = 0;
+        stackNodes[0] = start;
+        visited[start] = true;
+        while(top >= 0){
+            int node = stackNodes[top];
+            if(stackEdges[top] < successors.get(node).size()){
+                int successor = successors.get(node).get(stackEdges[top]++);
+                if(!visited[successor]){
+                    visited[successor] = true;
+                    top++;
+                    stackNodes[top] = successor;
+                    stackEdges[top] = 0;
+                }
+            }
+            else{
+                postOrder[count++] = node;
+                top--;
+            }
+        }
+        int [] order = new int[count];
+        for(int i=0; i<count; i++){
+            order[i] = postOrder[count-1-i];
+        }
+        return order;
+    }
+
+    /**
+     * number the nodes of a dominator tree in depth first order, so we can see in constant time whether a node is an
+     * ancestor of another node
+     * @param dominators    the immediate dominator of each node
+     * @return for each node the number when it is entered and the number after its descendants
+     */
+    private int [][] getTreeOrder(int [] dominators){
+        List<List<Integer>> children = new ArrayList<>();
+        int root = NONE;
+        for(int i=0; i<size+2; i++){
+            children.add(new ArrayList<>());
+        }
+        for(int node=0; node<size+2; node++){
+            if(dominators[node] == node){
+                root = node;
+            }
+            else if(dominators[node] != NONE){
+                children.get(dominators[node]).add(node);
+            }
+        }
+        int [] enter = new int[size+2];
+        int [] leave = new int[size+2];
+        int [] stackNodes = new int[size+2];
+        int [] stackChildren = new int[size+2];
+        int counter = 0;
+        int top = 0;
+        stackNodes[0] = root;
+        enter[root] = counter++;
+        while(top >= 0){
+            int node = stackNodes[top];
+            if(stackChildren[top] < children.get(node).size()){
+                int child = children.get(node).get(stackChildren[top]++);
+                enter[child] = counter++;
+                top++;
+                stackNodes[top] = child;
+                stackChildren[top] = 0;
+            }
+            else{
+                leave[node] = counter;
+                top--;
+            }
+        }
+        return new int[][]{enter, leave};
+    }
+
+    /**
+     * returns whether a node is an ancestor of (or the same as) another node in a numbered tree
+     * @param treeOrder     the numbers of the tree
+     * @param ancestor      the possible ancestor
+     * @param node          the node
+     * @return true/false
+     */
+    private static boolean isAncestor(int [][] treeOrder, int ancestor, int node){
+        return treeOrder[0][ancestor] <= treeOrder[0][node] && treeOrder[0][node] < treeOrder[1][ancestor];
+    }
+}
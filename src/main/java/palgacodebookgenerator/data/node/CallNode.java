@@ -20,24 +20,26 @@
 
 package palgacodebookgenerator.data.node;
 
+import palgacodebookgenerator.data.parser.LogicNetTable;
+
 /**
  * Callnode
  */
 public class CallNode extends DefaultNode{
     /**
      * constructor
-     * @param data    data string for the node
+     * @param data    parsed data for the node
      */
-    CallNode(String data) {
+    CallNode(LogicNetTable data) {
         super(data, NodeTypeEnum.CALL);
     }
 
     /**
      * node specific data, which cannot be handled by the default nodes
-     * @param data    data string for the node
+     * @param data    parsed data for the node
      */
     @Override
-    void addNodeSpecificData(String data){
+    void addNodeSpecificData(LogicNetTable data){
         // nothing specific to add
     }
 
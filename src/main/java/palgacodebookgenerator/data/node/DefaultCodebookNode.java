@@ -21,10 +21,10 @@
 package palgacodebookgenerator.data.node;
 
 import palgacodebookgenerator.codebook.CodebookItem;
+import palgacodebookgenerator.data.parser.LogicNetTable;
+import palgacodebookgenerator.data.rule.RuleExpression;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Defaults for codebooknodes (FormNode and ProcessNode)
@@ -32,10 +32,10 @@ import java.util.stream.Collectors;
 abstract class DefaultCodebookNode extends DefaultNode implements CodebookNode {
     /**
      * constructor
-     * @param data        data for the node
+     * @param data        parsed data for the node
      * @param nodeType    type of the node
      */
-    DefaultCodebookNode(String data, NodeTypeEnum nodeType) {
+    DefaultCodebookNode(LogicNetTable data, NodeTypeEnum nodeType) {
         super(data, nodeType);
     }
 
@@ -48,11 +48,11 @@ abstract class DefaultCodebookNode extends DefaultNode implements CodebookNode {
         // generate codebookitems for the multiparts component
         // this can lead to multiple codebook items
         List<CodebookItem> codebookItemList = multiPartsComponent.createCodebookItems();
-        String rules = getRules();
+        RuleExpression rule = getRule();
 
-        // for each of the codebook items, set the partial rules, id and node type
+        // for each of the codebook items, set the rule, id and node type
         for(CodebookItem codebookItem:codebookItemList){
-            codebookItem.setPartialRules(rules);
+            codebookItem.setRule(rule);
             codebookItem.setId(id);
             codebookItem.setNtype(nodeType.toString());
         }
@@ -61,15 +61,11 @@ abstract class DefaultCodebookNode extends DefaultNode implements CodebookNode {
     }
 
     /**
-     * looks at the parents nodes that contribute to the rule
-     * @return string representation of the rule
+     * returns the rules that lead to this node
+     * the rule is only turned into an expression here, once it is complete
+     * @return the expression of the rule
      */
-    private String getRules(){
-        List<String> rule = new ArrayList<>();
-        // for each contributing node, go there to fetch the rule to the current node
-        for(RuleContributorNode node: prevRuleNodes){
-            rule.add(node.getRules(id));
-        }
-        return rule.stream().collect(Collectors.joining(" OR "));
+    private RuleExpression getRule(){
+        return ruleDiagram.getExpression(entryRules);
     }
 }
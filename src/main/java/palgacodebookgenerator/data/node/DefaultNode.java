@@ -22,25 +22,23 @@ package palgacodebookgenerator.data.node;
 
 import palgacodebookgenerator.data.node.component.MultiPartsComponent;
 import palgacodebookgenerator.data.node.component.OutputComponent;
-import palgacodebookgenerator.utils.ParseUtils;
+import palgacodebookgenerator.data.parser.LogicNetTable;
+import palgacodebookgenerator.data.rule.RuleDiagram;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 /**
  * Default Node which attempts to implement as much of the shared node stuff as possible
  */
 abstract class DefaultNode implements Node {
-    private static final Pattern idPattern = ParseUtils.getIntPattern("id");
-    private static final Pattern is_silentPattern = ParseUtils.getIntPattern("is_silent");
-    private static final Pattern can_startPattern = ParseUtils.getIntPattern("can_start");
-
-    private boolean isConnected=false;
-
     private String can_start="";
 
     List<RuleContributorNode> prevRuleNodes = new ArrayList<>();
+    RuleDiagram ruleDiagram;
+    // the rules that lead to this node, derived for the whole net at once in NetGraph
+    int entryRules = RuleDiagram.TRUE;
 
     NodeTypeEnum nodeType;
     String id="";
@@ -51,22 +49,22 @@ abstract class DefaultNode implements Node {
 
     /**
      * constructor
-     * @param data        the data for this node
+     * @param data        the parsed data for this node
      * @param nodeType    the type of node
      */
-    DefaultNode(String data, NodeTypeEnum nodeType){
+    DefaultNode(LogicNetTable data, NodeTypeEnum nodeType){
         this.nodeType = nodeType;
         addNodeData(data);
     }
 
     /**
      * store the standard variables for the nodes
-     * @param data    the data for this node
+     * @param data    the parsed data for this node
      */
-    private void addNodeData(String data) {
-        id = ParseUtils.getValue(data, idPattern);
-        is_silent = ParseUtils.getValue(data, is_silentPattern);
-        can_start = ParseUtils.getValue(data, can_startPattern);
+    private void addNodeData(LogicNetTable data) {
+        id = data.getWord("id");
+        is_silent = data.getWord("is_silent");
+        can_start = data.getWord("can_start");
 
         addOutputComponent(data);
         addMultiPartsComponent(data);
@@ -75,31 +73,31 @@ abstract class DefaultNode implements Node {
 
     /**
      * allow nodes to also add specific data
-     * @param data    the data for this node
+     * @param data    the parsed data for this node
      */
-    abstract void addNodeSpecificData(String data);
+    abstract void addNodeSpecificData(LogicNetTable data);
 
     /**
      * adds the output component to this node
-     * @param data    the data for this node
+     * @param data    the parsed data for this node
      */
-    private void addOutputComponent(String data){
-        String outputString = ParseUtils.getElementData(data,"outputs ");
-        if(!outputString.equalsIgnoreCase("")){
+    private void addOutputComponent(LogicNetTable data){
+        LogicNetTable outputTable = data.getTable("outputs");
+        if(outputTable != null){
             outputComponent = new OutputComponent();
-            outputComponent.addComponentData(outputString);
+            outputComponent.addComponentData(outputTable);
         }
     }
 
     /**
      * adds the multiparts component to this node
-     * @param data    the data for this node
+     * @param data    the parsed data for this node
      */
-    private void addMultiPartsComponent(String data){
-        String partsString = ParseUtils.getElementData(data,"parts ");
-        if(!partsString.equalsIgnoreCase("")){
+    private void addMultiPartsComponent(LogicNetTable data){
+        LogicNetTable partsTable = data.getTable("parts");
+        if(partsTable != null){
             multiPartsComponent = new MultiPartsComponent();
-            multiPartsComponent.addComponentData(partsString);
+            multiPartsComponent.addComponentData(partsTable);
         }
     }
 
@@ -123,28 +121,59 @@ abstract class DefaultNode implements Node {
 
     /**
      * returns a list of the output values which determines the targets of the current node
-     * @return a list of output values
+     * @return a list of output values, empty if the node has no outputs
      */
     @Override
     public List<String> getOutputTargets(){
+        if(outputComponent == null){
+            return new ArrayList<>();
+        }
         return outputComponent.getOutputValues();
     }
 
     /**
-     * sets the node as connected
+     * adds a node as a parent node
+     * @param node    the parent node
      */
     @Override
-    public void setConnected(){
-        isConnected = true;
+    public void addPreviousRuleNode(Node node){
+        prevRuleNodes.add((RuleContributorNode) node);
     }
 
     /**
-     * adds a node as a parent node
-     * @param node    the parent node
+     * sets the diagram in which the rules of the net are derived
+     * @param ruleDiagram    the rule diagram of the net
      */
     @Override
-    public void addPreviousRuleNode(Node node){
-        prevRuleNodes.add((RuleContributorNode) node);
+    public void setRuleDiagram(RuleDiagram ruleDiagram){
+        this.ruleDiagram = ruleDiagram;
+    }
+
+    /**
+     * returns the rules of the parents that lead to this node, joined with OR
+     * @param excluded    parents which do not contribute a rule, e.g. the nodes of a cycle through this node
+     * @return the rule in the rule diagram, or null if none of the other parents contributes a rule
+     */
+    @Override
+    public Integer getParentRules(Set<Node> excluded){
+        Integer rules = null;
+        // for each contributing node, fetch the rule to the current node
+        for(RuleContributorNode node:prevRuleNodes){
+            if(!excluded.contains(node)){
+                int nodeRules = node.getRules(id);
+                rules = rules == null ? nodeRules : ruleDiagram.or(rules, nodeRules);
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * sets the rules that lead to this node
+     * @param rules    the rule in the rule diagram
+     */
+    @Override
+    public void setEntryRules(int rules){
+        this.entryRules = rules;
     }
 
     /**
@@ -166,11 +195,11 @@ abstract class DefaultNode implements Node {
     }
 
     /**
-     * returns whether the node is connected
-     * @return true/false
+     * returns whether the node may follow none of its outputs
+     * @return false, only the nodes which choose an output can miss one
      */
     @Override
-    public boolean isConnected(){
-        return isConnected;
+    public boolean canFollowNoOutput(){
+        return false;
     }
 }
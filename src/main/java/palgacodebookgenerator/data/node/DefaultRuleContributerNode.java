@@ -20,50 +20,54 @@
 
 package palgacodebookgenerator.data.node;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
+import palgacodebookgenerator.data.parser.LogicNetTable;
+import palgacodebookgenerator.jfr.RuleDerivationEvent;
+
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Default Node for nodes that contribute rules
  */
 abstract public class DefaultRuleContributerNode extends DefaultNode implements RuleContributorNode{
-    DefaultRuleContributerNode(String data, NodeTypeEnum nodeType) {
+    // rules that were already derived, per child id. As nodes belong to a single net, this is a per-net cache
+    private final Map<String, Integer> ruleCache = new HashMap<>();
+
+    DefaultRuleContributerNode(LogicNetTable data, NodeTypeEnum nodeType) {
         super(data, nodeType);
     }
 
     /**
-     * returns the rules that lead from this node to the child, merged with the rules of the
-     * parents that lead to this node
+     * returns the rules that lead from this node to the child, merged with the rules that lead to this node
+     * the rules that lead to this node are set before its children ask for them, see NetGraph
+     * the result is cached, so every rule is derived only once, no matter how often the
+     * paths through the net split and reconverge
      * @param childId    the target node
-     * @return a string with the rule
+     * @return the rule in the rule diagram
      */
     @Override
-    public String getRules(String childId) {
-        String myRule = getMyRule(childId);
-        List<String> parentRules = getParentRules();
-        if(parentRules.size()>0) {
-            return parentRules.stream().collect(Collectors.joining(" OR ")) + " AND " + myRule;
-        }
-        return myRule;
-    }
-
-    /**
-     * get a list of the rules that lead to this node
-     * @return list of the rules that lead to this node
-     */
-    private List<String> getParentRules(){
-        List<String> parentRules = new ArrayList<>();
-        for(RuleContributorNode node:prevRuleNodes){
-            parentRules.add(node.getRules(id));
+    public int getRules(String childId) {
+        Integer rules = ruleCache.get(childId);
+        if(rules == null){
+            RuleDerivationEvent derivationEvent = new RuleDerivationEvent();
+            derivationEvent.begin();
+            rules = ruleDiagram.and(entryRules, getMyRule(childId));
+            ruleCache.put(childId, rules);
+            derivationEvent.end();
+            if(derivationEvent.shouldCommit()){
+                derivationEvent.nodeId = id;
+                derivationEvent.childId = childId;
+                derivationEvent.ruleSize = ruleDiagram.size(rules);
+                derivationEvent.commit();
+            }
         }
-        return parentRules;
+        return rules;
     }
 
     /**
-     * get a string representation of the rule for this node, leading to the child
+     * get the rule of this node, leading to the child
      * @param childId    target node
-     * @return string of the rule
+     * @return the rule in the rule diagram
      */
-    abstract String getMyRule(String childId);
+    abstract int getMyRule(String childId);
 }
@@ -20,6 +20,8 @@
 
 package palgacodebookgenerator.data.node;
 
+import palgacodebookgenerator.data.parser.LogicNetTable;
+
 /**
  * FormNode
  * is a codebook node
@@ -27,18 +29,18 @@ package palgacodebookgenerator.data.node;
 class FormNode extends DefaultCodebookNode {
     /**
      * constructor
-     * @param data    data string for the node
+     * @param data    parsed data for the node
      */
-    FormNode(String data) {
+    FormNode(LogicNetTable data) {
         super(data, NodeTypeEnum.FORM);
     }
 
     /**
      * node specific data, which cannot be handled by the default nodes
-     * @param data    data string for the node
+     * @param data    parsed data for the node
      */
     @Override
-    void addNodeSpecificData(String data){
+    void addNodeSpecificData(LogicNetTable data){
         // nothing specific
     }
 
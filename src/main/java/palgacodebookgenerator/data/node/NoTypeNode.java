@@ -20,24 +20,26 @@
 
 package palgacodebookgenerator.data.node;
 
+import palgacodebookgenerator.data.parser.LogicNetTable;
+
 /**
  * Node for which no type is specified
  */
 public class NoTypeNode extends DefaultNode{
     /**
      * constructor
-     * @param data    data string for the node
+     * @param data    parsed data for the node
      */
-    NoTypeNode(String data) {
+    NoTypeNode(LogicNetTable data) {
         super(data, NodeTypeEnum.NOTYPE);
     }
 
     /**
      * node specific data, which cannot be handled by the default nodes
-     * @param data    data string for the node
+     * @param data    parsed data for the node
      */
     @Override
-    void addNodeSpecificData(String data) {
+    void addNodeSpecificData(LogicNetTable data) {
 
     }
 
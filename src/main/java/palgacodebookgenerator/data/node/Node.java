@@ -20,7 +20,10 @@
 
 package palgacodebookgenerator.data.node;
 
+import palgacodebookgenerator.data.rule.RuleDiagram;
+
 import java.util.List;
+import java.util.Set;
 
 /**
  * Node interface
@@ -39,17 +42,6 @@ public interface Node {
      */
     boolean isStartNode();
 
-    /**
-     * sets the node as connected
-     */
-    void setConnected();
-
-    /**
-     * returns whether the node is connected
-     * @return true/false
-     */
-    boolean isConnected();
-
     /**
      * returns a list of the output values which determines the targets of the current node
      * @return a list of output values
@@ -62,6 +54,26 @@ public interface Node {
      */
     void addPreviousRuleNode(Node node);
 
+    /**
+     * sets the diagram in which the rules of the net are derived
+     * @param ruleDiagram    the rule diagram of the net
+     */
+    void setRuleDiagram(RuleDiagram ruleDiagram);
+
+    /**
+     * returns the rules of the parents that lead to this node, joined with OR. The rules of the parents must have
+     * been set, see setEntryRules
+     * @param excluded    parents which do not contribute a rule, e.g. the nodes of a cycle through this node
+     * @return the rule in the rule diagram, or null if none of the other parents contributes a rule
+     */
+    Integer getParentRules(Set<Node> excluded);
+
+    /**
+     * sets the rules that lead to this node
+     * @param rules    the rule in the rule diagram
+     */
+    void setEntryRules(int rules);
+
     /**
      * returns whether the node is a codebook node
      * @return true/false
@@ -74,6 +86,12 @@ public interface Node {
      */
     boolean isRuleContributorNode();
 
+    /**
+     * returns whether the node may follow none of its outputs, e.g. a rule node without a false output
+     * @return true/false
+     */
+    boolean canFollowNoOutput();
+
     /**
      * returns the node type
      * @return the node type
@@ -20,6 +20,10 @@
 
 package palgacodebookgenerator.data.node;
 
+import palgacodebookgenerator.data.parser.LogicNetParser;
+import palgacodebookgenerator.data.parser.LogicNetTable;
+import palgacodebookgenerator.utils.ParseUtils;
+
 /**
  * Factory to create the appropriate nodes
  */
@@ -29,18 +33,61 @@ public class NodeFactory {
      * @param data    the data for the node
      * @return a new node of the appropriate type
      */
-    public static Node createNode(String data){
-        if (data.contains("form_part = 1")) {
-            return new FormNode(data);
-        } else if (data.contains("ntype = \"call\"")) {
-            return new CallNode(data);
-        } else if (data.contains("ntype = \"rule\"")) {
-            return new RuleNode(data);
-        } else if (data.contains("ntype = \"router\"")) {
-            return new RouterNode(data);
-        } else if (data.contains("ntype = \"process\"")) {
-            return new ProcessNode(data);
+    public static Node createNode(CharSequence data){
+        // parse the data once, the nodes read their values from the resulting tree
+        return createNode(getNodeType(data), LogicNetParser.parse(data));
+    }
+
+    /**
+     * checks the data and decides which type of node it contains
+     * @param data    the data for the node
+     * @return the type of node
+     */
+    public static NodeTypeEnum getNodeType(CharSequence data){
+        if (contains(data, "form_part = 1")) {
+            return NodeTypeEnum.FORM;
+        } else if (contains(data, "ntype = \"call\"")) {
+            return NodeTypeEnum.CALL;
+        } else if (contains(data, "ntype = \"rule\"")) {
+            return NodeTypeEnum.RULE;
+        } else if (contains(data, "ntype = \"router\"")) {
+            return NodeTypeEnum.ROUTER;
+        } else if (contains(data, "ntype = \"process\"")) {
+            return NodeTypeEnum.PROCESS;
         }
-        return new NoTypeNode(data);
+        return NodeTypeEnum.NOTYPE;
+    }
+
+    /**
+     * creates a node of a type from the parsed data
+     * @param nodeType    the type of node
+     * @param table       the parsed data for the node
+     * @return a new node of the type
+     */
+    public static Node createNode(NodeTypeEnum nodeType, LogicNetTable table){
+        switch (nodeType) {
+            case FORM:
+                return new FormNode(table);
+            case CALL:
+                return new CallNode(table);
+            case RULE:
+                return new RuleNode(table);
+            case ROUTER:
+                return new RouterNode(table);
+            case PROCESS:
+                return new ProcessNode(table);
+            default:
+                return new NoTypeNode(table);
+        }
+    }
+
+    /**
+     * returns whether the data contains the value
+     * @param data     the data for the node
+     * @param value    the value to look for
+     * @return true/false
+     */
+    private static boolean contains(CharSequence data, String value){
+        return ParseUtils.indexOf(data, value, 0) >= 0;
     }
 }
@@ -20,6 +20,8 @@
 
 package palgacodebookgenerator.data.node;
 
+import palgacodebookgenerator.data.parser.LogicNetTable;
+
 /**
  * Process Node
  * can be a codebook node, depending on conditions
@@ -27,18 +29,18 @@ package palgacodebookgenerator.data.node;
 class ProcessNode extends DefaultCodebookNode{
     /**
      * constructor
-     * @param data    data string for the node
+     * @param data    parsed data for the node
      */
-    ProcessNode(String data) {
+    ProcessNode(LogicNetTable data) {
         super(data, NodeTypeEnum.PROCESS);
     }
 
     /**
      * node specific data, which cannot be handled by the default nodes
-     * @param data    data string for the node
+     * @param data    parsed data for the node
      */
     @Override
-    void addNodeSpecificData(String data){
+    void addNodeSpecificData(LogicNetTable data){
     }
 
     /**
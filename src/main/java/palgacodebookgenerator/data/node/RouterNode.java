@@ -20,9 +20,11 @@
 
 package palgacodebookgenerator.data.node;
 
+import palgacodebookgenerator.data.parser.LogicNetTable;
+import palgacodebookgenerator.data.rule.RuleDiagram;
+
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * RouterNode
@@ -31,18 +33,18 @@ import java.util.stream.Collectors;
 class RouterNode extends DefaultRuleContributerNode{
     /**
      * constructor
-     * @param data    data string for the node
+     * @param data    parsed data for the node
      */
-    RouterNode(String data) {
+    RouterNode(LogicNetTable data) {
         super(data, NodeTypeEnum.ROUTER);
     }
 
     /**
      * node specific data, which cannot be handled by the default nodes
-     * @param data    data string for the node
+     * @param data    parsed data for the node
      */
     @Override
-    void addNodeSpecificData(String data){
+    void addNodeSpecificData(LogicNetTable data){
 
     }
 
@@ -55,19 +57,50 @@ class RouterNode extends DefaultRuleContributerNode{
         return false;
     }
 
+    /**
+     * returns whether the node may follow none of its outputs, which is the case when it has no default output
+     * @return true/false
+     */
+    @Override
+    public boolean canFollowNoOutput() {
+        return outputComponent == null || !outputComponent.hasOutput("default");
+    }
+
     /**
      * generates the rule for this node which leads to the child
+     * every output which leads to the child is a value of the variable of the router, e.g. [Lokalisatie == colon].
+     * The variable has one value at a time, see RuleDiagram.value; the default output holds for none of the others
      * @param childId    a childId whence this node leads
-     * @return string representation of the rule
+     * @return the rule in the rule diagram
      */
     @Override
-    String getMyRule(String childId){
+    int getMyRule(String childId){
         List<String> matches = outputComponent.getMatchedId(childId);
         List<String> rules = multiPartsComponent.getRules();
         if(rules.size()>1){
             System.err.println("multiple rule variables in router node?? "+id);
         }
-        return "["+rules.get(0)+" == "+matches.stream().collect(Collectors.joining(" OR "))+"]";
+        // every output is a value, also those which do not lead to the child, so the values exclude each other
+        int rule = RuleDiagram.FALSE;
+        int otherValues = RuleDiagram.FALSE;
+        for(String outputId:outputComponent.getOutputIds()){
+            if(outputId.equalsIgnoreCase("default")){
+                continue;
+            }
+            String atom = "["+rules.get(0)+" == "+outputId+"]";
+            int value = ruleDiagram.value(rules.get(0), atom, "NOT "+atom);
+            otherValues = ruleDiagram.or(otherValues, value);
+            if(matches.contains(outputId)){
+                rule = ruleDiagram.or(rule, value);
+            }
+        }
+        // the default output holds when none of the others does
+        for(String match:matches){
+            if(match.equalsIgnoreCase("default")){
+                rule = ruleDiagram.or(rule, ruleDiagram.not(otherValues));
+            }
+        }
+        return rule;
     }
 
 }
@@ -27,10 +27,9 @@ package palgacodebookgenerator.data.node;
 interface RuleContributorNode {
 
     /**
-     * returns the rules that lead from this node to the child, merged with the rules of the
-     * parents that lead to this node
+     * returns the rules that lead from this node to the child, merged with the rules that lead to this node
      * @param childId    the target node
-     * @return a string with the rule
+     * @return the rule in the rule diagram of the net
      */
-    String getRules(String childId);
+    int getRules(String childId);
 }
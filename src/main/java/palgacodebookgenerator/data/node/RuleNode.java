@@ -20,6 +20,9 @@
 
 package palgacodebookgenerator.data.node;
 
+import palgacodebookgenerator.data.parser.LogicNetTable;
+import palgacodebookgenerator.data.rule.RuleDiagram;
+
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -30,18 +33,18 @@ import java.util.stream.Collectors;
 class RuleNode extends DefaultRuleContributerNode {
     /**
      * constructor
-     * @param data    data string for the node
+     * @param data    parsed data for the node
      */
-    RuleNode(String data) {
+    RuleNode(LogicNetTable data) {
         super(data, NodeTypeEnum.RULE);
     }
 
     /**
      * node specific data, which cannot be handled by the default nodes
-     * @param data    data string for the node
+     * @param data    parsed data for the node
      */
     @Override
-    void addNodeSpecificData(String data){
+    void addNodeSpecificData(LogicNetTable data){
     }
 
     /**
@@ -53,22 +56,41 @@ class RuleNode extends DefaultRuleContributerNode {
         return false;
     }
 
+    /**
+     * returns whether the node may follow none of its outputs, which is the case when the true or the false
+     * output is missing
+     * @return true/false
+     */
+    @Override
+    public boolean canFollowNoOutput() {
+        return outputComponent == null || !outputComponent.hasOutput("true") || !outputComponent.hasOutput("false");
+    }
+
 
     /**
      * generates the rule for this node which leads to the child
+     * the true output leads to the child when the condition of the node holds, the false output when it does not
+     * hold. Any other output becomes an atom of its own
      * @param childId    a childId whence this node leads
-     * @return string representation of the rule
+     * @return the rule in the rule diagram
      */
     @Override
-    String getMyRule(String childId){
+    int getMyRule(String childId){
         List<String> matches = outputComponent.getMatchedId(childId);
-        List<String> myRules = multiPartsComponent.getPartialRules();
-//        if(myRules.size()>1){
-//            System.err.println("hmmmm... rules can be split in multiple parts? id="+childId);
-//        }
-//        if(matches.size()>1){
-//            System.err.println("hmmmm... rule nodes can have multiple outputs pointing to the same node id="+childId);
-//        }
-        return "["+myRules.stream().collect(Collectors.joining(" OR "))+" == "+matches.stream().collect(Collectors.joining(" OR "))+"]";
+        int condition = multiPartsComponent.getCondition(ruleDiagram);
+        int rule = RuleDiagram.FALSE;
+        for(String match:matches){
+            if(match.equalsIgnoreCase("true")){
+                rule = ruleDiagram.or(rule, condition);
+            }
+            else if(match.equalsIgnoreCase("false")){
+                rule = ruleDiagram.or(rule, ruleDiagram.not(condition));
+            }
+            else{
+                String atom = "["+multiPartsComponent.getPartialRules().stream().collect(Collectors.joining(" OR "))+" == "+match+"]";
+                rule = ruleDiagram.or(rule, ruleDiagram.atom(atom, "NOT "+atom));
+            }
+        }
+        return rule;
     }
 }
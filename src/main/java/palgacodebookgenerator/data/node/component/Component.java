@@ -20,6 +20,8 @@
 
 package palgacodebookgenerator.data.node.component;
 
+import palgacodebookgenerator.data.parser.LogicNetTable;
+
 /**
  * interface for component
  * we can probably remove this
@@ -27,7 +29,7 @@ package palgacodebookgenerator.data.node.component;
 interface Component {
     /**
      * each component must support adding data
-     * @param data    the data to be added
+     * @param data    the parsed data to be added
      */
-    void addComponentData(String data);
+    void addComponentData(LogicNetTable data);
 }
@@ -22,7 +22,8 @@ package palgacodebookgenerator.data.node.component;
 
 import palgacodebookgenerator.codebook.CodebookItem;
 import palgacodebookgenerator.data.node.NodeTypeEnum;
-import palgacodebookgenerator.utils.ParseUtils;
+import palgacodebookgenerator.data.parser.LogicNetTable;
+import palgacodebookgenerator.data.rule.RuleDiagram;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -35,20 +36,15 @@ public class MultiPartsComponent implements Component {
 
     /**
      * add data to this component
-     * @param data    contains the data
+     * @param data    the parsed parts table
      */
     @Override
-    public void addComponentData(String data) {
-        // get a List with an entry for each part
-        List<String> splitData = ParseUtils.partsSplitter(data);
-
-        // for each entry, create a PartsComponent
-        for (String item : splitData) {
-            if (!item.trim().equalsIgnoreCase("")) {
-                PartsComponent partsComponent = new PartsComponent();
-                partsComponent.addComponentData(item);
-                partsComponentList.add(partsComponent);
-            }
+    public void addComponentData(LogicNetTable data) {
+        // the parts table contains a table for each part; for each entry, create a PartsComponent
+        for (LogicNetTable item : data.getTables()) {
+            PartsComponent partsComponent = new PartsComponent();
+            partsComponent.addComponentData(item);
+            partsComponentList.add(partsComponent);
         }
     }
 
@@ -113,6 +109,29 @@ public class MultiPartsComponent implements Component {
         return rules;
     }
 
+    /**
+     * returns the condition of the partial rules in the rule diagram: the conditions of the part components
+     * joined with OR. When a partial rule cannot be split into atoms, the partial rules together are a single atom,
+     * e.g. [Typetumor equals NET and Graad equals 2 == true]
+     * @param ruleDiagram    the rule diagram of the net
+     * @return the condition in the rule diagram
+     */
+    public int getCondition(RuleDiagram ruleDiagram){
+        List<String> partialRules = getPartialRules();
+        Integer condition = partialRules.isEmpty() ? null : RuleDiagram.FALSE;
+        for(PartsComponent partsComponent:partsComponentList){
+            if(condition != null && !partsComponent.getPartialRule().equalsIgnoreCase("")){
+                Integer partCondition = partsComponent.getCondition(ruleDiagram);
+                condition = partCondition == null ? null : ruleDiagram.or(condition, partCondition);
+            }
+        }
+        if(condition == null){
+            String partialRule = String.join(" OR ", partialRules);
+            condition = ruleDiagram.atom("["+partialRule+" == true]", "["+partialRule+" == false]");
+        }
+        return condition;
+    }
+
     /**
      * gets a list of the rules for each part component of the multipart component
      * @return list of rules
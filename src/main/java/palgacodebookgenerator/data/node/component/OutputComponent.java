@@ -20,12 +20,10 @@
 
 package palgacodebookgenerator.data.node.component;
 
-import palgacodebookgenerator.utils.ParseUtils;
+import palgacodebookgenerator.data.parser.LogicNetTable;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * Output part of a Node
@@ -33,10 +31,6 @@ import java.util.stream.Collectors;
  * to multiple targets
  */
 public class OutputComponent implements Component{
-    private static final Pattern idPattern = ParseUtils.getStringPattern("id");
-    private static final Pattern targetPattern = ParseUtils.getIntPattern("target");
-    private static final Pattern can_stopPattern = ParseUtils.getIntPattern("can_stop");
-
     private final List<OutputValues> outputValues = new ArrayList<>();
 
     /**
@@ -60,23 +54,20 @@ public class OutputComponent implements Component{
 
     /**
      * add data to this component
-     * @param data    the data to parse
+     * @param data    the parsed outputs table
      */
     @Override
-    public void addComponentData(String data){
-        // split the data as it can contain multiple outputs
-        String [] splitData = data.split("}");
-        for(String item:splitData){
-            if(!item.trim().equalsIgnoreCase("")) {
-                // fetch the id, target and can_stop from the data
-                String id = ParseUtils.getValue(item, idPattern);
-                String target = ParseUtils.getValue(item, targetPattern);
-                String can_stop = ParseUtils.getValue(item, can_stopPattern);
-                // if a value exists for one of them, create an outputvalues object and store it
-                if(!id.equalsIgnoreCase("") || !target.equalsIgnoreCase("") || !can_stop.equalsIgnoreCase("")) {
-                    OutputValues values = new OutputValues(id, target, can_stop);
-                    outputValues.add(values);
-                }
+    public void addComponentData(LogicNetTable data){
+        // the outputs table contains a table for each output
+        for(LogicNetTable item:data.getTables()){
+            // fetch the id, target and can_stop from the data
+            String id = item.getString("id");
+            String target = item.getWord("target");
+            String can_stop = item.getWord("can_stop");
+            // if a value exists for one of them, create an outputvalues object and store it
+            if(!id.equalsIgnoreCase("") || !target.equalsIgnoreCase("") || !can_stop.equalsIgnoreCase("")) {
+                OutputValues values = new OutputValues(id, target, can_stop);
+                outputValues.add(values);
             }
         }
     }
@@ -86,7 +77,11 @@ public class OutputComponent implements Component{
      * @return a list with all the output targets
      */
     public List<String> getOutputValues(){
-        return outputValues.stream().map(OutputValues::getTarget).collect(Collectors.toList());
+        List<String> targets = new ArrayList<>(outputValues.size());
+        for(OutputValues outputValue:outputValues){
+            targets.add(outputValue.getTarget());
+        }
+        return targets;
     }
 
     /**
@@ -105,6 +100,34 @@ public class OutputComponent implements Component{
         return matches;
     }
 
+    /**
+     * returns the "id" values of all outputs, e.g. true and false, without duplicates
+     * @return list with the "id" values, in the order of the outputs
+     */
+    public List<String> getOutputIds(){
+        List<String> ids = new ArrayList<>(outputValues.size());
+        for(OutputValues outputValue:outputValues){
+            if(!ids.contains(outputValue.getId())){
+                ids.add(outputValue.getId());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * returns whether one of the outputs has the "id", e.g. true or default
+     * @param id    the "id" of the output
+     * @return true/false
+     */
+    public boolean hasOutput(String id){
+        for(OutputValues outputValue:outputValues){
+            if(outputValue.getId().equalsIgnoreCase(id)){
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * class for output values
      */
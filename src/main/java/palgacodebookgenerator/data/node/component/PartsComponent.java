@@ -21,34 +21,17 @@
 package palgacodebookgenerator.data.node.component;
 
 import palgacodebookgenerator.codebook.CodebookItem;
-import palgacodebookgenerator.utils.ParseUtils;
+import palgacodebookgenerator.data.parser.LogicNetTable;
+import palgacodebookgenerator.data.rule.RuleDiagram;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
  * The parts component class stores the Node's parts information
  */
 class PartsComponent implements Component{
-    private static final Pattern logPattern = ParseUtils.getStringPattern("log");
-    private static final Pattern namePattern = ParseUtils.getStringPattern("_name");
-    private static final Pattern pathPattern = ParseUtils.getStringPattern("path");
-    private static final Pattern data_typePattern = ParseUtils.getStringPattern("data_type");
-    private static final Pattern captionPattern = ParseUtils.getStringPattern("caption");
-    private static final Pattern rulePattern = ParseUtils.getStringPattern("rule");
-
-    private static final Pattern elementOperatorPattern = ParseUtils.getStringPattern("elementOperator");
-    private static final Pattern operatorPattern = ParseUtils.getStringPattern("operator");
-    private static final Pattern testPattern = ParseUtils.getStringPattern("test");
-    private static final Pattern referencePattern = ParseUtils.getStringPattern("reference");
-
-    private static final Pattern valuePattern = ParseUtils.getStringPattern("value");
-
-    private static final Pattern messagePattern = ParseUtils.getStringPattern("message");
-    private static final Pattern typePattern = ParseUtils.getStringPattern("type");
-
     private final List<String> optionValues = new ArrayList<>();
 
     // rule parts decide which node which Node one can travel to
@@ -110,6 +93,34 @@ class PartsComponent implements Component{
         return rulePartsValues.stream().map(RuleParts::getRule).collect(Collectors.joining(" "));
     }
 
+    /**
+     * returns the condition of the rule parts in the rule diagram, with an atom for each rule part
+     * the rule parts can only be split into atoms when they are all joined with "and" or all joined with "or";
+     * otherwise it is not clear which parts belong together
+     * @param ruleDiagram    the rule diagram of the net
+     * @return the condition in the rule diagram, or null if the rule parts cannot be split into atoms
+     */
+    Integer getCondition(RuleDiagram ruleDiagram){
+        if(rulePartsValues.isEmpty() || !rulePartsValues.get(0).getElementOperator().equals("")){
+            return null;
+        }
+        String joinOperator = null;
+        for(int i=1; i<rulePartsValues.size(); i++){
+            String elementOperator = rulePartsValues.get(i).getElementOperator();
+            if(!(elementOperator.equals("and") || elementOperator.equals("or")) ||
+                    (joinOperator != null && !joinOperator.equals(elementOperator))){
+                return null;
+            }
+            joinOperator = elementOperator;
+        }
+        int condition = rulePartsValues.get(0).getAtom(ruleDiagram);
+        for(int i=1; i<rulePartsValues.size(); i++){
+            int atom = rulePartsValues.get(i).getAtom(ruleDiagram);
+            condition = joinOperator.equals("and") ? ruleDiagram.and(condition, atom) : ruleDiagram.or(condition, atom);
+        }
+        return condition;
+    }
+
     /**
      * return the stored rule variable
      * this is generally used by switch nodes, which leads to a parts component
@@ -136,16 +147,16 @@ class PartsComponent implements Component{
 
     /**
      * add the data to this component
-     * @param data    the data to add
+     * @param data    the parsed data of the part
      */
     @Override
-    public void addComponentData(String data){
-        log = ParseUtils.getValue(data, logPattern);
-        _name = ParseUtils.getValue(data, namePattern);
-        caption = ParseUtils.getValue(data, captionPattern);
-        path = ParseUtils.getValue(data, pathPattern);
-        data_type = ParseUtils.getValue(data, data_typePattern);
-        rule = ParseUtils.getValue(data, rulePattern);
+    public void addComponentData(LogicNetTable data){
+        log = data.getString("log");
+        _name = data.getString("_name");
+        caption = data.getString("caption");
+        path = data.getString("path");
+        data_type = data.getString("data_type");
+        rule = data.getString("rule");
         addOptions(data);
         addRuleparts(data);
         addValidationRules(data);
@@ -167,18 +178,15 @@ class PartsComponent implements Component{
     //       }
     /**
      * add the choices / options values
-     * @param data    the data which to parse
+     * @param data    the parsed data of the part
      */
-    private void addOptions(String data){
-        data = ParseUtils.getElementData(data,"choices ");
-        if(!data.equalsIgnoreCase("")) {
-            String[] splitData = data.split("}");
-            for (String item : splitData) {
-                if (!item.trim().equalsIgnoreCase("")) {
-                    String value = ParseUtils.getValue(item, valuePattern);
-                    if (!value.equalsIgnoreCase("")) {
-                        optionValues.add(value);
-                    }
+    private void addOptions(LogicNetTable data){
+        LogicNetTable choices = data.getTable("choices");
+        if(choices != null) {
+            for (LogicNetTable item : choices.getTables()) {
+                String value = item.getString("value");
+                if (!value.equalsIgnoreCase("")) {
+                    optionValues.add(value);
                 }
             }
         }
@@ -203,22 +211,19 @@ class PartsComponent implements Component{
     //
     /**
      * add the rule parts
-     * @param data    the data which to parse
+     * @param data    the parsed data of the part
      */
-    private void addRuleparts(String data){
-        data = ParseUtils.getElementData(data,"ruleparts ");
-        if(!data.equalsIgnoreCase("")) {
-            String[] splitData = data.split(",\\s*\\{");
-            for (String item : splitData) {
-                if (!item.trim().equalsIgnoreCase("")) {
-                    String elementOperator = ParseUtils.getValue(item, elementOperatorPattern);
-                    String operator = ParseUtils.getValue(item, operatorPattern);
-                    String test = ParseUtils.getValue(item, testPattern);
-                    String reference = ParseUtils.getValue(item, referencePattern);
-                    if (!reference.equalsIgnoreCase("")) {
-                        RuleParts ruleParts = new RuleParts(elementOperator, operator, test, reference);
-                        rulePartsValues.add(ruleParts);
-                    }
+    private void addRuleparts(LogicNetTable data){
+        LogicNetTable ruleparts = data.getTable("ruleparts");
+        if(ruleparts != null) {
+            for (LogicNetTable item : ruleparts.getTables()) {
+                String elementOperator = item.getString("elementOperator");
+                String operator = item.getString("operator");
+                String test = item.getString("test");
+                String reference = item.getString("reference");
+                if (!reference.equalsIgnoreCase("")) {
+                    RuleParts ruleParts = new RuleParts(elementOperator, operator, test, reference);
+                    rulePartsValues.add(ruleParts);
                 }
             }
         }
@@ -236,23 +241,19 @@ class PartsComponent implements Component{
     //			},
     /**
      * add the validation rules
-     * @param data    the data which to parse
+     * @param data    the parsed data of the part
      */
-    private void addValidationRules(String data){
-        data = ParseUtils.getElementData(data, "validation_rules ");
-        if(!data.equalsIgnoreCase("")) {
-            // split the data by looking into separate rules
-            // more complicated split, as the validation rules themselves can also contain {}
-            String[] splitData = data.split(",\\s*\\{");
-            for (String item : splitData) {
-                if (!item.trim().equalsIgnoreCase("")) {
-                    String type = ParseUtils.getValue(item, typePattern);
-                    String messsage = ParseUtils.getValue(item, messagePattern);
-
-                    if (!messsage.equalsIgnoreCase("") || !type.equalsIgnoreCase("")) {
-                        ValidationRules validationRules = new ValidationRules(type, messsage);
-                        validationRulesValues.add(validationRules);
-                    }
+    private void addValidationRules(LogicNetTable data){
+        LogicNetTable validationRulesTable = data.getTable("validation_rules");
+        if(validationRulesTable != null) {
+            // each validation rule is a separate table, which itself can also contain tables
+            for (LogicNetTable item : validationRulesTable.getTables()) {
+                String type = item.getString("type");
+                String messsage = item.getString("message");
+
+                if (!messsage.equalsIgnoreCase("") || !type.equalsIgnoreCase("")) {
+                    ValidationRules validationRules = new ValidationRules(type, messsage);
+                    validationRulesValues.add(validationRules);
                 }
             }
         }
@@ -279,6 +280,24 @@ class PartsComponent implements Component{
         public String getRule(){
             return (elementOperator+" "+reference+" "+operator+" "+test).trim();
         }
+
+        /**
+         * returns the operator which joins the rule part to the previous one, in lower case
+         * @return the element operator
+         */
+        String getElementOperator(){
+            return elementOperator.trim().toLowerCase();
+        }
+
+        /**
+         * returns the rule part as an atom of the rule diagram, e.g. [Typetumor equals NET/NEC]
+         * @param ruleDiagram    the rule diagram of the net
+         * @return the atom in the rule diagram
+         */
+        int getAtom(RuleDiagram ruleDiagram){
+            String atom = "["+(reference+" "+operator+" "+test).trim()+"]";
+            return ruleDiagram.atom(atom, "NOT "+atom);
+        }
     }
 
     private static class ValidationRules{
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.data.parser;
+
+/**
+ * Lexer for the Lua-table-like logicnet format
+ * walks the data once and hands out the tokens one at a time. The lexer is lenient: anything which is not
+ * a brace, an equals sign, a separator or a quoted string becomes a word token
+ */
+class LogicNetLexer {
+    /**
+     * the token types the lexer can return
+     */
+    enum TokenType {
+        OPEN,
+        CLOSE,
+        EQUALS,
+        SEPARATOR,
+        STRING,
+        WORD,
+        END
+    }
+
+    private final CharSequence data;
+    private final int end;
+    private int position;
+
+    private TokenType tokenType;
+    private int tokenStart;
+    private int tokenEnd;
+
+    /**
+     * constructor
+     * @param data     the data to tokenize
+     * @param start    index of the first character to tokenize
+     * @param end      index after the last character to tokenize
+     */
+    LogicNetLexer(CharSequence data, int start, int end){
+        this.data = data;
+        this.position = start;
+        this.end = end;
+    }
+
+    /**
+     * moves to the next token
+     * @return the type of the token
+     */
+    TokenType next(){
+        // skip the whitespace
+        while(position<end && Character.isWhitespace(data.charAt(position))){
+            position++;
+        }
+        tokenStart = position;
+        if(position>=end){
+            tokenEnd = position;
+            return tokenType = TokenType.END;
+        }
+
+        char c = data.charAt(position);
+        switch (c){
+            case '{':
+                return singleCharToken(TokenType.OPEN);
+            case '}':
+                return singleCharToken(TokenType.CLOSE);
+            case '=':
+                return singleCharToken(TokenType.EQUALS);
+            case ',':
+            case ';':
+                return singleCharToken(TokenType.SEPARATOR);
+            case '"':
+                return stringToken();
+            default:
+                return wordToken();
+        }
+    }
+
+    /**
+     * returns the type of the current token
+     * @return the type of the current token
+     */
+    TokenType getTokenType(){
+        return tokenType;
+    }
+
+    /**
+     * returns the text of the current token. For strings this is the text between the quotes, as it was
+     * found in the data (escape sequences are not translated)
+     * @return the text of the current token
+     */
+    String getTokenText(){
+        return data.subSequence(tokenStart, tokenEnd).toString();
+    }
+
+    /**
+     * a token consisting of a single character
+     * @param type    the type of the token
+     * @return the type of the token
+     */
+    private TokenType singleCharToken(TokenType type){
+        tokenEnd = ++position;
+        return tokenType = type;
+    }
+
+    /**
+     * a string token. The token text excludes the quotes. A backslash escapes the next character, so escaped
+     * quotes do not end the string
+     * @return STRING
+     */
+    private TokenType stringToken(){
+        tokenStart = ++position;
+        while(position<end && data.charAt(position)!='"'){
+            if(data.charAt(position)=='\\'){
+                position++;
+            }
+            position++;
+        }
+        tokenEnd = Math.min(position, end);
+        // skip the closing quote
+        position = Math.min(position+1, end);
+        return tokenType = TokenType.STRING;
+    }
+
+    /**
+     * a word token, e.g. a key, a number or true/false
+     * @return WORD
+     */
+    private TokenType wordToken(){
+        while(position<end && !isWordEnd(data.charAt(position))){
+            position++;
+        }
+        tokenEnd = position;
+        return tokenType = TokenType.WORD;
+    }
+
+    /**
+     * returns whether the character ends a word
+     * @param c    the character
+     * @return true/false
+     */
+    private static boolean isWordEnd(char c){
+        return Character.isWhitespace(c) || c=='{' || c=='}' || c=='=' || c==',' || c==';' || c=='"';
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.data.parser;
+
+import palgacodebookgenerator.data.parser.LogicNetLexer.TokenType;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Parser for the Lua-table-like logicnet format, e.g.
+ *  {
+ *      id = 5140,
+ *      ntype = "rule",
+ *      outputs = {
+ *          {
+ *              id = "true",
+ *              target = 5141
+ *          }
+ *      }
+ *  }
+ * The data of a node or of the net information is a fragment of a bigger table, so the parser accepts
+ * unbalanced braces and stray tokens instead of failing on them.
+ */
+public class LogicNetParser {
+    /**
+     * parse the data into a tree
+     * @param data    the data
+     * @return the table which contains everything that was found in the data
+     */
+    public static LogicNetTable parse(CharSequence data){
+        return parse(data, 0, data.length());
+    }
+
+    /**
+     * parse part of the data into a tree
+     * @param data     the data
+     * @param start    index of the first character to parse
+     * @param end      index after the last character to parse
+     * @return the table which contains everything that was found in the data
+     */
+    public static LogicNetTable parse(CharSequence data, int start, int end){
+        LogicNetLexer lexer = new LogicNetLexer(data, start, end);
+        LogicNetTable root = new LogicNetTable();
+        Deque<LogicNetTable> tables = new ArrayDeque<>();
+        tables.push(root);
+
+        String key = null;
+        TokenType tokenType = lexer.next();
+        while(tokenType != TokenType.END){
+            TokenType nextType = null;
+            switch (tokenType){
+                case OPEN:
+                    tables.push(tables.peek().addTable(key));
+                    key = null;
+                    break;
+                case CLOSE:
+                    // a closing brace without an opening one belongs to a table outside of the fragment
+                    if(tables.size()>1){
+                        tables.pop();
+                    }
+                    key = null;
+                    break;
+                case STRING:
+                    tables.peek().addValue(key, true, lexer.getTokenText());
+                    key = null;
+                    break;
+                case WORD:
+                    // a word followed by an equals sign is a key, otherwise it is a value
+                    String word = lexer.getTokenText();
+                    nextType = lexer.next();
+                    if(nextType == TokenType.EQUALS){
+                        key = word;
+                        nextType = null;
+                    }
+                    else{
+                        tables.peek().addValue(key, false, word);
+                        key = null;
+                    }
+                    break;
+                default:
+                    // separators and stray equals signs
+                    key = null;
+                    break;
+            }
+            tokenType = nextType != null ? nextType : lexer.next();
+        }
+        return root;
+    }
+}
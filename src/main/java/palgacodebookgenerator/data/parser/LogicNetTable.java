@@ -0,0 +1,285 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.data.parser;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lightweight key/value tree for the logicnet format. A table contains its entries in the order in which they
+ * were found in the data. An entry has an optional key and either a scalar value (a quoted string or a word,
+ * such as a number) or a nested table.
+ * The lookups search the entries depth first in the order of the data and match keys ending with the requested
+ * key, which is how the "key = value" patterns we used before this tree existed behaved.
+ */
+public class LogicNetTable {
+    private static final int STRING = 0;
+    private static final int WORD = 1;
+    private static final int TABLE = 2;
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * constructor
+     */
+    LogicNetTable(){
+
+    }
+
+    /**
+     * add a scalar value to this table
+     * @param key       the key, null for a value without a key
+     * @param quoted    whether the value was a quoted string
+     * @param text      the value
+     */
+    void addValue(String key, boolean quoted, String text){
+        entries.add(new Entry(key, quoted ? STRING : WORD, text, null));
+    }
+
+    /**
+     * add a nested table to this table
+     * @param key    the key, null for a table without a key
+     * @return the new nested table
+     */
+    LogicNetTable addTable(String key){
+        LogicNetTable table = new LogicNetTable();
+        entries.add(new Entry(key, TABLE, null, table));
+        return table;
+    }
+
+    /**
+     * returns the first quoted string value found for the key, searching nested tables as well
+     * @param key    the key we're looking for
+     * @return the value or an empty String if no value was found
+     */
+    public String getString(String key){
+        Entry entry = find(key, STRING);
+        return entry == null ? "" : entry.text;
+    }
+
+    /**
+     * returns the first word value (e.g. a number) found for the key, searching nested tables as well
+     * only the leading letters, digits and underscores of the word are returned
+     * @param key    the key we're looking for
+     * @return the value or an empty String if no value was found
+     */
+    public String getWord(String key){
+        Entry entry = find(key, WORD);
+        return entry == null ? "" : entry.text.substring(0, wordLength(entry.text));
+    }
+
+    /**
+     * returns the table of the first entry found for the key, searching nested tables as well
+     * if the first entry has a scalar value, an empty table is returned
+     * @param key    the key we're looking for
+     * @return the table or null if the key was not found
+     */
+    public LogicNetTable getTable(String key){
+        Entry entry = find(key, -1);
+        if(entry == null){
+            return null;
+        }
+        return entry.table == null ? new LogicNetTable() : entry.table;
+    }
+
+    /**
+     * returns the nested tables that are directly part of this table, in the order of the data
+     * @return list with the nested tables
+     */
+    public List<LogicNetTable> getTables(){
+        List<LogicNetTable> tables = new ArrayList<>();
+        for(Entry entry:entries){
+            if(entry.kind == TABLE){
+                tables.add(entry.table);
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * removes the first entry found for the key, searching nested tables as well
+     * @param key    the key of the entry which should be removed
+     */
+    public void remove(String key){
+        for(int i=0; i<entries.size(); i++){
+            Entry entry = entries.get(i);
+            if(entry.hasKey(key)){
+                entries.remove(i);
+                return;
+            }
+            if(entry.kind == TABLE && entry.table.find(key, -1) != null){
+                entry.table.remove(key);
+                return;
+            }
+        }
+    }
+
+    /**
+     * write the table in a compact binary form, which can be read back with read()
+     * @param out    the output to write to
+     * @throws IOException if writing fails
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(entries.size());
+        for(Entry entry:entries){
+            out.writeByte(entry.kind);
+            writeString(out, entry.key);
+            if(entry.kind == TABLE){
+                entry.table.write(out);
+            }
+            else{
+                writeString(out, entry.text);
+            }
+        }
+    }
+
+    /**
+     * read a table which was written by write()
+     * @param in    the input to read from
+     * @return the table
+     * @throws IOException if reading fails or the data is not a table
+     */
+    public static LogicNetTable read(DataInput in) throws IOException {
+        LogicNetTable table = new LogicNetTable();
+        int size = in.readInt();
+        for(int i=0; i<size; i++){
+            int kind = in.readByte();
+            String key = readString(in);
+            if(kind == TABLE){
+                table.entries.add(new Entry(key, TABLE, null, read(in)));
+            }
+            else if(kind == STRING || kind == WORD){
+                table.entries.add(new Entry(key, kind, readString(in), null));
+            }
+            else{
+                throw new IOException("Unknown entry kind "+kind);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * write a string which may be null. Unlike writeUTF, this has no limit on the length of the string
+     * @param out      the output to write to
+     * @param value    the string
+     * @throws IOException if writing fails
+     */
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if(value == null){
+            out.writeInt(-1);
+        }
+        else{
+            byte [] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * read a string which was written by writeString()
+     * @param in    the input to read from
+     * @return the string, which may be null
+     * @throws IOException if reading fails
+     */
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if(length<0){
+            return null;
+        }
+        byte [] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * depth first search for the first entry with a matching key and kind
+     * @param key     the key we're looking for
+     * @param kind    the kind of value we're looking for, -1 for any
+     * @return the entry or null if nothing was found
+     */
+    private Entry find(String key, int kind){
+        for(Entry entry:entries){
+            if(entry.hasKey(key) && (kind == -1 || entry.kind == kind) && (kind != WORD || wordLength(entry.text) > 0)){
+                return entry;
+            }
+            if(entry.kind == TABLE){
+                Entry found = entry.table.find(key, kind);
+                if(found != null){
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * returns the length of the run of letters, digits and underscores at the start of a word
+     * @param text    the word
+     * @return the length
+     */
+    private static int wordLength(String text){
+        int length = 0;
+        while(length<text.length() && isWordChar(text.charAt(length))){
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * returns whether a character is an ascii letter, a digit or an underscore
+     * @param c    the character
+     * @return true/false
+     */
+    private static boolean isWordChar(char c){
+        return (c>='a' && c<='z') || (c>='A' && c<='Z') || (c>='0' && c<='9') || c=='_';
+    }
+
+    /**
+     * an entry in the table
+     */
+    private static class Entry {
+        private final String key;
+        private final int kind;
+        private final String text;
+        private final LogicNetTable table;
+
+        Entry(String key, int kind, String text, LogicNetTable table){
+            this.key = key;
+            this.kind = kind;
+            this.text = text;
+            this.table = table;
+        }
+
+        /**
+         * returns whether the key of this entry ends with the key we're looking for
+         * @param key    the key we're looking for
+         * @return true/false
+         */
+        boolean hasKey(String key){
+            return this.key != null && this.key.endsWith(key);
+        }
+    }
+}
@@ -0,0 +1,685 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+package palgacodebookgenerator.data.rule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * the rules which decide when a field is entered, as a reduced ordered binary decision diagram
+ * a rule is a number which refers to a node of the diagram. Every node tests an atom, e.g. [Typetumor equals NET],
+ * and refers to the rule which holds when the atom is false and the rule which holds when it is true. Nodes are
+ * never created twice and the atoms are tested in the order in which they were created, so equal rules are the
+ * same number, no matter how many paths through the net lead to them, and combining rules costs at most the
+ * product of their sizes instead of growing with every path.
+ * the atoms of a router are the values of a variable, which exclude each other, see value. Rules which only
+ * differ for combinations of values which cannot occur are the same number as well.
+ * the rules are only turned into expressions once they are complete, see getExpression.
+ * the operations walk the nodes with an explicit stack instead of recursion, as a long chain of rule nodes leads to
+ * rules with a node per rule node, which would otherwise overflow the call stack.
+ * a diagram belongs to a single net and is not thread safe
+ */
+public class RuleDiagram {
+    /**
+     * the rule which never holds
+     */
+    public static final int FALSE = 0;
+    /**
+     * the rule which always holds
+     */
+    public static final int TRUE = 1;
+
+    // the atom used by the terminal nodes, which is after every real atom
+    private static final int TERMINAL = Integer.MAX_VALUE;
+    private static final int AND = 0;
+    private static final int OR = 1;
+    // marks a combination of two rules which still has to be split into the combinations of their parts, see apply
+    private static final int SPLIT = -1;
+    // the largest number of slots for earlier combinations, 12 MB
+    private static final int MAX_COMPUTED = 1<<20;
+
+    // the nodes: the atom they test and the rules when the atom is false (low) and true (high)
+    private int [] atoms = new int[64];
+    private int [] lows = new int[64];
+    private int [] highs = new int[64];
+    private int size = 0;
+
+    // open addressing table with the node number + 1 of every node, to find existing nodes
+    private int [] uniqueTable = new int[128];
+
+    private final Map<String, Integer> atomMap = new HashMap<>();
+    private final List<RuleExpression> atomExpressions = new ArrayList<>();
+    private final List<RuleExpression> negatedAtomExpressions = new ArrayList<>();
+    // the variable of every atom, null for an atom which is not a value of a variable
+    private final List<Variable> atomVariables = new ArrayList<>();
+    private final Map<String, Variable> variables = new HashMap<>();
+    // the rules of the values of the variables, per text of the atom of the value
+    private final Map<String, Integer> valueRules = new HashMap<>();
+
+    // results of earlier combinations of two rules. A combination has a single slot, which a later combination may
+    // take over; the table grows with the nodes up to MAX_COMPUTED, so long nets do not keep every combination in
+    // memory
+    private long [] computedKeys = new long[128];
+    private int [] computedResults = new int[128];
+    // results of earlier operations
+    private final Map<Integer, Integer> notCache = new HashMap<>();
+    private final Map<Integer, RuleExpression> expressionCache = new HashMap<>();
+    private final Map<RuleExpression, RuleExpression> expressions = new HashMap<>();
+
+    /**
+     * constructor
+     */
+    public RuleDiagram(){
+        createNode(TERMINAL, FALSE, FALSE);
+        createNode(TERMINAL, TRUE, TRUE);
+    }
+
+    /**
+     * returns the rule which holds when an atom is true. Atoms with the same text are the same atom
+     * @param text           text of the atom, e.g. [Typetumor equals NET]
+     * @param negatedText    text of the atom when it is false, e.g. NOT [Typetumor equals NET]
+     * @return the rule
+     */
+    public int atom(String text, String negatedText){
+        Integer atom = atomMap.get(text);
+        if(atom == null){
+            atom = atomExpressions.size();
+            atomMap.put(text, atom);
+            atomExpressions.add(intern(RuleExpression.atom(text)));
+            negatedAtomExpressions.add(intern(RuleExpression.atom(negatedText)));
+            atomVariables.add(null);
+        }
+        return getNode(atom, FALSE, TRUE);
+    }
+
+    /**
+     * returns the rule which holds when a variable has a value, e.g. [Lokalisatie == colon]
+     * a variable has at most one value at a time. Every value is an atom, and the rule of a value holds when its atom
+     * is the first true one among the atoms of the values of the variable. This way a combination of values which
+     * cannot occur has the same outcome as the value it is taken for, so no rule depends on it, e.g. the rule
+     * which holds for a value or for none of the values which came before is: none of the values after it.
+     * The same text gives the same rule
+     * @param variable       the variable, e.g. Lokalisatie
+     * @param text           text of the atom of the value, e.g. [Lokalisatie == colon]
+     * @param negatedText    text of the atom when it is false, e.g. NOT [Lokalisatie == colon]
+     * @return the rule
+     */
+    public int value(String variable, String text, String negatedText){
+        Integer rule = valueRules.get(text);
+        if(rule == null){
+            Variable valueVariable = variables.computeIfAbsent(variable, k -> new Variable());
+            int atom = atomExpressions.size();
+            atomExpressions.add(intern(RuleExpression.atom(text)));
+            negatedAtomExpressions.add(intern(RuleExpression.atom(negatedText)));
+            atomVariables.add(valueVariable);
+            // the atom comes after the atoms of the other values, so it is tested last
+            rule = and(valueVariable.none, getNode(atom, FALSE, TRUE));
+            valueVariable.none = and(valueVariable.none, getNode(atom, TRUE, FALSE));
+            valueRules.put(text, rule);
+        }
+        return rule;
+    }
+
+    /**
+     * returns the rule which holds when both rules hold
+     * @param rule1    first rule
+     * @param rule2    second rule
+     * @return the rule
+     */
+    public int and(int rule1, int rule2){
+        int result = combineTerminal(AND, rule1, rule2);
+        return result == SPLIT ? apply(AND, rule1, rule2) : result;
+    }
+
+    /**
+     * returns the rule which holds when either of the rules holds
+     * @param rule1    first rule
+     * @param rule2    second rule
+     * @return the rule
+     */
+    public int or(int rule1, int rule2){
+        int result = combineTerminal(OR, rule1, rule2);
+        return result == SPLIT ? apply(OR, rule1, rule2) : result;
+    }
+
+    /**
+     * returns the rule which holds when the rule does not hold
+     * @param rule    the rule
+     * @return the negated rule
+     */
+    public int not(int rule){
+        // a node is negated once both its parts are
+        int [] stack = new int[16];
+        int top = 0;
+        stack[top++] = rule;
+        while(top > 0){
+            int node = stack[top-1];
+            if(getNegation(node) != null){
+                top--;
+                continue;
+            }
+            Integer low = getNegation(lows[node]);
+            Integer high = getNegation(highs[node]);
+            if(low != null && high != null){
+                top--;
+                notCache.put(node, getNode(atoms[node], low, high));
+                continue;
+            }
+            if(top+2 > stack.length){
+                stack = Arrays.copyOf(stack, 2*stack.length);
+            }
+            if(high == null){
+                stack[top++] = highs[node];
+            }
+            if(low == null){
+                stack[top++] = lows[node];
+            }
+        }
+        return getNegation(rule);
+    }
+
+    /**
+     * returns the negation of a rule, if it is known already
+     * @param rule    the rule
+     * @return the negated rule, null if the rule was not negated yet
+     */
+    private Integer getNegation(int rule){
+        if(rule == FALSE){
+            return TRUE;
+        }
+        if(rule == TRUE){
+            return FALSE;
+        }
+        return notCache.get(rule);
+    }
+
+    /**
+     * returns the number of nodes which test an atom in the rule
+     * @param rule    the rule
+     * @return the number of nodes
+     */
+    public int size(int rule){
+        boolean [] visited = new boolean[size];
+        int [] stack = new int[size];
+        int top = 0;
+        int nodes = 0;
+        stack[top++] = rule;
+        visited[rule] = true;
+        while(top > 0){
+            int node = stack[--top];
+            if(atoms[node] != TERMINAL){
+                nodes++;
+                for(int child:new int[]{lows[node], highs[node]}){
+                    if(!visited[child]){
+                        visited[child] = true;
+                        stack[top++] = child;
+                    }
+                }
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * returns a rule as an expression, e.g. [A == true] AND (NOT [B equals 1] OR [C == x])
+     * every node becomes "atom AND (rule if true)" or "NOT atom AND (rule if false)", or a combination of the two
+     * when both are possible. A node which is part of several rules becomes a single expression.
+     * a rule which always holds is an empty expression, a rule which never holds is FALSE
+     * @param rule    the rule
+     * @return the expression of the rule
+     */
+    public RuleExpression getExpression(int rule){
+        // a node gets its expression once all its parts have one
+        int [] stack = new int[16];
+        int top = 0;
+        stack[top++] = rule;
+        while(top > 0){
+            int node = stack[top-1];
+            if(getKnownExpression(node) != null){
+                top--;
+                continue;
+            }
+            Variable variable = getValuesVariable(node);
+            int [] parts = variable != null ? getValueParts(node) : new int[]{lows[node], highs[node]};
+            if(top+parts.length > stack.length){
+                stack = Arrays.copyOf(stack, 2*stack.length+parts.length);
+            }
+            boolean known = true;
+            for(int i=parts.length-1; i>=0; i--){
+                if(getKnownExpression(parts[i]) == null){
+                    stack[top++] = parts[i];
+                    known = false;
+                }
+            }
+            if(known){
+                top--;
+                expressionCache.put(node, variable != null ? createValuesExpression(node) :
+                        createExpression(node, getKnownExpression(lows[node]), getKnownExpression(highs[node])));
+            }
+        }
+        return getKnownExpression(rule);
+    }
+
+    /**
+     * returns the expression of a rule, if it is known already
+     * @param rule    the rule
+     * @return the expression, null if the expression was not created yet
+     */
+    private RuleExpression getKnownExpression(int rule){
+        if(rule == TRUE){
+            return RuleExpression.ALWAYS;
+        }
+        if(rule == FALSE){
+            return intern(RuleExpression.atom("FALSE"));
+        }
+        return expressionCache.get(rule);
+    }
+
+    /**
+     * creates the expression of a node from the expressions of its parts
+     * @param node    the node, which tests an atom
+     * @param low     expression of the rule when the atom is false
+     * @param high    expression of the rule when the atom is true
+     * @return the expression
+     */
+    private RuleExpression createExpression(int node, RuleExpression low, RuleExpression high){
+        RuleExpression atom = atomExpressions.get(atoms[node]);
+        RuleExpression negatedAtom = negatedAtomExpressions.get(atoms[node]);
+        if(lows[node] == FALSE && highs[node] == TRUE){
+            return atom;
+        }
+        if(lows[node] == TRUE && highs[node] == FALSE){
+            return negatedAtom;
+        }
+        if(lows[node] == FALSE){
+            return join("AND", atom, high);
+        }
+        if(highs[node] == FALSE){
+            return join("AND", negatedAtom, low);
+        }
+        if(highs[node] == TRUE){
+            return join("OR", atom, low);
+        }
+        if(lows[node] == TRUE){
+            return join("OR", negatedAtom, high);
+        }
+        return join("OR", join("AND", atom, high), join("AND", negatedAtom, low));
+    }
+
+    /**
+     * returns the variable of which the node tests a value, if the nodes below it for when the value is false test
+     * the next values, and none of the nodes for when a value is true does, as the rules of values do
+     * @param node    the node
+     * @return the variable, null if the node does not test a value of a variable
+     */
+    private Variable getValuesVariable(int node){
+        Variable variable = atoms[node] == TERMINAL ? null : atomVariables.get(atoms[node]);
+        if(variable == null){
+            return null;
+        }
+        while(tests(node, variable)){
+            if(tests(highs[node], variable)){
+                return null;
+            }
+            node = lows[node];
+        }
+        return variable;
+    }
+
+    /**
+     * returns whether a node tests a value of a variable
+     * @param node        the node
+     * @param variable    the variable
+     * @return true/false
+     */
+    private boolean tests(int node, Variable variable){
+        return atoms[node] != TERMINAL && atomVariables.get(atoms[node]) == variable;
+    }
+
+    /**
+     * returns the rules which follow the values of a variable, starting at a node which tests one of them: the
+     * rule when the value holds, for each value which is tested, and last the rule for the other values
+     * @param node    the node
+     * @return the rules
+     */
+    private int [] getValueParts(int node){
+        Variable variable = atomVariables.get(atoms[node]);
+        List<Integer> parts = new ArrayList<>();
+        while(tests(node, variable)){
+            parts.add(highs[node]);
+            node = lows[node];
+        }
+        parts.add(node);
+        return parts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * creates the expression of the nodes which test the values of a variable, starting at a node which tests one
+     * of them, from the expressions of the rules which follow the values. The values which lead to the same rule
+     * are grouped, e.g. ([Keuze == a] OR [Keuze == b]) AND (rule), and the values which lead to FALSE are left
+     * out; as the values exclude each other, the atoms of the other values are not repeated. The other values,
+     * which are not tested, are written as the tested values they are not, e.g. NOT [Keuze == c] AND (rule).
+     * as with the other nodes, see createExpression, a rule which holds for all other values is not repeated
+     * @param node    the node
+     * @return the expression
+     */
+    private RuleExpression createValuesExpression(int node){
+        Variable variable = atomVariables.get(atoms[node]);
+        // the atoms of the tested values per rule, in the order of the values
+        Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        List<Integer> testedAtoms = new ArrayList<>();
+        while(tests(node, variable)){
+            groups.computeIfAbsent(highs[node], k -> new ArrayList<>()).add(atoms[node]);
+            testedAtoms.add(atoms[node]);
+            node = lows[node];
+        }
+        int rest = node;
+        groups.computeIfAbsent(rest, k -> new ArrayList<>());
+
+        // when the values lead either to TRUE or to one other rule, that rule does not need its condition, e.g.
+        // NOT [Keuze == a] OR (rule) instead of NOT [Keuze == a] OR ([Keuze == a] AND (rule))
+        boolean absorbed = groups.size() == 2 && groups.containsKey(TRUE) && !groups.containsKey(FALSE);
+        List<RuleExpression> alternatives = new ArrayList<>();
+        for(Map.Entry<Integer, List<Integer>> group:groups.entrySet()){
+            if(group.getKey() == FALSE){
+                continue;
+            }
+            if(absorbed && group.getKey() != TRUE){
+                alternatives.add(getKnownExpression(group.getKey()));
+                continue;
+            }
+            List<RuleExpression> atomParts = new ArrayList<>();
+            RuleExpression condition;
+            if(group.getKey() == rest){
+                for(int atom:testedAtoms){
+                    if(!group.getValue().contains(atom)){
+                        atomParts.add(negatedAtomExpressions.get(atom));
+                    }
+                }
+                condition = joinParts("AND", atomParts);
+            }
+            else{
+                for(int atom:group.getValue()){
+                    atomParts.add(atomExpressions.get(atom));
+                }
+                condition = joinParts("OR", atomParts);
+            }
+            alternatives.add(group.getKey() == TRUE ? condition : join("AND", condition, getKnownExpression(group.getKey())));
+        }
+        return joinParts("OR", alternatives);
+    }
+
+    /**
+     * join parts with an operator, or return the part if there is only one
+     * @param operator    AND or OR
+     * @param parts       the parts, which are expressions of this diagram
+     * @return the expression
+     */
+    private RuleExpression joinParts(String operator, List<RuleExpression> parts){
+        return parts.size() == 1 ? parts.get(0) : join(operator, parts.toArray(new RuleExpression[0]));
+    }
+
+    /**
+     * join parts with an operator, returning the existing expression if these parts were joined before
+     * @param operator    AND or OR
+     * @param parts       the parts, which are expressions of this diagram
+     * @return the expression
+     */
+    private RuleExpression join(String operator, RuleExpression... parts){
+        return intern(RuleExpression.join(operator, parts));
+    }
+
+    /**
+     * returns the single object of this diagram which is equal to an expression
+     * @param expression    the expression
+     * @return the expression which was created first
+     */
+    private RuleExpression intern(RuleExpression expression){
+        RuleExpression existing = expressions.putIfAbsent(expression, expression);
+        return existing == null ? expression : existing;
+    }
+
+    /**
+     * combine two rules, starting with the first atom they test
+     * the combinations of the parts are done first: the stack holds the combinations which still have to be split
+     * into the combinations of their parts (SPLIT) and those whose parts are combined and which only need their node
+     * (the atom of the node); the results holds the rules of the combinations which are done
+     * @param operator    AND or OR
+     * @param rule1       first rule
+     * @param rule2       second rule
+     * @return the combined rule
+     */
+    private int apply(int operator, int rule1, int rule2){
+        int [] stack = new int[48];
+        int top = 0;
+        int [] results = new int[16];
+        int resultTop = 0;
+        stack[top++] = rule1;
+        stack[top++] = rule2;
+        stack[top++] = SPLIT;
+        while(top > 0){
+            int step = stack[--top];
+            int right = stack[--top];
+            int left = stack[--top];
+            int result;
+            if(step == SPLIT){
+                result = combineTerminal(operator, left, right);
+                if(result == SPLIT){
+                    result = getComputed(operator, left, right);
+                }
+                if(result == SPLIT){
+                    if(top+9 > stack.length){
+                        stack = Arrays.copyOf(stack, 2*stack.length);
+                    }
+                    int atom = Math.min(atoms[left], atoms[right]);
+                    // the node comes after both parts; the part when the atom is false is done first
+                    stack[top++] = left;
+                    stack[top++] = right;
+                    stack[top++] = atom;
+                    stack[top++] = atoms[left] == atom ? highs[left] : left;
+                    stack[top++] = atoms[right] == atom ? highs[right] : right;
+                    stack[top++] = SPLIT;
+                    stack[top++] = atoms[left] == atom ? lows[left] : left;
+                    stack[top++] = atoms[right] == atom ? lows[right] : right;
+                    stack[top++] = SPLIT;
+                    continue;
+                }
+            }
+            else{
+                int high = results[--resultTop];
+                int low = results[--resultTop];
+                result = getNode(step, low, high);
+                putComputed(operator, left, right, result);
+            }
+            if(resultTop == results.length){
+                results = Arrays.copyOf(results, 2*results.length);
+            }
+            results[resultTop++] = result;
+        }
+        return results[0];
+    }
+
+    /**
+     * combine two rules when one of them is a terminal or they are the same rule
+     * @param operator    AND or OR
+     * @param rule1       first rule
+     * @param rule2       second rule
+     * @return the combined rule, SPLIT if the rules have to be split into their parts
+     */
+    private static int combineTerminal(int operator, int rule1, int rule2){
+        // FALSE for AND and TRUE for OR decide the result, the other terminal leaves the other rule
+        int decisive = operator == AND ? FALSE : TRUE;
+        if(rule1 == decisive || rule2 == decisive){
+            return decisive;
+        }
+        if(rule1 == 1-decisive || rule1 == rule2){
+            return rule2;
+        }
+        if(rule2 == 1-decisive){
+            return rule1;
+        }
+        return SPLIT;
+    }
+
+    /**
+     * returns the result of an earlier combination of two rules which test an atom
+     * @param operator    AND or OR
+     * @param rule1       first rule
+     * @param rule2       second rule
+     * @return the combined rule, SPLIT if the combination is not in the table
+     */
+    private int getComputed(int operator, int rule1, int rule2){
+        int slot = getComputedSlot(operator, rule1, rule2);
+        return computedKeys[slot] == getComputedKey(operator, rule1, rule2) ? computedResults[slot] : SPLIT;
+    }
+
+    /**
+     * store the result of a combination of two rules which test an atom, in place of the combination which had
+     * its slot
+     * @param operator    AND or OR
+     * @param rule1       first rule
+     * @param rule2       second rule
+     * @param result      the combined rule
+     */
+    private void putComputed(int operator, int rule1, int rule2, int result){
+        int slot = getComputedSlot(operator, rule1, rule2);
+        computedKeys[slot] = getComputedKey(operator, rule1, rule2);
+        computedResults[slot] = result;
+    }
+
+    /**
+     * returns the key of a combination. Both operators are symmetric, so the order of the rules does not matter.
+     * The rules are never terminals, so a key is never 0, which marks an empty slot
+     * @param operator    AND or OR
+     * @param rule1       first rule
+     * @param rule2       second rule
+     * @return the key
+     */
+    private static long getComputedKey(int operator, int rule1, int rule2){
+        return (rule1 < rule2 ? ((long) rule1<<32) | rule2 : ((long) rule2<<32) | rule1) | ((long) operator<<63);
+    }
+
+    /**
+     * returns the slot of a combination; the table grows with the nodes, so the slot may change while combining
+     * @param operator    AND or OR
+     * @param rule1       first rule
+     * @param rule2       second rule
+     * @return the slot
+     */
+    private int getComputedSlot(int operator, int rule1, int rule2){
+        return hash(operator, rule1 ^ rule2, Math.min(rule1, rule2)) & (computedKeys.length-1);
+    }
+
+    /**
+     * returns the node which tests an atom, creating it if it does not exist yet
+     * a node which leads to the same rule whether the atom is true or false is not needed, so the rule is returned
+     * @param atom    the atom
+     * @param low     rule when the atom is false
+     * @param high    rule when the atom is true
+     * @return the node
+     */
+    private int getNode(int atom, int low, int high){
+        if(low == high){
+            return low;
+        }
+        int mask = uniqueTable.length-1;
+        int slot = hash(atom, low, high) & mask;
+        while(uniqueTable[slot] != 0){
+            int node = uniqueTable[slot]-1;
+            if(atoms[node] == atom && lows[node] == low && highs[node] == high){
+                return node;
+            }
+            slot = (slot+1) & mask;
+        }
+        int node = createNode(atom, low, high);
+        uniqueTable[slot] = node+1;
+        if(2*size > uniqueTable.length){
+            growUniqueTable();
+        }
+        return node;
+    }
+
+    /**
+     * add a node
+     * @param atom    the atom
+     * @param low     rule when the atom is false
+     * @param high    rule when the atom is true
+     * @return the new node
+     */
+    private int createNode(int atom, int low, int high){
+        if(size == atoms.length){
+            atoms = Arrays.copyOf(atoms, 2*size);
+            lows = Arrays.copyOf(lows, 2*size);
+            highs = Arrays.copyOf(highs, 2*size);
+        }
+        atoms[size] = atom;
+        lows[size] = low;
+        highs[size] = high;
+        return size++;
+    }
+
+    /**
+     * double the size of the table with the nodes and add the nodes again
+     */
+    private void growUniqueTable(){
+        uniqueTable = new int[2*uniqueTable.length];
+        if(computedKeys.length < MAX_COMPUTED){
+            computedKeys = new long[uniqueTable.length];
+            computedResults = new int[uniqueTable.length];
+        }
+        int mask = uniqueTable.length-1;
+        for(int node=2; node<size; node++){
+            int slot = hash(atoms[node], lows[node], highs[node]) & mask;
+            while(uniqueTable[slot] != 0){
+                slot = (slot+1) & mask;
+            }
+            uniqueTable[slot] = node+1;
+        }
+    }
+
+    /**
+     * a variable whose values exclude each other, see value
+     */
+    private static class Variable {
+        // the rule which holds when the variable has none of the values which have an atom
+        private int none = TRUE;
+    }
+
+    /**
+     * hash of a node
+     * the bits are mixed thoroughly, as the nodes of long chains of rules differ by small steps, which would
+     * otherwise end up in neighbouring slots and make the probing of the table slow
+     * @param atom    the atom
+     * @param low     rule when the atom is false
+     * @param high    rule when the atom is true
+     * @return the hash
+     */
+    private static int hash(int atom, int low, int high){
+        long hash = (((long) atom*0x9E3779B97F4A7C15L + low)*0xC2B2AE3D27D4EB4FL + high)*0x165667B19E3779F9L;
+        hash ^= hash>>>29;
+        hash *= 0xBF58476D1CE4E5B9L;
+        return (int) (hash ^ (hash>>>32));
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+package palgacodebookgenerator.data.rule;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * a rule which decides when a field is entered, as an expression: an atom, e.g. [Typetumor equals NET], or parts
+ * joined with AND or OR
+ * expressions are immutable and hash-consed by the rule diagram of a net: a part which is shared by several rules
+ * is a single object. Two expressions are therefore equal when they have the same atom, or the same operator and
+ * the very same parts, which keeps comparing them cheap
+ */
+public final class RuleExpression {
+    /**
+     * the expression of a rule which always holds, an empty text
+     */
+    public static final RuleExpression ALWAYS = new RuleExpression("", null, Collections.emptyList());
+
+    private final String atom;
+    private final String operator;
+    private final List<RuleExpression> parts;
+    private final int hash;
+
+    private RuleExpression(String atom, String operator, List<RuleExpression> parts){
+        this.atom = atom;
+        this.operator = operator;
+        this.parts = parts;
+        int hash = atom != null ? atom.hashCode() : operator.hashCode();
+        for(RuleExpression part:parts){
+            hash = 31*hash+System.identityHashCode(part);
+        }
+        this.hash = hash;
+    }
+
+    /**
+     * returns the expression of an atom
+     * @param text    the text of the atom
+     * @return the expression
+     */
+    static RuleExpression atom(String text){
+        return new RuleExpression(text, null, Collections.emptyList());
+    }
+
+    /**
+     * returns the expression of parts joined with an operator
+     * @param operator    AND or OR
+     * @param parts       the parts
+     * @return the expression
+     */
+    static RuleExpression join(String operator, RuleExpression... parts){
+        return new RuleExpression(null, operator, Collections.unmodifiableList(Arrays.asList(parts)));
+    }
+
+    /**
+     * returns whether the expression is an atom
+     * @return true/false
+     */
+    public boolean isAtom(){
+        return atom != null;
+    }
+
+    /**
+     * returns the text of an atom
+     * @return the text of the atom, null if the expression is not an atom
+     */
+    public String getAtom(){
+        return atom;
+    }
+
+    /**
+     * returns the operator which joins the parts
+     * @return AND or OR, null if the expression is an atom
+     */
+    public String getOperator(){
+        return operator;
+    }
+
+    /**
+     * returns the parts which are joined
+     * @return list with the parts, empty if the expression is an atom
+     */
+    public List<RuleExpression> getParts(){
+        return parts;
+    }
+
+    /**
+     * returns the text of the expression, e.g. [A == true] AND (NOT [B equals 1] OR [C == x])
+     * a part is put between brackets when its own parts are joined with another operator
+     * @return the text of the expression
+     */
+    public String render(){
+        StringBuilder text = new StringBuilder();
+        render(text::append);
+        return text.toString();
+    }
+
+    /**
+     * pass the text of the expression on in parts: the atoms, operators and brackets. This way the text can be
+     * used, e.g. split into cells, without creating it as a whole
+     * the parts are taken from a stack rather than by recursion, as the rules of long chains are nested deeply
+     * @param text    receives the parts of the text, in order
+     */
+    public void render(Consumer<String> text){
+        // the texts and the expressions which are still to come, the next one on top
+        Deque<Object> stack = new ArrayDeque<>();
+        stack.push(this);
+        while(!stack.isEmpty()){
+            Object next = stack.pop();
+            if(next instanceof String){
+                text.accept((String) next);
+                continue;
+            }
+            RuleExpression expression = (RuleExpression) next;
+            if(expression.isAtom()){
+                text.accept(expression.atom);
+                continue;
+            }
+            for(int i=expression.parts.size()-1; i>=0; i--){
+                RuleExpression part = expression.parts.get(i);
+                boolean brackets = !part.isAtom() && !part.operator.equals(expression.operator);
+                if(brackets){
+                    stack.push(")");
+                }
+                stack.push(part);
+                if(brackets){
+                    stack.push("(");
+                }
+                if(i>0){
+                    stack.push(expression.separator());
+                }
+            }
+        }
+    }
+
+    /**
+     * returns the text between the parts
+     * @return the operator with a space on both sides
+     */
+    private String separator(){
+        return operator.equals("AND") ? " AND " : " OR ";
+    }
+
+    @Override
+    public boolean equals(Object object){
+        if(this == object){
+            return true;
+        }
+        if(!(object instanceof RuleExpression)){
+            return false;
+        }
+        RuleExpression expression = (RuleExpression) object;
+        if(hash != expression.hash){
+            return false;
+        }
+        if(isAtom() || expression.isAtom()){
+            return isAtom() && expression.isAtom() && atom.equals(expression.atom);
+        }
+        if(!operator.equals(expression.operator) || parts.size() != expression.parts.size()){
+            return false;
+        }
+        for(int i=0; i<parts.size(); i++){
+            if(parts.get(i) != expression.parts.get(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode(){
+        return hash;
+    }
+}
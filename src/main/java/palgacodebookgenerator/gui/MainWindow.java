@@ -25,7 +25,10 @@ import palgacodebookgenerator.gui.resourcemanagement.ResourceManager;
 import palgacodebookgenerator.codebook.CaptionOverwriter;
 import palgacodebookgenerator.codebook.Codebook;
 import palgacodebookgenerator.codebook.CodebookFactory;
+import palgacodebookgenerator.codebook.CodebookWriter;
 import palgacodebookgenerator.data.Protocol;
+import palgacodebookgenerator.data.net.NetCache;
+import palgacodebookgenerator.utils.RunStatistics;
 import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -259,12 +262,24 @@ public class MainWindow {
     private class PalgaTask extends Task{
 
         /**
-         * creates the captionoverwriter, generates the codebook items, creates the codebook,
-         * saves the codebook and write the conflicting captions to a file
+         * generates the codebooks while recording the statistics of the run. The statistics are logged and
+         * written as a JSON run report next to the codebooks
          * @return null
          */
         @Override
         public Void call() {
+            RunStatistics runStatistics = new RunStatistics(runParameters.getProtocolName());
+            runStatistics.run(this::generate);
+            runStatistics.logSummary();
+            runStatistics.writeReport(runParameters.getOutputDir()+runParameters.getProtocolName()+"_run_report.json");
+            return null;
+        }
+
+        /**
+         * creates the captionoverwriter, generates the codebook items, creates the codebook,
+         * saves the codebook and write the conflicting captions to a file
+         */
+        private void generate() {
             try {
                 logger.log(Level.INFO, "Configuring CaptionOverwriter...");
                 CaptionOverwriter captionOverwriter = new CaptionOverwriter(runParameters.getProtocolName());
@@ -272,6 +287,10 @@ public class MainWindow {
 
                 logger.log(Level.INFO, "Reading the protocol data from the database...");
                 Protocol protocol = runParameters.getProtocol();
+                if(runParameters.getNetCache()){
+                    NetCache.prune(NetCache.getDefaultCacheDir());
+                    protocol.setNetCache(new NetCache(NetCache.getDefaultCacheDir(), runParameters.getWorkspaceFileName()));
+                }
 //                protocol.generateCodebookItems();
 
 
@@ -282,10 +301,16 @@ public class MainWindow {
                 // to check the boolean value writeToSheets and then calls the abstract methods for the writing?
                 List<Codebook> codebookList = CodebookFactory.createCodebook(runParameters.getCodebookType(), protocol, captionOverwriter, runParameters.getStoreOptionsInSeparateSheets());
 
+                logger.log(Level.INFO, "Writing "+runParameters.getCodebookType()+" codebook(s)...");
                 for(Codebook codebook:codebookList){
-                    logger.log(Level.INFO, "Writing "+runParameters.getCodebookType()+" codebook(s)...");
-                    codebook.writeToExcel(runParameters.getOutputDir());
-                    logger.log(Level.INFO, "Done");
+                    codebook.setStreamingWorkbook(runParameters.getStreamingWorkbook());
+                    codebook.setSharedRules(runParameters.getSharedRules());
+                }
+                CodebookWriter codebookWriter = new CodebookWriter(Runtime.getRuntime().availableProcessors());
+                List<String> failedCodebooks = codebookWriter.writeCodebooks(codebookList, runParameters.getOutputDir(),
+                        (codebook, done, total) -> updateProgress(done, total));
+                if(failedCodebooks.size()>0){
+                    logger.log(Level.INFO, "The following codebooks could not be written: "+String.join(", ", failedCodebooks));
                 }
 
                 logger.log(Level.INFO, "Writing the conflicting captions...");
@@ -295,7 +320,6 @@ public class MainWindow {
             } catch (Exception e){
                 logger.log(Level.INFO, "A fatal error occurred:\n"+e.getMessage());
             }
-            return null;
         }
     }
 }
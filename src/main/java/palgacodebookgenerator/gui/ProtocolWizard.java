@@ -32,6 +32,7 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.controlsfx.control.ListSelectionView;
@@ -43,6 +44,7 @@ import palgacodebookgenerator.utils.ParseUtils;
 import palgacodebookgenerator.utils.SQLiteUtils;
 
 import java.io.File;
+import java.sql.SQLException;
 import java.util.Map;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
@@ -289,7 +291,6 @@ class ProtocolWizard {
                 runParameters.setOverwriteFileName(getStringSetting(wizard.getSettings(), "overwriteFile"));
                 runParameters.setOutputDir(getStringSetting(wizard.getSettings(), "outputFileDir"));
                 runParameters.setWorkspaceFileName(getStringSetting(wizard.getSettings(), "workspaceFile"));
-                SQLiteUtils.setDatabase(runParameters.getWorkspaceFileName());
             }
         };
     }
@@ -303,6 +304,8 @@ class ProtocolWizard {
             private final ComboBox<String> codebookTypeComboBox = createComboBox("codebookType");
             private final CheckBox optionsInSheetsCheckBox = new CheckBox();
             private final Label optionsInSheetsLabel = new Label("Create separate sheets for Options found in protocol: ");
+            private final CheckBox sharedRulesCheckBox = new CheckBox();
+            private final CheckBox netCacheCheckBox = new CheckBox();
 
             final ValidationSupport validationSupport = new ValidationSupport();
 
@@ -322,6 +325,8 @@ class ProtocolWizard {
                 GridPane gridPane = createGridPane();
                 codebookTypeComboBoxSetup(gridPane, row);
                 optionsInSheetsCheckBoxSetup(gridPane, ++row);
+                sharedRulesCheckBoxSetup(gridPane, ++row);
+                netCacheCheckBoxSetup(gridPane, ++row);
 
                 this.setContent(gridPane);
 
@@ -341,6 +346,29 @@ class ProtocolWizard {
                 setOptionsRowVisible(false);
             }
 
+            /**
+             * create label etc. for the shared rules checkbox
+             * @param gridPane    the pane to which we will add the items
+             * @param row         row number
+             */
+            private void sharedRulesCheckBoxSetup(GridPane gridPane, int row){
+                gridPane.add(new Label("Write each distinct rule once to a RULES sheet: "), 0, row);
+                sharedRulesCheckBox.setId("sharedRulesCheckBox");
+                gridPane.add(sharedRulesCheckBox, 1, row);
+            }
+
+            /**
+             * create label etc. for the net cache checkbox
+             * @param gridPane    the pane to which we will add the items
+             * @param row         row number
+             */
+            private void netCacheCheckBoxSetup(GridPane gridPane, int row){
+                gridPane.add(new Label("Keep the parsed nets for the next run (net cache): "), 0, row);
+                netCacheCheckBox.setId("netCacheCheckBox");
+                netCacheCheckBox.setSelected(true);
+                gridPane.add(netCacheCheckBox, 1, row);
+            }
+
             /**
              * change visibility of the options in sheets label and its checkbox
              * @param visible whether the checkbox and label should be made visible or invisible
@@ -376,9 +404,12 @@ class ProtocolWizard {
              * fetch the protocol's table prefix from the database
              */
             private void setProtocolTablePrefix(){
-                SQLiteUtils.openDB();
-                String settings = SQLiteUtils.doTableSettingsQuery();
-                SQLiteUtils.closeDB();
+                String settings = "";
+                try {
+                    settings = SQLiteUtils.doTableSettingsQuery(runParameters.getWorkspaceFileName());
+                } catch (SQLException e){
+                    logger.log(Level.ERROR, "Could not read the settings of the workspace: "+e.getMessage());
+                }
                 runParameters.setProtocolTablePrefix(ParseUtils.getValue(settings, tablePrefixPattern));
             }
 
@@ -401,6 +432,8 @@ class ProtocolWizard {
                 setProtocolTablePrefix();
                 runParameters.setCodebookType(getStringSetting(wizard.getSettings(), "codebookType"));
                 runParameters.setStoreOptionsInSeparateSheets((Boolean) wizard.getSettings().get("optionsInSheetsCheckBox"));
+                runParameters.setSharedRules((Boolean) wizard.getSettings().get("sharedRulesCheckBox"));
+                runParameters.setNetCache((Boolean) wizard.getSettings().get("netCacheCheckBox"));
             }
         };
     }
@@ -469,9 +502,12 @@ class ProtocolWizard {
 
                 // fetch the net names for the protocol
                 String protocol = runParameters.getProtocolTablePrefix();
-                SQLiteUtils.openDB();
-                ObservableList<String> netNames = FXCollections.observableArrayList(SQLiteUtils.getLogicNetNames(protocol));
-                SQLiteUtils.closeDB();
+                ObservableList<String> netNames = FXCollections.observableArrayList();
+                try {
+                    netNames.addAll(SQLiteUtils.getLogicNetNames(runParameters.getWorkspaceFileName(), protocol));
+                } catch (SQLException e){
+                    logger.log(Level.ERROR, "Could not read the nets of the workspace: "+e.getMessage());
+                }
 
                 // set the listselectionview to these items
                 listSelectionView.getSourceItems().addAll(netNames);
@@ -21,6 +21,7 @@
 package palgacodebookgenerator.gui;
 
 import palgacodebookgenerator.data.Protocol;
+import palgacodebookgenerator.utils.ParseUtils;
 
 import java.io.File;
 import java.util.List;
@@ -36,6 +37,9 @@ class RunParameters {
     private String overwriteFileName = "";
 
     private boolean storeOptionsInSeparateSheets = false;
+    private boolean streamingWorkbook = true;
+    private boolean sharedRules = false;
+    private boolean netCache = true;
 
     private final Protocol protocol = new Protocol();
 
@@ -61,11 +65,10 @@ class RunParameters {
 
     /**
      * sets the protocol name
-     * @param protocolTablePrefix    the name of the protocol
+     * @param conclusionNet    the conclusion net of the protocol, from which the table prefix is derived
      */
-    void setProtocolTablePrefix(String protocolTablePrefix) {
-        protocolTablePrefix = protocolTablePrefix.substring(0, protocolTablePrefix.lastIndexOf("_")+1);
-        protocol.setProtocolTablePrefix(protocolTablePrefix);
+    void setProtocolTablePrefix(String conclusionNet) {
+        protocol.setProtocolTablePrefix(ParseUtils.getProtocolTablePrefix(conclusionNet));
     }
 
     /**
@@ -98,6 +101,7 @@ class RunParameters {
      */
     void setWorkspaceFileName(String workspaceFileName) {
         this.workspaceFileName = workspaceFileName;
+        protocol.setWorkspace(workspaceFileName);
     }
 
     /**
@@ -182,6 +186,55 @@ class RunParameters {
         return storeOptionsInSeparateSheets;
     }
 
+    /**
+     * set whether the codebooks should be written using streaming workbooks
+     * @param value    true/false
+     */
+    void setStreamingWorkbook(boolean value){
+        streamingWorkbook = value;
+    }
+
+    /**
+     * return whether the codebooks should be written using streaming workbooks, which keeps memory use flat for
+     * large protocols
+     * @return true/false
+     */
+    boolean getStreamingWorkbook(){
+        return streamingWorkbook;
+    }
+
+    /**
+     * set whether the rules should be written once to a RULES sheet
+     * @param value    true/false
+     */
+    void setSharedRules(Boolean value){
+        sharedRules = value;
+    }
+
+    /**
+     * return whether the rules should be written once to a RULES sheet, with the codebook rows referring to them
+     * @return true/false
+     */
+    boolean getSharedRules(){
+        return sharedRules;
+    }
+
+    /**
+     * set whether the parsed nets should be kept in the net cache, so a next run does not have to parse them again
+     * @param value    true/false
+     */
+    void setNetCache(Boolean value){
+        netCache = value;
+    }
+
+    /**
+     * return whether the parsed nets should be kept in the net cache
+     * @return true/false
+     */
+    boolean getNetCache(){
+        return netCache;
+    }
+
     /**
      * returns the protocol object, which contains the data etc.
      * @return the protocol object
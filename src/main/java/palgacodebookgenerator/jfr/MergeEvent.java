@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+package palgacodebookgenerator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for merging the codebook items of a single path
+ */
+@Name("palgacodebookgenerator.Merge")
+@Label("Merge")
+@Category({"PALGA Codebook Generator", "Codebooks"})
+@Description("Merging the codebook items of a path")
+public class MergeEvent extends Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Merge Policy")
+    public String mergePolicy;
+
+    @Label("Items")
+    @Description("Number of codebook items of the path before merging")
+    public int itemCount;
+
+    @Label("Merged Items")
+    @Description("Number of codebook items of the path after merging")
+    public int mergedCount;
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+package palgacodebookgenerator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for reading a single net: splitting and parsing its data (or reading it from the net cache), creating
+ * the nodes and connecting the graph
+ */
+@Name("palgacodebookgenerator.NetParse")
+@Label("Net Parse")
+@Category({"PALGA Codebook Generator", "Nets"})
+@Description("Parsing a net and building its graph")
+public class NetParseEvent extends Event {
+    @Label("Net")
+    public String netName;
+
+    @Label("Nodes")
+    public int nodeCount;
+
+    @Label("Codebook Nodes")
+    @Description("Number of reachable nodes which create codebook items")
+    public int codebookNodeCount;
+
+    @Label("From Cache")
+    @Description("Whether the parsed nodes were read from the net cache")
+    public boolean fromCache;
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+package palgacodebookgenerator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for deriving the rules which lead from a node to one of its children
+ * the rules are cached, so there is one event per node and child. As the rules of the parents are derived on demand,
+ * the duration includes deriving the rules of the parents which were not derived yet
+ */
+@Name("palgacodebookgenerator.RuleDerivation")
+@Label("Rule Derivation")
+@Category({"PALGA Codebook Generator", "Nets"})
+@Description("Deriving the rules from a node to one of its children")
+public class RuleDerivationEvent extends Event {
+    @Label("Node")
+    public String nodeId;
+
+    @Label("Child")
+    public String childId;
+
+    @Label("Rule Size")
+    @Description("Number of nodes in the decision diagram of the derived rule")
+    public int ruleSize;
+}
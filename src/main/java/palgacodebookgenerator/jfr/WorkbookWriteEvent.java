@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+package palgacodebookgenerator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for serializing a workbook to its file
+ */
+@Name("palgacodebookgenerator.WorkbookWrite")
+@Label("Workbook Write")
+@Category({"PALGA Codebook Generator", "Codebooks"})
+@Description("Serializing and compressing a workbook")
+public class WorkbookWriteEvent extends Event {
+    @Label("File")
+    public String fileName;
+
+    @Label("Sheets")
+    public int sheetCount;
+
+    @Label("Streaming")
+    @Description("Whether the workbook is a streaming workbook")
+    public boolean streaming;
+}
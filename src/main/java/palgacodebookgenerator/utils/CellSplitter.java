@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+package palgacodebookgenerator.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * splits text into cells which fit in Excel, of at most ExcelUtils.MAX_CELL_LENGTH characters
+ * the text is appended in parts, e.g. the atoms and operators of a rule, and split in a single pass: only the cell
+ * which is being filled is kept, so the whole text never has to exist as a single string. A cell ends at the last
+ * space that fits, the space itself starts the next cell
+ */
+public class CellSplitter {
+    private final boolean keepCells;
+    private final List<String> cells = new ArrayList<>();
+    private final StringBuilder cell = new StringBuilder();
+    private int cellCount = 0;
+
+    /**
+     * constructor
+     */
+    public CellSplitter(){
+        this(true);
+    }
+
+    /**
+     * constructor
+     * @param keepCells    whether to keep the cells, or only count them
+     */
+    public CellSplitter(boolean keepCells){
+        this.keepCells = keepCells;
+    }
+
+    /**
+     * append a part of the text
+     * @param text    the part
+     */
+    public void append(String text){
+        cell.append(text);
+        while(cell.length() > ExcelUtils.MAX_CELL_LENGTH){
+            int end = cell.lastIndexOf(" ", ExcelUtils.MAX_CELL_LENGTH-1);
+            if(end <= 0){
+                // a single word which does not fit is cut
+                end = ExcelUtils.MAX_CELL_LENGTH;
+            }
+            addCell(end);
+        }
+    }
+
+    /**
+     * returns the cells of the text appended so far; at least one, which is empty if there is no text
+     * @return list with the cells
+     */
+    public List<String> getCells(){
+        List<String> allCells = new ArrayList<>(cells);
+        allCells.add(cell.toString());
+        return allCells;
+    }
+
+    /**
+     * returns the number of cells of the text appended so far
+     * @return the number of cells
+     */
+    public int getCellCount(){
+        return cellCount+1;
+    }
+
+    /**
+     * finish a cell with the first characters of the cell which is being filled
+     * @param end    the number of characters
+     */
+    private void addCell(int end){
+        if(keepCells){
+            cells.add(cell.substring(0, end));
+        }
+        cellCount++;
+        cell.delete(0, end);
+    }
+}
@@ -20,39 +20,79 @@
 
 package palgacodebookgenerator.utils;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import palgacodebookgenerator.jfr.WorkbookWriteEvent;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 /**
  * Excel helper functions
  */
 public class ExcelUtils {
+    /**
+     * the maximum number of characters Excel accepts in a cell
+     */
+    public static final int MAX_CELL_LENGTH = 32767;
+    // number of rows per sheet a streaming workbook keeps in memory; older rows are flushed to a temp file
+    private static final int STREAMING_ROW_WINDOW = 100;
 
     /**
      * create a new workbook
      * @return the workbook
      */
     public static Workbook createXLSXWorkbook(){
+        return createXLSXWorkbook(false);
+    }
+
+    /**
+     * create a new workbook
+     * a streaming workbook only keeps the last rows of each sheet in memory and writes the older rows to
+     * (compressed) temp files, so memory use does not grow with the size of the codebook. Rows which have been
+     * flushed can no longer be accessed, which is fine as we only append rows
+     * @param streaming    whether to create a streaming workbook
+     * @return the workbook
+     */
+    public static Workbook createXLSXWorkbook(boolean streaming){
+        if(streaming){
+            SXSSFWorkbook workbook = new SXSSFWorkbook(STREAMING_ROW_WINDOW);
+            workbook.setCompressTempFiles(true);
+            return workbook;
+        }
         return new XSSFWorkbook();
     }
 
     /**
-     * write a workbook to file
+     * write a workbook to file. The temp files of a streaming workbook are removed afterwards, also when writing fails
      * @param workbook the workbook to write
      * @param fileName the filename of the output file
+     * @throws UncheckedIOException if the file cannot be written
      */
+    @SuppressWarnings("try")
     public static void writeXLSXWorkBook(Workbook workbook, String fileName){
-        try (FileOutputStream fileOut = new FileOutputStream(fileName)){
+        WorkbookWriteEvent writeEvent = new WorkbookWriteEvent();
+        writeEvent.begin();
+        try (RunStatistics.Stage stage = RunStatistics.current().start(RunStatistics.SERIALIZE_WORKBOOK);
+             FileOutputStream fileOut = new FileOutputStream(fileName)){
             workbook.write(fileOut);
             fileOut.close();
         } catch (IOException e) {
-            logger.error("Problem creating {}. The file has NOT been created.", fileName);
+            throw new UncheckedIOException("Problem creating "+fileName+". The file has NOT been created.", e);
+        } finally {
+            if(workbook instanceof SXSSFWorkbook){
+                ((SXSSFWorkbook) workbook).dispose();
+            }
+        }
+        writeEvent.end();
+        if(writeEvent.shouldCommit()){
+            writeEvent.fileName = fileName;
+            writeEvent.sheetCount = workbook.getNumberOfSheets();
+            writeEvent.streaming = workbook instanceof SXSSFWorkbook;
+            writeEvent.commit();
         }
     }
 
@@ -77,50 +117,21 @@ public class ExcelUtils {
      * @param sheetName      the name of the worksheet
      * @param headerNames    list of the headernames
      * @param headerStyle    the style which to apply to the headers
-     * @return the newly created sheet
-     */
-    public static Sheet createSheetWithHeader(Workbook workbook, String sheetName, List <String> headerNames, CellStyle headerStyle){
-        Sheet sheet  = workbook.createSheet(sheetName);
-        Row row = sheet.createRow(0);
-
-        for(int i=0; i<headerNames.size(); i++){
-            row.getCell(i, Row.CREATE_NULL_AS_BLANK).setCellValue(headerNames.get(i));
-            row.getCell(i).setCellStyle(headerStyle);
-        }
-        return sheet;
-    }
-
-    public static Sheet createSheetWithoutHeader(Workbook workbook, String sheetName){
-        return workbook.createSheet(StringUtils.cleanString(sheetName));
-    }
-
-    /**
-     * write values to a sheet
-     * @param sheet     the sheet to which the values will be written
-     * @param values    one or more string values which will be written
+     * @return writer for the newly created sheet
      */
-    public static void writeValues(Sheet sheet, String ... values){
-        Row row;
-        if(sheet.getPhysicalNumberOfRows()==0){
-            row = sheet.createRow(sheet.getLastRowNum());
-        }
-        else {
-            row = sheet.createRow(sheet.getLastRowNum() + 1);
-        }
-        for(int i=0; i<values.length; i++){
-            String value = StringUtils.cleanString(values[i]);
-            row.getCell(i, Row.CREATE_NULL_AS_BLANK).setCellValue(value);
-        }
+    public static SheetWriter createSheetWithHeader(Workbook workbook, String sheetName, List <String> headerNames, CellStyle headerStyle){
+        SheetWriter sheetWriter = new SheetWriter(workbook.createSheet(sheetName));
+        sheetWriter.writeHeader(headerNames, headerStyle);
+        return sheetWriter;
     }
 
     /**
-     * write values to a sheet
-     * @param sheet     the sheet to which the values will be written
-     * @param values    a list with values which will be written
+     * create a sheet in a workbook without a header
+     * @param workbook     the workbook in which the sheet must be created
+     * @param sheetName    the name of the worksheet
+     * @return writer for the newly created sheet
      */
-    public static void writeValues(Sheet sheet, List<String> values){
-        writeValues(sheet, values.toArray(new String[values.size()]));
+    public static SheetWriter createSheetWithoutHeader(Workbook workbook, String sheetName){
+        return new SheetWriter(workbook.createSheet(StringUtils.cleanString(sheetName)));
     }
-
-    private static final Logger logger = LogManager.getLogger(ExcelUtils.class.getName());
 }
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+package palgacodebookgenerator.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * bounded ring buffer for log messages, written by any number of threads and drained by a single thread
+ * writing a message never blocks or waits for the reader: a writer claims the next sequence number and stores the
+ * message in its slot. When the reader falls behind by more than the capacity, the oldest messages are overwritten;
+ * the reader skips them and reports how many it missed
+ */
+class LogRingBuffer {
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    // the sequence number of the next message which is written
+    private final AtomicLong writeSequence = new AtomicLong();
+    // the sequence number of the next message which is read, only changed by the reader
+    private volatile long readSequence = 0;
+
+    /**
+     * a message with its sequence number, which tells the reader whether the slot holds the message it expects
+     */
+    private static final class Entry {
+        private final long sequence;
+        private final String message;
+
+        private Entry(long sequence, String message){
+            this.sequence = sequence;
+            this.message = message;
+        }
+    }
+
+    /**
+     * constructor
+     * @param capacity    the number of messages the buffer holds, rounded up to a power of two
+     */
+    LogRingBuffer(int capacity){
+        int size = Integer.highestOneBit(Math.max(2, capacity)-1)<<1;
+        slots = new AtomicReferenceArray<>(size);
+        mask = size-1;
+    }
+
+    /**
+     * add a message. May be called by any thread
+     * @param message    the message
+     */
+    void add(String message){
+        long sequence = writeSequence.getAndIncrement();
+        slots.set((int) (sequence & mask), new Entry(sequence, message));
+    }
+
+    /**
+     * returns whether there are messages which have not been read. May be called by any thread
+     * @return true/false
+     */
+    boolean hasUnread(){
+        return writeSequence.get() != readSequence;
+    }
+
+    /**
+     * append the unread messages to a builder. Must only be called by a single thread at a time
+     * a message which has been claimed but is still being written ends the drain; it is read the next time
+     * @param builder    the builder to which the messages are appended
+     * @return the number of messages which were overwritten before they could be read
+     */
+    long drainTo(StringBuilder builder){
+        long sequence = readSequence;
+        long end = writeSequence.get();
+        long missed = 0;
+        if(end-sequence > slots.length()){
+            missed = end-slots.length()-sequence;
+            sequence = end-slots.length();
+        }
+        while(sequence < end){
+            Entry entry = slots.get((int) (sequence & mask));
+            if(entry == null || entry.sequence < sequence){
+                // the writer has not stored the message yet
+                break;
+            }
+            if(entry.sequence == sequence){
+                builder.append(entry.message);
+            }
+            else{
+                // a writer which lapped us has already overwritten the message
+                missed++;
+            }
+            sequence++;
+        }
+        readSequence = sequence;
+        return missed;
+    }
+}
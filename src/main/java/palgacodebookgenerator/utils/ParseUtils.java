@@ -20,6 +20,7 @@
 
 package palgacodebookgenerator.utils;
 
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -35,7 +36,7 @@ public class ParseUtils {
      * @param pattern    the pattern to apply
      * @return first match or empty string
      */
-    public static String getValue(String data, Pattern pattern){
+    public static String getValue(CharSequence data, Pattern pattern){
         Matcher matcher = pattern.matcher(data);
         if(matcher.matches()){
             return matcher.group(1);
@@ -47,36 +48,36 @@ public class ParseUtils {
      * returns the part of the data that begins with the element and ends when the indentation
      * reaches the same level again. This is used to select a substring of the data, e.g. to select
      * the "element {data, data, data, data}" from "before, element {data, data, data, data}, after"
+     * The data is read per line: a line with a "{" goes up a level, else a line with a "}" goes down one.
+     * Every line of the result ends with a new line. The result is a view on the data where it can be.
      * @param data       the data string
      * @param element    the element to look for
      * @return the string which starts with the element and stops when the same level of indentation is reached
      */
-    public static String getElementData(String data, String element){
-        // class to keep track of the "{" and "}" tokens to determine when to stop reading
-        class TokenTracker {
-            private int level=0;
-
-            boolean stopReading(String line){
-                if(line.contains("{")) level++;
-                else if(line.contains("}")) level--;
-                return level == 0;
-            }
+    public static CharSequence getElementData(CharSequence data, String element){
+        int start = indexOf(data, element, 0);
+        if(start<0){
+            return "";
         }
-
-        TokenTracker token = new TokenTracker();
-        String output="";
-        if(data.contains(element)) {
-            // take the data found after the element and split by new line
-            String[] splitData = data.substring(data.indexOf(element)).split("\n");
-            for (String line : splitData) {
-                output += line + "\n";
-                // keep track of indentation level and see whether we should stop reading
-                if (token.stopReading(line)) {
-                    break;
-                }
+        int level = 0;
+        int end = start;
+        for(int lineStart=start; lineStart<data.length(); ){
+            int lineEnd = indexOf(data, "\n", lineStart);
+            lineEnd = lineEnd<0 ? data.length() : lineEnd;
+            if(contains(data, lineStart, lineEnd, '{')) level++;
+            else if(contains(data, lineStart, lineEnd, '}')) level--;
+            // keep track of indentation level and see whether we should stop reading
+            if(level == 0){
+                end = lineEnd;
+                break;
             }
+            // empty lines at the end are not part of the result, as with String.split
+            if(lineEnd>lineStart){
+                end = lineEnd;
+            }
+            lineStart = lineEnd+1;
         }
-        return output;
+        return withNewLine(data, start, end);
     }
 
     /**
@@ -94,78 +95,131 @@ public class ParseUtils {
      *        };
      * 		},
      * will give a List with two list entries.
+     * The data is read per line, as in getElementData. The entries are views on the data where they can be.
      * @param data    the data
      * @return list with the parts entries
      */
-    public static List<String> partsSplitter(String data){
-
-        // keeps track of the level and decides whether we may add the line or whether
-        // the line is a new element
-        class LevelSplit{
-            private final int level;
-            private int curLevel=0;
-
-            private LevelSplit(int level){
-                this.level = level;
+    public static List<CharSequence> partsSplitter(CharSequence data){
+        // the entries we're looking for are at level 2: inside the parts table
+        final int level = 2;
+        List<CharSequence> items = new ArrayList<>();
+        int curLevel = 0;
+        int itemStart = -1;
+
+        for(int lineStart=0; lineStart<data.length(); ){
+            int lineEnd = indexOf(data, "\n", lineStart);
+            lineEnd = lineEnd<0 ? data.length() : lineEnd;
+            boolean levelUp = contains(data, lineStart, lineEnd, '{');
+            boolean levelDown = contains(data, lineStart, lineEnd, '}');
+            if(levelUp){
+                curLevel++;
             }
-
-            /**
-             * if line contains a {, level up
-             * @param line    the line to check
-             */
-            private void checkLevelUp(String line){
-                if(line.contains("{")){
-                    curLevel++;
-                }
+            // the line belongs to the current element
+            if(curLevel >= level && itemStart<0){
+                itemStart = lineStart;
             }
-
-            /**
-             * if line contains a }, level down
-             * @param line    the line to check
-             */
-            private void checkLevelDown(String line){
-                if(line.contains("}")){
-                    curLevel--;
-                }
+            // the line ends the current element: save it
+            if(curLevel == level && levelDown){
+                items.add(withNewLine(data, itemStart, lineEnd));
+                itemStart = -1;
             }
-
-            /**
-             * checks whether the line will lead to a new list element
-             * @param line    the line to check
-             * @return true/false
-             */
-            private boolean newElement(String line){
-                return curLevel == level && line.contains("}");
+            if(levelDown){
+                curLevel--;
             }
+            lineStart = lineEnd+1;
+        }
+        return items;
+    }
 
-            /**
-             * checks whether the line may be added to the current element
-             * @return true/false
-             */
-            private boolean mayAddLine(){
-                return curLevel >= level;
+    /**
+     * returns whether a range of the data contains a character
+     * @param data     the data
+     * @param start    the start of the range
+     * @param end      the end of the range, exclusive
+     * @param c        the character
+     * @return true/false
+     */
+    private static boolean contains(CharSequence data, int start, int end, char c){
+        for(int i=start; i<end; i++){
+            if(data.charAt(i) == c){
+                return true;
             }
         }
+        return false;
+    }
+
+    /**
+     * returns the lines of the data from start to end followed by a new line: a view on the data when the data
+     * has the new line, else a copy
+     * @param data     the data
+     * @param start    the start of the lines
+     * @param end      the end of the last line, without its new line
+     * @return the lines
+     */
+    private static CharSequence withNewLine(CharSequence data, int start, int end){
+        if(end<data.length()){
+            return CharBuffer.wrap(data, start, end+1);
+        }
+        return data.subSequence(start, end)+"\n";
+    }
 
-        // create a new level split at level 2
-        LevelSplit levelSplit = new LevelSplit(2);
-        List<String> items = new ArrayList<>();
-        String [] splitData = data.split("\n");
-        String curItem="";
+    /**
+     * returns the table prefix of the protocol of a net: the part of its name up to and including the last
+     * underscore, e.g. colon_ for colon_conclusion. This is the one place where the prefix is derived, so the
+     * wizard, the command line and the batch end up with the same protocols
+     * @param netName    the name of the net, e.g. the conclusion net from the settings of the workspace
+     * @return the table prefix, empty if the name has no underscore
+     */
+    public static String getProtocolTablePrefix(String netName){
+        return netName.substring(0, netName.lastIndexOf("_")+1);
+    }
 
-        for(String line:splitData){
-            levelSplit.checkLevelUp(line);
-            if(levelSplit.mayAddLine()){
-                curItem+=line+"\n";
+    /**
+     * splits the data around matches of the separator, like String.split does for a literal separator,
+     * but returns views on the data instead of copies
+     * @param data         the data
+     * @param separator    the separator
+     * @return list with the parts of the data, trailing empty parts are removed
+     */
+    public static List<CharSequence> split(CharSequence data, String separator){
+        List<CharSequence> parts = new ArrayList<>();
+        int start = 0;
+        int index;
+        while((index = indexOf(data, separator, start)) >= 0){
+            parts.add(CharBuffer.wrap(data, start, index));
+            start = index + separator.length();
+        }
+        parts.add(CharBuffer.wrap(data, start, data.length()));
+
+        // same as String.split: remove trailing empty parts
+        while(parts.size()>1 && parts.get(parts.size()-1).length()==0){
+            parts.remove(parts.size()-1);
+        }
+        return parts;
+    }
+
+    /**
+     * returns the index of the first occurrence of a string in the data
+     * @param data         the data
+     * @param value        the string to look for
+     * @param fromIndex    the index to start looking
+     * @return the index or -1 if the string was not found
+     */
+    public static int indexOf(CharSequence data, String value, int fromIndex){
+        if(data instanceof String){
+            return ((String) data).indexOf(value, fromIndex);
+        }
+        int last = data.length() - value.length();
+        for(int i=Math.max(fromIndex, 0); i<=last; i++){
+            int j = 0;
+            while(j<value.length() && data.charAt(i+j)==value.charAt(j)){
+                j++;
             }
-            // if we meet the requirements for a new element, save the current one and clean the string
-            if(levelSplit.newElement(line)){
-                items.add(curItem);
-                curItem="";
+            if(j == value.length()){
+                return i;
             }
-            levelSplit.checkLevelDown(line);
         }
-        return items;
+        return -1;
     }
 
     /**
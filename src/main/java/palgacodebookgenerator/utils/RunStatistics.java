@@ -0,0 +1,401 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.utils;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * records the wall time, CPU time and allocated bytes per stage of a run, as well as counters such as the number
+ * of nodes parsed. The statistics of a run are activated on the threads which work for the run; code deep down in
+ * the parsing or writing finds them with current(). On threads without active statistics nothing is recorded.
+ * Stages may be nested on a thread: the time of the inner stage is not counted for the outer stage, so the stages
+ * add up to the time spent. Stages running on several threads at the same time add up as well, so the time of a
+ * stage can exceed the wall time of the run
+ */
+public class RunStatistics {
+    private static final Logger logger = LogManager.getLogger(RunStatistics.class.getName());
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private static final RunStatistics disabled = new RunStatistics(null);
+    private static final ThreadLocal<RunStatistics> active = ThreadLocal.withInitial(() -> disabled);
+
+    // stages
+    public static final String READ_DATABASE = "read_database";
+    public static final String WAIT_FOR_PARSERS = "wait_for_parsers";
+    public static final String READ_NET_CACHE = "read_net_cache";
+    public static final String WRITE_NET_CACHE = "write_net_cache";
+    public static final String PARSE_NODES = "parse_nodes";
+    public static final String CREATE_NODES = "create_nodes";
+    public static final String CONNECT_GRAPH = "connect_graph";
+    public static final String DERIVE_RULES = "derive_rules";
+    public static final String COLLECT_ITEMS = "collect_items";
+    public static final String MERGE_ITEMS = "merge_items";
+    public static final String BUILD_SHEETS = "build_sheets";
+    public static final String SERIALIZE_WORKBOOK = "serialize_workbook";
+
+    // counters
+    public static final String NETS_PARSED = "nets_parsed";
+    public static final String NETS_FROM_CACHE = "nets_from_cache";
+    public static final String NODES_PARSED = "nodes_parsed";
+    public static final String ITEMS_EXTRACTED = "items_extracted";
+    public static final String ITEMS_MERGED = "items_merged";
+    public static final String CELLS_WRITTEN = "cells_written";
+
+    private final String name;
+    private final long startNanos = System.nanoTime();
+    private final Instant startTime = Instant.now();
+    private final Map<String, StageTotals> stages = new LinkedHashMap<>();
+    private final Map<String, LongAdder> counters = new LinkedHashMap<>();
+    private final ThreadLocal<Deque<Stage>> stageStack = ThreadLocal.withInitial(ArrayDeque::new);
+
+    /**
+     * constructor
+     * @param name    name of the run, e.g. the name of the protocol
+     */
+    public RunStatistics(String name){
+        this.name = name;
+    }
+
+    /**
+     * returns the statistics which are active on the current thread
+     * @return the statistics; if none are active, statistics which do not record anything
+     */
+    public static RunStatistics current(){
+        return active.get();
+    }
+
+    /**
+     * runs a task with these statistics active on the current thread
+     * @param task    the task
+     * @param <T>     the type of the result of the task
+     * @return the result of the task
+     */
+    public <T> T call(Supplier<T> task){
+        RunStatistics previous = active.get();
+        active.set(this);
+        try {
+            return task.get();
+        } finally {
+            active.set(previous);
+        }
+    }
+
+    /**
+     * runs a task with these statistics active on the current thread
+     * @param task    the task
+     */
+    public void run(Runnable task){
+        call(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * runs a task as a stage on the current thread
+     * @param stageName    name of the stage
+     * @param task         the task
+     * @param <T>          the type of the result of the task
+     * @return the result of the task
+     */
+    public <T> T time(String stageName, Supplier<T> task){
+        Stage stage = start(stageName);
+        try {
+            return task.get();
+        } finally {
+            stage.close();
+        }
+    }
+
+    /**
+     * runs a task as a stage on the current thread
+     * @param stageName    name of the stage
+     * @param task         the task
+     */
+    public void time(String stageName, Runnable task){
+        time(stageName, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * starts a stage on the current thread. The stage ends when it is closed. Use time instead when the stage
+     * runs code which throws no checked exceptions
+     * @param stageName    name of the stage
+     * @return the stage
+     */
+    public Stage start(String stageName){
+        if(this==disabled){
+            return Stage.none;
+        }
+        Deque<Stage> stack = stageStack.get();
+        Stage outer = stack.peek();
+        if(outer!=null){
+            outer.pause();
+        }
+        Stage stage = new Stage(this, getTotals(stageName));
+        stack.push(stage);
+        return stage;
+    }
+
+    /**
+     * add to a counter
+     * @param counterName    name of the counter
+     * @param amount         the amount which is added
+     */
+    public void count(String counterName, long amount){
+        if(this==disabled){
+            return;
+        }
+        LongAdder counter;
+        synchronized (counters) {
+            counter = counters.computeIfAbsent(counterName, k -> new LongAdder());
+        }
+        counter.add(amount);
+    }
+
+    /**
+     * returns the totals of a stage, in the order in which the stages were first seen
+     * @param stageName    name of the stage
+     * @return the totals
+     */
+    private StageTotals getTotals(String stageName){
+        synchronized (stages) {
+            return stages.computeIfAbsent(stageName, StageTotals::new);
+        }
+    }
+
+    /**
+     * a stage ends: record it and continue the outer stage
+     * @param stage    the stage
+     */
+    private void end(Stage stage){
+        Deque<Stage> stack = stageStack.get();
+        stack.remove(stage);
+        stage.totals.count.increment();
+        Stage outer = stack.peek();
+        if(outer!=null){
+            outer.resume();
+        }
+    }
+
+    /**
+     * log a summary of the stages and counters
+     */
+    public void logSummary(){
+        StringBuilder summary = new StringBuilder("Run statistics for "+name+" (wall time "+millis(System.nanoTime()-startNanos)+" ms)");
+        for(StageTotals totals:getStages()){
+            summary.append("\n\t").append(totals.name).append(": ").append(totals.count.sum()).append("x, wall ")
+                    .append(millis(totals.wallNanos.sum())).append(" ms, cpu ").append(millis(totals.cpuNanos.sum()))
+                    .append(" ms, allocated ").append(String.format("%.1f", totals.allocatedBytes.sum()/(1024.0*1024))).append(" MiB");
+        }
+        for(Map.Entry<String, Long> counter:getCounters().entrySet()){
+            summary.append("\n\t").append(counter.getKey()).append(": ").append(counter.getValue());
+        }
+        logger.log(Level.INFO, summary.toString());
+    }
+
+    /**
+     * write the statistics as a JSON run report
+     * @param fileName    name of the report
+     */
+    public void writeReport(String fileName){
+        try (BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(fileName))) {
+            bufferedWriter.write(toJson());
+        } catch (IOException e) {
+            logger.log(Level.ERROR, "Could not write the run report "+fileName+": "+e.getMessage());
+        }
+    }
+
+    /**
+     * returns the statistics as JSON
+     * @return the JSON text
+     */
+    String toJson(){
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"name\": ").append(quote(name)).append(",\n");
+        json.append("  \"started\": ").append(quote(startTime.toString())).append(",\n");
+        json.append("  \"wall_time_ms\": ").append(millis(System.nanoTime()-startNanos)).append(",\n");
+        json.append("  \"cpu_time_measured\": ").append(isCpuTimeMeasured()).append(",\n");
+        json.append("  \"allocation_measured\": ").append(isAllocationMeasured()).append(",\n");
+        json.append("  \"stages\": [");
+        List<StageTotals> stageTotals = getStages();
+        for(int i=0; i<stageTotals.size(); i++){
+            StageTotals totals = stageTotals.get(i);
+            json.append(i==0 ? "\n" : ",\n");
+            json.append("    {\"name\": ").append(quote(totals.name))
+                    .append(", \"count\": ").append(totals.count.sum())
+                    .append(", \"wall_time_ms\": ").append(millis(totals.wallNanos.sum()))
+                    .append(", \"cpu_time_ms\": ").append(millis(totals.cpuNanos.sum()))
+                    .append(", \"allocated_bytes\": ").append(totals.allocatedBytes.sum()).append("}");
+        }
+        json.append(stageTotals.isEmpty() ? "],\n" : "\n  ],\n");
+        json.append("  \"counters\": {");
+        boolean first = true;
+        for(Map.Entry<String, Long> counter:getCounters().entrySet()){
+            json.append(first ? "\n" : ",\n");
+            json.append("    ").append(quote(counter.getKey())).append(": ").append(counter.getValue());
+            first = false;
+        }
+        json.append(first ? "}\n" : "\n  }\n");
+        return json.append("}\n").toString();
+    }
+
+    /**
+     * returns a copy of the stage totals
+     * @return list with the stage totals
+     */
+    private List<StageTotals> getStages(){
+        synchronized (stages) {
+            return new ArrayList<>(stages.values());
+        }
+    }
+
+    /**
+     * returns the current values of the counters
+     * @return map with the counters and their values
+     */
+    private Map<String, Long> getCounters(){
+        Map<String, Long> values = new LinkedHashMap<>();
+        synchronized (counters) {
+            for(Map.Entry<String, LongAdder> counter:counters.entrySet()){
+                values.put(counter.getKey(), counter.getValue().sum());
+            }
+        }
+        return values;
+    }
+
+    private static long millis(long nanos){
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static String quote(String value){
+        return value==null ? "null" : "\""+value.replace("\\", "\\\\").replace("\"", "\\\"")+"\"";
+    }
+
+    private static boolean isCpuTimeMeasured(){
+        return threadMXBean.isCurrentThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled();
+    }
+
+    private static boolean isAllocationMeasured(){
+        return threadMXBean instanceof com.sun.management.ThreadMXBean &&
+                ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * returns the CPU time of the current thread
+     * @return the CPU time in nanoseconds, 0 if it is not measured
+     */
+    private static long getCpuNanos(){
+        return isCpuTimeMeasured() ? threadMXBean.getCurrentThreadCpuTime() : 0;
+    }
+
+    /**
+     * returns the number of bytes allocated by the current thread
+     * @return the allocated bytes, 0 if they are not measured
+     */
+    private static long getAllocatedBytes(){
+        return isAllocationMeasured() ? ((com.sun.management.ThreadMXBean) threadMXBean).getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    /**
+     * the totals of a stage over all threads
+     */
+    private static class StageTotals {
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder wallNanos = new LongAdder();
+        private final LongAdder cpuNanos = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+
+        StageTotals(String name){
+            this.name = name;
+        }
+    }
+
+    /**
+     * a stage which is running on the current thread. It must be closed on the thread on which it was started
+     */
+    public static class Stage implements AutoCloseable {
+        private static final Stage none = new Stage(null, null);
+        private final RunStatistics runStatistics;
+        private final StageTotals totals;
+        private long wallStart;
+        private long cpuStart;
+        private long allocatedStart;
+
+        private Stage(RunStatistics runStatistics, StageTotals totals){
+            this.runStatistics = runStatistics;
+            this.totals = totals;
+            if(totals!=null){
+                resume();
+            }
+        }
+
+        /**
+         * (re)start measuring
+         */
+        private void resume(){
+            wallStart = System.nanoTime();
+            cpuStart = getCpuNanos();
+            allocatedStart = getAllocatedBytes();
+        }
+
+        /**
+         * stop measuring and add what was measured since the last resume to the totals
+         */
+        private void pause(){
+            totals.wallNanos.add(System.nanoTime()-wallStart);
+            totals.cpuNanos.add(getCpuNanos()-cpuStart);
+            totals.allocatedBytes.add(getAllocatedBytes()-allocatedStart);
+        }
+
+        /**
+         * end the stage
+         */
+        @Override
+        public void close(){
+            if(totals!=null){
+                pause();
+                runStatistics.end(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.utils;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteOpenMode;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * hands out read-only connections to a workspace database
+ * we only read from the workspace, so the database is opened read-only with a larger page cache and memory mapped
+ * reads. Every workspace has a small pool of connections: a query borrows a connection and gives it back when it
+ * is done, so the connections, with their page cache, are reused by later queries and later runs against the same
+ * workspace, whichever thread they run on. At most MAX_CONNECTIONS queries run at the same time; others wait for
+ * a connection to be given back. The connections stay open until the manager is closed
+ */
+public class SQLiteConnectionManager {
+    private static final Logger logger = LogManager.getLogger(SQLiteConnectionManager.class.getName());
+    private static final Map<String, SQLiteConnectionManager> managers = new ConcurrentHashMap<>();
+
+    // page cache per connection in KiB (a negative cache_size is in KiB instead of pages)
+    private static final int CACHE_SIZE_KIB = 16384;
+    // maximum number of bytes of the database file which is memory mapped
+    private static final long MMAP_SIZE = 256L*1024*1024;
+    // maximum number of connections per workspace
+    private static final int MAX_CONNECTIONS = 4;
+
+    private final String url;
+    // all open connections, and the ones which are not in use
+    private final List<Connection> connections = new ArrayList<>();
+    private final Deque<Connection> idleConnections = new ArrayDeque<>();
+
+    /**
+     * constructor
+     * @param database    database location
+     */
+    private SQLiteConnectionManager(String database){
+        // mode=ro makes sure nothing can be written to the workspace
+        this.url = "jdbc:sqlite:"+new File(database).getAbsoluteFile().toURI()+"?mode=ro";
+    }
+
+    /**
+     * returns the connection manager for a workspace database. The same manager is returned for the same database
+     * @param database    database location
+     * @return the connection manager
+     */
+    public static SQLiteConnectionManager getInstance(String database){
+        return managers.computeIfAbsent(new File(database).getAbsolutePath(), SQLiteConnectionManager::new);
+    }
+
+    /**
+     * close the connections of all connection managers
+     */
+    public static void closeAll(){
+        for(SQLiteConnectionManager manager:managers.values()){
+            manager.close();
+        }
+    }
+
+    /**
+     * borrows a connection, which is opened if none is available. Waits if MAX_CONNECTIONS are in use
+     * the connection must not be closed by the caller, but must be given back with releaseConnection
+     * @return the connection
+     * @throws SQLException if the database cannot be opened or if interrupted while waiting
+     */
+    public synchronized Connection getConnection() throws SQLException {
+        while(true){
+            Connection connection = idleConnections.pollFirst();
+            if(connection != null){
+                if(!connection.isClosed()){
+                    return connection;
+                }
+                connections.remove(connection);
+            }
+            else if(connections.size() < MAX_CONNECTIONS){
+                connection = openConnection();
+                connections.add(connection);
+                return connection;
+            }
+            else {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a connection to "+url, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * gives back a connection which was borrowed with getConnection, so it can be used for a next query
+     * @param connection    the connection
+     */
+    public synchronized void releaseConnection(Connection connection){
+        // a connection which was closed by close is not used again
+        if(connections.contains(connection)){
+            idleConnections.addFirst(connection);
+            notifyAll();
+        }
+    }
+
+    /**
+     * close all connections of this manager
+     */
+    public synchronized void close(){
+        for(Connection connection:connections){
+            closeConnection(connection);
+        }
+        connections.clear();
+        idleConnections.clear();
+        notifyAll();
+    }
+
+    /**
+     * open a new read-only connection
+     * @return the connection
+     * @throws SQLException if the database cannot be opened
+     */
+    private Connection openConnection() throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(true);
+        config.setOpenMode(SQLiteOpenMode.OPEN_URI);
+        config.setCacheSize(-CACHE_SIZE_KIB);
+        config.setTempStore(SQLiteConfig.TempStore.MEMORY);
+        Connection connection = config.createConnection(url);
+        try (Statement statement = connection.createStatement()){
+            statement.execute("pragma mmap_size = "+MMAP_SIZE);
+        } catch (SQLException e) {
+            closeConnection(connection);
+            throw e;
+        }
+        return connection;
+    }
+
+    /**
+     * close a connection
+     * @param connection    the connection
+     */
+    private static void closeConnection(Connection connection){
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.log(Level.ERROR, e.getMessage());
+        }
+    }
+}
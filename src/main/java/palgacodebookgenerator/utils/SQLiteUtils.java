@@ -20,107 +20,142 @@
 
 package palgacodebookgenerator.utils;
 
-import org.apache.logging.log4j.Level;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * SQL helper functions
+ * the functions receive the database they work on, so several workspaces or protocols can be read at the same time
+ * problems with the database are thrown, so the caller can tell an unreadable workspace from one without nets
 */
 public class SQLiteUtils {
-    private static final Logger logger = LogManager.getLogger(SQLiteUtils.class.getName());
-    private static Connection conn=null;
-    private static String database="";
-
-    /**
-     * set the database
-     * @param database    database location
-     */
-    public static void setDatabase(String database){
-        SQLiteUtils.database = database;
-    }
-
     /**
-     * open the database
+     * perform query on the logicnet table and retrieve the names of the nets, based on the netprefix
+     * @param database     database location
+     * @param netPrefix    the prefix of the nets
+     * @return list of loggicnet names
+     * @throws SQLException if the database cannot be opened or queried
      */
-    public static void openDB() {
-        try {
-            conn = DriverManager.getConnection("jdbc:sqlite:"+database);
-        } catch (SQLException e) {
-            logger.log(Level.ERROR, e.getMessage());
+    public static List<String> getLogicNetNames(String database, String netPrefix) throws SQLException {
+        List<String> netList = new ArrayList<>();
+        String sql="select name from logicnet where name like ? and name not like '%_discontinued%'";
+        SQLiteConnectionManager connectionManager = SQLiteConnectionManager.getInstance(database);
+        Connection connection = connectionManager.getConnection();
+        try (PreparedStatement stmt = connection.prepareStatement(sql)){
+            stmt.setString(1, netPrefix+"_%");
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    netList.add(rs.getString("name"));
+                }
+            }
+        } finally {
+            connectionManager.releaseConnection(connection);
         }
+        return netList;
     }
 
     /**
-     * close the database
+     * perform query on the logicnet table and retrieve the nets of all protocols in the database. The table
+     * prefix of a net is derived as for the conclusion net (ParseUtils.getProtocolTablePrefix), e.g. colon_ca_
+     * for colon_ca_tumor. A prefix which starts with the prefix of another net belongs to the protocol of that
+     * net, as getLogicNetNames would also return the net for that protocol, e.g. colon_ca_tumor_size belongs to
+     * colon_ca_. Discontinued nets are skipped, as in getLogicNetNames
+     * @param database    database location
+     * @return map with the table prefixes of the protocols and their nets, sorted by table prefix
+     * @throws SQLException if the database cannot be opened or queried
      */
-    public static void closeDB(){
-        try {
-            if (conn != null) {
-                conn.close();
+    public static Map<String, List<String>> getProtocolNets(String database) throws SQLException {
+        List<String> netNames = new ArrayList<>();
+        String sql="select name from logicnet where name not like '%_discontinued%'";
+        SQLiteConnectionManager connectionManager = SQLiteConnectionManager.getInstance(database);
+        Connection connection = connectionManager.getConnection();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                String name = rs.getString("name");
+                String prefix = ParseUtils.getProtocolTablePrefix(name);
+                if(prefix.length()>1 && prefix.length()<name.length()){
+                    netNames.add(name);
+                }
             }
-        } catch (SQLException ex) {
-            logger.log(Level.ERROR, ex.getMessage());
+        } finally {
+            connectionManager.releaseConnection(connection);
         }
-    }
 
-    /**
-     * perform query on the logicnet table and retrieve the names of the nets, based on the netprefix
-     * @param netPrefix the prefix of the nets
-     * @return list of loggicnet names
-     */
-    public static List<String> getLogicNetNames(String netPrefix){
-        List<String> netList = new ArrayList<>();
-        String sql="select name from logicnet where name like '"+netPrefix+"_%' and name not like '%_discontinued%'";
-        try (Statement stmt  = conn.createStatement();
-             ResultSet rs    = stmt.executeQuery(sql)){
-            while (rs.next()) {
-                netList.add(rs.getString("name"));
+        // the prefixes which start with another prefix directly follow that prefix in sorted order
+        TreeSet<String> protocolTablePrefixes = new TreeSet<>();
+        String lastPrefix = null;
+        for(String prefix:netNames.stream().map(ParseUtils::getProtocolTablePrefix).collect(Collectors.toCollection(TreeSet::new))){
+            if(lastPrefix==null || !prefix.startsWith(lastPrefix)){
+                protocolTablePrefixes.add(prefix);
+                lastPrefix = prefix;
             }
         }
-        catch (SQLException e) {
-            logger.log(Level.ERROR, e.getMessage());
+
+        Map<String, List<String>> protocolNets = new TreeMap<>();
+        for(String name:netNames){
+            String prefix = protocolTablePrefixes.floor(ParseUtils.getProtocolTablePrefix(name));
+            protocolNets.computeIfAbsent(prefix, k -> new ArrayList<>()).add(name);
         }
-        return netList;
+        return protocolNets;
     }
 
     /**
-     * perform query on the logicnet table and retrieve the data of the nets, based on a string of nets
-     * @param netNames    a string which contains the names of the nets in propber sql format
-     * @return list with the data for the nets
+     * perform query on the logicnet table and pass the data of the nets to a consumer, one net at a time
+     * the consumer receives the data of a net as soon as it has been read, so it can start working on it while
+     * the next nets are still being read
+     * the data of a net is read as a whole: the sqlite driver has no streaming access to a text column, its
+     * getCharacterStream only wraps the result of getString
+     * @param database        database location
+     * @param netNames        the names of the nets
+     * @param dataConsumer    the consumer which receives the data of each net
+     * @throws SQLException if the database cannot be opened or queried
      */
-    public static List<String> getLogicNetData(String netNames){
-        List<String> netData = new ArrayList<>();
-        String sql="select data from logicnet where name in ("+netNames+")";
-        try (Statement stmt  = conn.createStatement();
-             ResultSet rs    = stmt.executeQuery(sql)){
-            while (rs.next()) {
-                netData.add(rs.getString("data"));
-            }
+    public static void readLogicNetData(String database, List<String> netNames, Consumer<CharSequence> dataConsumer) throws SQLException {
+        if(netNames.isEmpty()){
+            return;
         }
-        catch (SQLException e) {
-            logger.log(Level.ERROR, e.getMessage());
+        String sql="select data from logicnet where name in ("+String.join(",", Collections.nCopies(netNames.size(), "?"))+")";
+        SQLiteConnectionManager connectionManager = SQLiteConnectionManager.getInstance(database);
+        Connection connection = connectionManager.getConnection();
+        try (PreparedStatement stmt = connection.prepareStatement(sql)){
+            for(int i=0; i<netNames.size(); i++){
+                stmt.setString(i+1, netNames.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String data = rs.getString("data");
+                    dataConsumer.accept(data != null ? data : "");
+                }
+            }
+        } finally {
+            connectionManager.releaseConnection(connection);
         }
-        return netData;
     }
 
     /**
      * fetch the settings from the standalone table. This contains e.g. the version and the table prefix
-     * @return the table prefix
+     * @param database    database location
+     * @return the settings, empty if the workspace has none
+     * @throws SQLException if the database cannot be opened or queried
      */
-    public static String doTableSettingsQuery(){
+    public static String doTableSettingsQuery(String database) throws SQLException {
         String sql = "select value from standalone where key = 'settings'";
-        try (Statement stmt  = conn.createStatement();
+        SQLiteConnectionManager connectionManager = SQLiteConnectionManager.getInstance(database);
+        Connection connection = connectionManager.getConnection();
+        try (Statement stmt  = connection.createStatement();
              ResultSet rs    = stmt.executeQuery(sql)){
-            return rs.getString("value");
-        } catch (SQLException e) {
-            logger.log(Level.ERROR, e.getMessage());
+            return rs.next() ? rs.getString("value") : "";
+        } finally {
+            connectionManager.releaseConnection(connection);
         }
-        return "";
     }
 
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 NKI/AvL; VUmc 2018/2019/2020
+ *
+ * This file is part of PALGA Protocol Codebook Generator.
+ *
+ * PALGA Protocol Codebook Generator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PALGA Protocol Codebook Generator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PALGA Protocol Codebook Generator. If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+
+package palgacodebookgenerator.utils;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+
+import java.util.List;
+
+/**
+ * appends rows to a sheet
+ * the writer keeps track of the next row itself, so POI does not have to work out the last row for every row
+ * we write, and the values are written directly from the list the caller passes
+ */
+public class SheetWriter {
+    private final Sheet sheet;
+    private final RunStatistics runStatistics = RunStatistics.current();
+    private int nextRowIndex;
+
+    /**
+     * constructor, new rows are added after the rows already in the sheet
+     * @param sheet    the sheet to which the values will be written
+     */
+    public SheetWriter(Sheet sheet){
+        this.sheet = sheet;
+        this.nextRowIndex = sheet.getPhysicalNumberOfRows()==0 ? 0 : sheet.getLastRowNum()+1;
+    }
+
+    /**
+     * returns the sheet to which the values are written
+     * @return the sheet
+     */
+    public Sheet getSheet(){
+        return sheet;
+    }
+
+    /**
+     * write a header row
+     * @param headerNames    list of the headernames
+     * @param headerStyle    the style which to apply to the headers
+     */
+    public void writeHeader(List<String> headerNames, CellStyle headerStyle){
+        Row row = sheet.createRow(nextRowIndex++);
+        for(int i=0; i<headerNames.size(); i++){
+            Cell cell = row.createCell(i);
+            cell.setCellValue(headerNames.get(i));
+            cell.setCellStyle(headerStyle);
+        }
+        runStatistics.count(RunStatistics.CELLS_WRITTEN, headerNames.size());
+    }
+
+    /**
+     * write values to the next row
+     * @param values    one or more string values which will be written
+     */
+    public void writeValues(String ... values){
+        Row row = sheet.createRow(nextRowIndex++);
+        for(int i=0; i<values.length; i++){
+            row.createCell(i).setCellValue(StringUtils.cleanString(values[i]));
+        }
+        runStatistics.count(RunStatistics.CELLS_WRITTEN, values.length);
+    }
+
+    /**
+     * write values to the next row
+     * @param values    a list with values which will be written
+     */
+    public void writeValues(List<String> values){
+        Row row = sheet.createRow(nextRowIndex++);
+        for(int i=0; i<values.size(); i++){
+            row.createCell(i).setCellValue(StringUtils.cleanString(values.get(i)));
+        }
+        runStatistics.count(RunStatistics.CELLS_WRITTEN, values.size());
+    }
+}
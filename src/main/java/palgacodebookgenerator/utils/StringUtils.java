@@ -20,7 +20,6 @@
 
 package palgacodebookgenerator.utils;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -33,15 +32,9 @@ public class StringUtils {
      * @return the string as a list of max 32767 characters
      */
     public static List<String> splitString(String value){
-        List<String> splitString = new ArrayList<>();
-        while(value.length()>32767) {
-            String tmpString = value.substring(0, 32767);
-            int indexLastSpace = tmpString.lastIndexOf(" ");
-            splitString.add(value.substring(0, indexLastSpace));
-            value = value.substring(indexLastSpace);
-        }
-        splitString.add(value);
-        return splitString;
+        CellSplitter cellSplitter = new CellSplitter();
+        cellSplitter.append(value);
+        return cellSplitter.getCells();
     }
 
     /**
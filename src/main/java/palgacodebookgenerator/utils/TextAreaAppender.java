@@ -33,9 +33,17 @@ import org.apache.logging.log4j.core.config.plugins.PluginFactory;
 import org.apache.logging.log4j.core.layout.PatternLayout;
 
 import java.io.Serializable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * TextAreaAppender, log4j. Uses the log4j2.xml for its parameters
+ * log events are formatted on the logging thread and put in a ring buffer, which never blocks. A timer moves the
+ * buffered messages to the text area in a single update per interval, on the JavaFX Application Thread, so a burst
+ * of messages neither floods the JavaFX event queue nor slows down the thread that logs. When the buffer is full the
+ * oldest messages are skipped, and the text area only keeps the last part of the log
  * name: name of the plugin
  * elementType: Name of the corresponding category of elements this plugin belongs under. In our case
  * the appender value means indicates an Appender plugin, which is located in the Appender tag in the xml
@@ -48,10 +56,23 @@ import java.io.Serializable;
     printObject = true
 )
 public class TextAreaAppender extends AbstractAppender {
-    private static TextArea textArea;
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final int DEFAULT_MAX_LENGTH = 1000000;
+    private static final int DEFAULT_FLUSH_INTERVAL = 100;
+    private static volatile TextArea textArea;
 
-    private TextAreaAppender(String name, Filter filter, Layout<? extends Serializable> layout) {
+    private final LogRingBuffer buffer;
+    private final int maxLength;
+    private final int flushInterval;
+    // whether a flush has been handed to the JavaFX Application Thread and has not run yet
+    private final AtomicBoolean flushPending = new AtomicBoolean(false);
+    private ScheduledExecutorService flushTimer;
+
+    private TextAreaAppender(String name, Filter filter, Layout<? extends Serializable> layout, int bufferSize, int maxLength, int flushInterval) {
         super(name, filter, layout);
+        this.buffer = new LogRingBuffer(bufferSize);
+        this.maxLength = maxLength;
+        this.flushInterval = flushInterval;
     }
 
     /**
@@ -60,16 +81,25 @@ public class TextAreaAppender extends AbstractAppender {
      * name : LogAreaLogger
      * layout : something like %d{yyyy-MM-dd HH:mm:ss} - %m%n
      * filter : allow Log Events to be evaluated to determine if or how they should be published.
+     * bufferSize : number of messages which are buffered between two updates of the text area
+     * maxLength : number of characters the text area keeps
+     * flushInterval : milliseconds between two updates of the text area
      *
-     * @param name   Name of appender
-     * @param layout Layout of appender
-     * @param filter Filter for appender
+     * @param name             Name of appender
+     * @param layout           Layout of appender
+     * @param filter           Filter for appender
+     * @param bufferSize       Number of buffered messages
+     * @param maxLength        Maximum length of the text in the text area
+     * @param flushInterval    Milliseconds between the updates of the text area
      * @return The newly created TextAreaAppender
      */
     @PluginFactory
     public static TextAreaAppender createAppender(@PluginAttribute("name") String name,
                                                   @PluginElement("Layout") Layout<? extends Serializable> layout,
-                                                  @PluginElement("Filter") final Filter filter) {
+                                                  @PluginElement("Filter") final Filter filter,
+                                                  @PluginAttribute(value = "bufferSize", defaultInt = DEFAULT_BUFFER_SIZE) int bufferSize,
+                                                  @PluginAttribute(value = "maxLength", defaultInt = DEFAULT_MAX_LENGTH) int maxLength,
+                                                  @PluginAttribute(value = "flushInterval", defaultInt = DEFAULT_FLUSH_INTERVAL) int flushInterval) {
         if (name == null) {
             LOGGER.error("No name provided for TextAreaAppender");
             return null;
@@ -77,7 +107,38 @@ public class TextAreaAppender extends AbstractAppender {
         if (layout == null) {
             layout = PatternLayout.createDefaultLayout();
         }
-        return new TextAreaAppender(name, filter, layout);
+        return new TextAreaAppender(name, filter, layout, bufferSize, Math.max(1, maxLength), Math.max(1, flushInterval));
+    }
+
+    /**
+     * start the appender and the timer which updates the text area
+     */
+    @Override
+    public void start() {
+        flushTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, getName()+" flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushTimer.scheduleWithFixedDelay(this::scheduleFlush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        super.start();
+    }
+
+    /**
+     * stop the appender and the timer which updates the text area
+     * @param timeout     the maximum time to wait
+     * @param timeUnit    the unit of the timeout
+     * @return true if the appender was stopped within the timeout
+     */
+    @Override
+    public boolean stop(long timeout, TimeUnit timeUnit) {
+        setStopping();
+        boolean stopped = super.stop(timeout, timeUnit, false);
+        if(flushTimer != null){
+            flushTimer.shutdownNow();
+        }
+        setStopped();
+        return stopped;
     }
 
     /**
@@ -90,24 +151,62 @@ public class TextAreaAppender extends AbstractAppender {
     }
 
     /**
-     * Appender receives a LogEvent and appends it to the textArea
+     * Appender receives a LogEvent and adds it to the buffer, from which it is appended to the textArea
      *
      * @param event Log event
      */
     @Override
     public void append(LogEvent event) {
         // format the message and transform it into a String
-        final String message = new String(getLayout().toByteArray(event));
+        buffer.add(new String(getLayout().toByteArray(event)));
+    }
 
-        // append log text to TextArea, run on the JavaFX Application Thread
-        Platform.runLater(() -> {
-            try {
-                if (textArea != null) {
-                    textArea.appendText(message);
+    /**
+     * hand a flush to the JavaFX Application Thread if there are new messages. Runs on the timer, so there is at
+     * most one update of the text area per interval, and none while the previous one has not run yet
+     */
+    private void scheduleFlush() {
+        if (textArea != null && buffer.hasUnread() && flushPending.compareAndSet(false, true)) {
+            Platform.runLater(this::flush);
+        }
+    }
+
+    /**
+     * append the buffered messages to the text area in one go and drop the start of the log if it is too long
+     * runs on the JavaFX Application Thread
+     */
+    private void flush() {
+        try {
+            StringBuilder messages = new StringBuilder();
+            long skipped = buffer.drainTo(messages);
+            if (skipped > 0) {
+                messages.insert(0, "... " + skipped + " log messages skipped ...\n");
+            }
+            if (textArea != null && messages.length() > 0) {
+                if (messages.length() > maxLength) {
+                    messages.delete(0, messages.length() - maxLength);
                 }
-            } catch (Exception e) {
-                System.err.println("Exception occurred while appending to the text area: " + e.getMessage());
+                textArea.appendText(messages.toString());
+                trimTextArea();
             }
-        });
+        } catch (Exception e) {
+            System.err.println("Exception occurred while appending to the text area: " + e.getMessage());
+        } finally {
+            flushPending.set(false);
+        }
+    }
+
+    /**
+     * remove the oldest lines from the text area when its text is longer than the maximum length
+     * a quarter of the maximum length is removed at once, so the text is not cut at every update
+     */
+    private void trimTextArea() {
+        int length = textArea.getLength();
+        if (length > maxLength) {
+            int end = length - maxLength + maxLength / 4;
+            // cut at the end of a line, if there is one nearby
+            int lineEnd = textArea.getText(end, Math.min(length, end + 1000)).indexOf('\n');
+            textArea.deleteText(0, lineEnd < 0 ? end : end + lineEnd + 1);
+        }
     }
-}
\ No newline at end of file
+}